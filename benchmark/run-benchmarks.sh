@@ -0,0 +1,16 @@
+#!/bin/sh
+# Builds the benchmark jar and runs all JMH benchmarks with the GC profiler.
+# Results are written to results/<commit>.json, compare two runs with any JMH JSON viewer
+# (e.g. https://jmh.morethan.io) or diff the "primaryMetric" and "gc.alloc.rate.norm" values.
+# Extra arguments go to JMH, e.g. ./run-benchmarks.sh TaskManagerBenchmark.getEpic -p subtasks=1000
+set -e
+cd "$(dirname "$0")"
+
+mvn -B -q package
+mkdir -p results
+commit=$(git rev-parse --short HEAD)
+if ! git diff --quiet HEAD -- ../src; then
+    commit="$commit-dirty"
+fi
+
+java -jar target/benchmarks.jar -prof gc -rf json -rff "results/$commit.json" "$@"
@@ -0,0 +1,64 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.Managers;
+import service.TaskManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing subtasks subtasks into one epic: createSubtask in a loop against one createSubtasks call.
+ * Every invocation starts from an empty manager.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BulkImportBenchmark {
+
+    @Param({"1000", "10000"})
+    public int subtasks;
+
+    private TaskManager manager;
+    private List<Subtask> input;
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        manager = Managers.getDefault();
+        int epicId = manager.createEpic(new Epic("Import", "Description")).getId();
+        input = new ArrayList<>(subtasks);
+        for (int i = 0; i < subtasks; i++) {
+            input.add(new Subtask("Imported " + i, "Description", epicId));
+        }
+    }
+
+    @Benchmark
+    public TaskManager loop() {
+        for (Subtask subtask : input) {
+            manager.createSubtask(subtask);
+        }
+        return manager;
+    }
+
+    @Benchmark
+    public List<Subtask> batch() {
+        return manager.createSubtasks(input);
+    }
+}
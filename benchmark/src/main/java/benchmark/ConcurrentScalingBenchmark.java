@@ -0,0 +1,101 @@
+package benchmark;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import service.ConcurrentTaskManager;
+import service.Managers;
+import service.TaskManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mixed read/write throughput of one manager shared by N threads:
+ * the default manager behind one global lock against ConcurrentTaskManager.
+ * Workload: 80% getSubtask/getEpic, 20% updateSubtask (every tenth update moves the subtask to another epic).
+ * Usage: ConcurrentScalingBenchmark [seconds]
+ */
+public class ConcurrentScalingBenchmark {
+
+    private static final int EPICS = 256;
+    private static final int SUBTASKS_PER_EPIC = 64;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-12s %8s %14s%n", "manager", "threads", "ops/sec");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            System.out.printf("%-12s %8d %14.0f%n", "globalLock", threads, run(false, threads, seconds));
+            System.out.printf("%-12s %8d %14.0f%n", "striped", threads, run(true, threads, seconds));
+        }
+    }
+
+    private static double run(boolean striped, int threadCount, int seconds) throws InterruptedException {
+        TaskManager manager = striped ? new ConcurrentTaskManager() : Managers.getDefault();
+        Object globalLock = new Object();
+
+        List<Integer> epicIds = new ArrayList<>();
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int e = 0; e < EPICS; e++) {
+            Epic epic = manager.createEpic(new Epic("Epic " + e, "Description"));
+            epicIds.add(epic.getId());
+            for (int s = 0; s < SUBTASKS_PER_EPIC; s++) {
+                subtaskIds.add(manager.createSubtask(new Subtask("Subtask", "Description", epic.getId())).getId());
+            }
+        }
+
+        LongAdder operations = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while ((done & 255) != 0 || System.nanoTime() < deadline) {
+                    int subtaskId = subtaskIds.get(random.nextInt(subtaskIds.size()));
+                    int dice = random.nextInt(100);
+                    if (striped) {
+                        step(manager, dice, subtaskId, epicIds, random);
+                    } else {
+                        synchronized (globalLock) {
+                            step(manager, dice, subtaskId, epicIds, random);
+                        }
+                    }
+                    done++;
+                }
+                operations.add(done);
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        return operations.sum() * 1_000_000_000.0 / elapsed;
+    }
+
+    private static void step(TaskManager manager, int dice, int subtaskId, List<Integer> epicIds,
+                             ThreadLocalRandom random) {
+        if (dice < 60) {
+            manager.getSubtask(subtaskId);
+        } else if (dice < 80) {
+            manager.getEpic(epicIds.get(random.nextInt(epicIds.size())));
+        } else {
+            Subtask subtask = manager.getSubtask(subtaskId);
+            subtask.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+            if (dice == 99) {
+                subtask.setEpicId(epicIds.get(random.nextInt(epicIds.size())));
+            }
+            manager.updateSubtask(subtask);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package benchmark;
+
+import model.Subtask;
+import repository.IndexedField;
+import repository.SubtaskRepositoryImpl;
+import util.IntList;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * How the epic -> subtasks index of SubtaskRepositoryImpl scales with the size of one epic:
+ * moving a random subtask to another epic and back, deleting and saving it again, and findByEpicId per subtask.
+ * The last column is the old index (IntList.removeValue, a linear scan) for the same move, on a smaller number
+ * of operations so that big epics finish.
+ * Field indexes are off, only membership is measured.
+ * Usage: EpicMembershipBenchmark [max subtasks per epic]
+ */
+public class EpicMembershipBenchmark {
+
+    private static final int EPIC = 1;
+    private static final int OTHER_EPIC = 2;
+    private static final int OPERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%10s %12s %14s %16s %16s%n", "subtasks", "move ns", "delete+save ns", "find ns/subtask",
+                "IntList move ns");
+        for (int size = 10; size <= max; size *= 10) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) {
+        SubtaskRepositoryImpl repository = new SubtaskRepositoryImpl(EnumSet.noneOf(IndexedField.class));
+        Subtask[] inEpic = new Subtask[size];
+        Subtask[] inOtherEpic = new Subtask[size];
+        for (int i = 0; i < size; i++) {
+            Subtask subtask = new Subtask("Subtask", "Description", EPIC);
+            subtask.setId(i + 1);
+            inEpic[i] = repository.saveSubtask(subtask);
+            inOtherEpic[i] = inEpic[i].withEpicId(OTHER_EPIC);
+        }
+
+        // Warm up, then measure
+        moves(repository, inEpic, inOtherEpic, OPERATIONS);
+        double move = moves(repository, inEpic, inOtherEpic, OPERATIONS);
+
+        SplittableRandom random = new SplittableRandom(22);
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            Subtask subtask = inEpic[random.nextInt(size)];
+            repository.deleteSubtask(subtask.getId());
+            repository.saveSubtask(subtask);
+        }
+        double deleteAndSave = (double) (System.nanoTime() - start) / OPERATIONS;
+
+        int rounds = Math.max(1, 10_000_000 / size);
+        long found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            List<Subtask> subtasks = repository.findByEpicId(EPIC);
+            found += subtasks.size();
+        }
+        double find = (double) (System.nanoTime() - start) / found;
+
+        System.out.printf("%10d %12.0f %14.0f %16.1f %16.0f%n", size, move, deleteAndSave, find, intListMoves(size));
+    }
+
+    // Move a random subtask to the other epic and back, nanoseconds per single move
+    private static double moves(SubtaskRepositoryImpl repository, Subtask[] inEpic, Subtask[] inOtherEpic,
+                                int operations) {
+        SplittableRandom random = new SplittableRandom(21);
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            int index = random.nextInt(inEpic.length);
+            repository.updateSubtask(inOtherEpic[index]);
+            repository.updateSubtask(inEpic[index]);
+        }
+        return (double) (System.nanoTime() - start) / (2L * operations);
+    }
+
+    // The same move on two IntLists, the index before it became ordered sets
+    private static double intListMoves(int size) {
+        IntList epic = new IntList(size);
+        IntList otherEpic = new IntList();
+        for (int i = 0; i < size; i++) {
+            epic.add(i + 1);
+        }
+        int operations = (int) Math.max(100, Math.min(OPERATIONS, 100_000_000L / size));
+        SplittableRandom random = new SplittableRandom(21);
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            int id = random.nextInt(size) + 1;
+            epic.removeValue(id);
+            otherEpic.add(id);
+            otherEpic.removeValue(id);
+            epic.add(id);
+        }
+        return (double) (System.nanoTime() - start) / (2L * operations);
+    }
+}
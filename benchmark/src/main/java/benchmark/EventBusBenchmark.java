@@ -0,0 +1,57 @@
+package benchmark;
+
+import event.TaskEventBus;
+import event.TaskEventType;
+import event.WaitStrategy;
+import model.Task;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishing throughput of TaskEventBus with one subscriber for every wait strategy,
+ * plus bytes allocated by the publishing thread per event (should be 0).
+ * Usage: EventBusBenchmark [events]
+ */
+public class EventBusBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        run("busySpin", WaitStrategy.busySpin(), events);
+        run("yielding", WaitStrategy.yielding(), events);
+        run("sleeping", WaitStrategy.sleeping(50_000), events);
+        run("blocking", WaitStrategy.blocking(), events);
+    }
+
+    private static void run(String name, WaitStrategy waitStrategy, int events) throws InterruptedException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Task task = new Task("Task", "Description").freeze();
+
+        try (TaskEventBus bus = new TaskEventBus(TaskEventBus.DEFAULT_BUFFER_SIZE, waitStrategy)) {
+            AtomicLong sum = new AtomicLong();
+            bus.subscribe((event, sequence, endOfBatch) -> {
+                if (endOfBatch) {
+                    sum.lazySet(sequence);
+                }
+            });
+
+            // Warm up so the measured loop runs compiled code
+            for (int i = 0; i < events / 10; i++) {
+                bus.publish(TaskEventType.TASK_UPDATED, i, task);
+            }
+
+            long before = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                bus.publish(TaskEventType.TASK_UPDATED, i, task);
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            System.out.printf("%-10s %8.1f M events/s %6.2f bytes/event%n",
+                    name, events * 1e3 / elapsed, (double) allocated / events);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.EpicRepositoryImpl;
+import repository.SubtaskRepositoryImpl;
+import repository.TaskRepositoryImpl;
+import service.IdGeneratorImpl;
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.TaskManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of getTask with its history recording, on the default manager (unbounded InMemoryHistoryManager)
+ * and on the same repositories with a bounded ConcurrentHistoryManager, where viewAll() keeps evicting.
+ * gc.alloc.rate.norm (the GC profiler is always on, see run-benchmarks.sh) should stay at 0 B/op,
+ * anything above means reads allocate for history again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryAllocationBenchmark {
+
+    private static final int TASKS = 10_000;
+    private static final int HISTORY_CAPACITY = 1_000;
+
+    @Param({"unbounded", "bounded"})
+    public String history;
+
+    private TaskManager taskManager;
+    private int[] taskIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        taskManager = history.equals("unbounded") ? Managers.getDefault() : new InMemoryTaskManager(
+                new IdGeneratorImpl(),
+                new TaskRepositoryImpl(),
+                new SubtaskRepositoryImpl(),
+                new EpicRepositoryImpl(),
+                Managers.getConcurrentHistory(HISTORY_CAPACITY));
+        taskIds = new int[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            taskIds[i] = taskManager.createTask(new Task("Task " + i, "Description")).getId();
+            taskManager.getTask(taskIds[i]);
+        }
+    }
+
+    @Benchmark
+    public Task viewAgain() {
+        // The same small working set over and over, every read moves an existing entry
+        cursor = cursor + 1 == HISTORY_CAPACITY ? 0 : cursor + 1;
+        return taskManager.getTask(taskIds[cursor]);
+    }
+
+    @Benchmark
+    public Task viewAll() {
+        // Cycles over all tasks: moves entries in the unbounded history, evicts and reuses slots in the bounded one
+        cursor = cursor + 1 == TASKS ? 0 : cursor + 1;
+        return taskManager.getTask(taskIds[cursor]);
+    }
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.HistoryManager;
+import service.InMemoryHistoryManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryHistoryManager with historySize tasks already viewed.
+ * add() views an existing task again (moves it to the end), removeAndAdd() removes a task and views it back,
+ * so the history size stays the same during the run.
+ * getHistory() on unchanged history returns the cached list, addAndGetHistory() pays for a rebuild every time,
+ * getRecentHistory() reads only the last RECENT entries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryManagerBenchmark {
+
+    private static final int RECENT = 10;
+
+    @Param({"10", "1000", "100000"})
+    public int historySize;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        historyManager = new InMemoryHistoryManager();
+        tasks = new Task[historySize];
+        for (int i = 0; i < historySize; i++) {
+            Task task = new Task("Task " + i, "Description");
+            task.setId(i + 1);
+            tasks[i] = task.freeze();
+            historyManager.add(tasks[i]);
+        }
+    }
+
+    private Task next() {
+        cursor = cursor + 1 == tasks.length ? 0 : cursor + 1;
+        return tasks[cursor];
+    }
+
+    @Benchmark
+    public void add() {
+        historyManager.add(next());
+    }
+
+    @Benchmark
+    public void removeAndAdd() {
+        Task task = next();
+        historyManager.remove(task.getId());
+        historyManager.add(task);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Benchmark
+    public List<Task> addAndGetHistory() {
+        historyManager.add(next());
+        return historyManager.getHistory();
+    }
+
+    @Benchmark
+    public List<Task> getRecentHistory() {
+        return historyManager.getRecentHistory(RECENT);
+    }
+}
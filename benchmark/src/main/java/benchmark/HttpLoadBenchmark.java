@@ -0,0 +1,152 @@
+package benchmark;
+
+import http.HttpTaskServer;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import service.Managers;
+import service.TaskManager;
+import util.IntList;
+import util.Threads;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Load test of HttpTaskServer: many keep-alive connections, each sending GET requests one after another
+ * as fast as the server answers. Reports p50 / p99 / max latency and requests per second.
+ * Requests are written by hand over plain sockets, so every client connection really is one TCP connection.
+ * Usage: HttpLoadBenchmark [connections] [seconds]
+ */
+public class HttpLoadBenchmark {
+
+    private static final int TASKS = 1_000;
+    private static final int EPICS = 100;
+    private static final int SUBTASKS_PER_EPIC = 10;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        TaskManager manager = Managers.getConcurrent();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            paths.add("/tasks/" + manager.createTask(new Task("Task " + i, "Description")).getId());
+        }
+        for (int i = 0; i < EPICS; i++) {
+            Epic epic = manager.createEpic(new Epic("Epic " + i, "Description"));
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+                paths.add("/subtasks/" + subtask.getId());
+            }
+            paths.add("/epics/" + epic.getId() + "/subtasks");
+        }
+
+        HttpTaskServer server = new HttpTaskServer(manager, 0, connections);
+        server.start();
+        System.out.printf("%d connections for %d s, %s client threads%n",
+                connections, seconds, Threads.hasVirtualThreads() ? "virtual" : "platform");
+
+        ExecutorService clients = Threads.newPerTaskExecutor("client-");
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch go = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        List<Future<IntList>> results = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            int seed = c;
+            results.add(clients.submit(() -> run(server.getPort(), paths, seed, connected, go, deadline)));
+        }
+        connected.await();
+        long start = System.nanoTime();
+        // Written before the latch opens, so every client sees it
+        deadline[0] = start + seconds * 1_000_000_000L;
+        go.countDown();
+
+        IntList all = new IntList();
+        for (Future<IntList> result : results) {
+            IntList latencies = result.get();
+            for (int i = 0; i < latencies.size(); i++) {
+                all.add(latencies.get(i));
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+        server.stop(0);
+
+        int[] micros = all.toArray();
+        Arrays.sort(micros);
+        System.out.printf("requests %d, %.0f req/s%n", micros.length, micros.length / elapsedSeconds);
+        System.out.printf("p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(micros, 0.50) / 1000.0, percentile(micros, 0.99) / 1000.0,
+                micros.length == 0 ? 0 : micros[micros.length - 1] / 1000.0);
+    }
+
+    // Returns latencies in microseconds of requests sent before the deadline
+    private static IntList run(int port, List<String> paths, int seed,
+                               CountDownLatch connected, CountDownLatch go, long[] deadline)
+            throws IOException, InterruptedException {
+        IntList latencies = new IntList();
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            connected.countDown();
+            go.await();
+
+            int next = seed;
+            while (true) {
+                long sent = System.nanoTime();
+                if (sent >= deadline[0]) {
+                    return latencies;
+                }
+                String path = paths.get(next++ % paths.size());
+                out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                readResponse(in);
+                latencies.add((int) ((System.nanoTime() - sent) / 1000));
+            }
+        }
+    }
+
+    private static void readResponse(InputStream in) throws IOException {
+        int contentLength = 0;
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed by server");
+            }
+            if (b != '\n') {
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+                continue;
+            }
+            if (line.length() == 0) {
+                break;
+            }
+            String header = line.toString();
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                contentLength = Integer.parseInt(header.substring(15).trim());
+            }
+            line.setLength(0);
+        }
+        in.skipNBytes(contentLength);
+    }
+
+    private static int percentile(int[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, (long) (sorted.length * percentile))];
+    }
+}
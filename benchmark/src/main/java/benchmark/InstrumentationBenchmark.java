@@ -0,0 +1,77 @@
+package benchmark;
+
+import metrics.MetricsRegistry;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InMemoryHistoryManager;
+import service.HistoryManager;
+import service.Managers;
+import service.TaskManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metrics decorators: the same calls on a plain and on an instrumented manager.
+ * The difference between the two is what InstrumentedTaskManager adds per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    private static final int TASKS = 1000;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private TaskManager manager;
+    private HistoryManager historyManager;
+    private int[] taskIds;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        MetricsRegistry registry = new MetricsRegistry();
+        manager = instrumented ? Managers.getInstrumented(registry) : Managers.getDefault();
+        historyManager = instrumented
+                ? Managers.instrument(new InMemoryHistoryManager(), registry)
+                : new InMemoryHistoryManager();
+        taskIds = new int[TASKS];
+        tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = manager.createTask(new Task("Task " + i, "Description")).freeze();
+            taskIds[i] = tasks[i].getId();
+        }
+    }
+
+    private int next() {
+        cursor = cursor + 1 == TASKS ? 0 : cursor + 1;
+        return cursor;
+    }
+
+    @Benchmark
+    public Task getTask() {
+        // With instrumented = true both the manager and its history are measured
+        return manager.getTask(taskIds[next()]);
+    }
+
+    @Benchmark
+    public void historyAdd() {
+        historyManager.add(tasks[next()]);
+    }
+}
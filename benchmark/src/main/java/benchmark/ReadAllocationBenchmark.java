@@ -0,0 +1,64 @@
+package benchmark;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import service.Managers;
+import service.TaskManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * Bytes allocated per read operation of the default TaskManager, measured with the per-thread
+ * allocation counter of HotSpot (com.sun.management.ThreadMXBean).
+ * Usage: ReadAllocationBenchmark [operations]
+ */
+public class ReadAllocationBenchmark {
+
+    private static final int TASKS = 1_000;
+    private static final int SUBTASKS_PER_EPIC = 10;
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        TaskManager manager = Managers.getDefault();
+        int[] taskIds = new int[TASKS];
+        int[] epicIds = new int[TASKS / SUBTASKS_PER_EPIC];
+        int[] subtaskIds = new int[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            taskIds[i] = manager.createTask(new Task("Task " + i, "Description")).getId();
+        }
+        for (int i = 0; i < epicIds.length; i++) {
+            epicIds[i] = manager.createEpic(new Epic("Epic " + i, "Description")).getId();
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epicIds[i]));
+                subtaskIds[i * SUBTASKS_PER_EPIC + j] = subtask.getId();
+            }
+        }
+
+        report("getTask", operations, i -> manager.getTask(taskIds[i % taskIds.length]));
+        report("getSubtask", operations, i -> manager.getSubtask(subtaskIds[i % subtaskIds.length]));
+        report("getEpic", operations, i -> manager.getEpic(epicIds[i % epicIds.length]));
+        report("getEpicSubtasks", operations, i -> manager.getEpicSubtasks(epicIds[i % epicIds.length]));
+        report("getAllTasks (" + TASKS + ")", operations / 100, i -> manager.getAllTasks());
+    }
+
+    private static void report(String name, int operations, IntConsumer operation) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up so the measured loop runs compiled code
+        for (int i = 0; i < operations; i++) {
+            operation.accept(i);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < operations; i++) {
+            operation.accept(i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        System.out.printf("%-24s %10.1f bytes/op%n", name, (double) allocated / operations);
+    }
+}
@@ -0,0 +1,70 @@
+package benchmark;
+
+import model.Subtask;
+import util.IntObjectMap;
+import util.IntOrderedSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap bytes per stored subtask for the repository storage: boxed HashMaps (before) against
+ * IntObjectMap + IntOrderedSet (after). The subtask objects themselves are shared by both layouts
+ * and are allocated before measuring, so only the storage overhead is compared.
+ * Usage: RepositoryFootprintBenchmark [entities]
+ */
+public class RepositoryFootprintBenchmark {
+
+    private static final int SUBTASKS_PER_EPIC = 10;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Subtask[] subtasks = new Subtask[count];
+        for (int i = 0; i < count; i++) {
+            subtasks[i] = new Subtask("Subtask", "Description", i / SUBTASKS_PER_EPIC);
+            subtasks[i].setId(i + 1_000_000);
+        }
+
+        long before = usedHeap();
+        Map<Integer, Subtask> boxed = new HashMap<>();
+        Map<Integer, List<Integer>> boxedByEpic = new HashMap<>();
+        for (Subtask subtask : subtasks) {
+            boxed.put(subtask.getId(), subtask);
+            boxedByEpic.computeIfAbsent(subtask.getEpicId(), k -> new ArrayList<>()).add(subtask.getId());
+        }
+        long boxedBytes = usedHeap() - before;
+
+        before = usedHeap();
+        IntObjectMap<Subtask> primitive = new IntObjectMap<>();
+        IntObjectMap<IntOrderedSet> primitiveByEpic = new IntObjectMap<>();
+        for (Subtask subtask : subtasks) {
+            primitive.put(subtask.getId(), subtask);
+            IntOrderedSet ids = primitiveByEpic.get(subtask.getEpicId());
+            if (ids == null) {
+                ids = new IntOrderedSet();
+                primitiveByEpic.put(subtask.getEpicId(), ids);
+            }
+            ids.add(subtask.getId());
+        }
+        long primitiveBytes = usedHeap() - before;
+
+        System.out.printf("entities: %d%n", count);
+        System.out.printf("HashMap<Integer, ...> + List<Integer>: %6.1f bytes/entity%n", (double) boxedBytes / count);
+        System.out.printf("IntObjectMap + IntOrderedSet:         %6.1f bytes/entity%n", (double) primitiveBytes / count);
+
+        // Keep everything reachable until both measurements are done
+        if (boxed.size() + boxedByEpic.size() + primitive.size() + primitiveByEpic.size() == 0) {
+            System.out.println(subtasks.length);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
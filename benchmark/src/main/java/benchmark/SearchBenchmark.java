@@ -0,0 +1,62 @@
+package benchmark;
+
+import model.Task;
+import service.Managers;
+import service.TaskManager;
+
+import java.util.Random;
+
+/**
+ * Full-text search latency of the default TaskManager over generated tasks.
+ * Titles and descriptions are built from a vocabulary with a skewed (Zipf-like) word distribution,
+ * so queries hit both very common and rare words.
+ * Usage: SearchBenchmark [documents]
+ */
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+    private static final int WORDS_PER_DOCUMENT = 12;
+    private static final int QUERIES = 200;
+
+    public static void main(String[] args) {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(1);
+        TaskManager manager = Managers.getDefault();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            manager.createTask(new Task(text(random, 4), text(random, WORDS_PER_DOCUMENT - 4)));
+        }
+        System.out.printf("indexed %d documents in %d ms%n", documents, (System.nanoTime() - start) / 1_000_000);
+
+        run(manager, "common word", "w0");
+        run(manager, "two common words", "w0 w1");
+        run(manager, "medium word", "w100");
+        run(manager, "rare word", "w15000");
+        run(manager, "common and rare", "w0 w15000");
+    }
+
+    private static void run(TaskManager manager, String name, String query) {
+        // Warm up
+        for (int i = 0; i < QUERIES / 4; i++) {
+            manager.search(query, 0, 20);
+        }
+        long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            found = manager.search(query, (i % 5) * 20, 20).size();
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / QUERIES;
+        System.out.printf("%-18s %8.3f ms/query (page size %d)%n", name, millis, found);
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            // Skewed: small word numbers are much more frequent
+            int word = (int) Math.floor(Math.pow(VOCABULARY, random.nextDouble())) - 1;
+            text.append('w').append(word).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import service.BoardSnapshot;
+import service.ConcurrentTaskManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write latency of updateSubtask while another thread keeps reading the whole board:
+ * with no reader, with a reader that stops writes for a consistent view (one lock around the report)
+ * and with a reader on snapshots.
+ * Usage: SnapshotReadBenchmark [seconds]
+ */
+public class SnapshotReadBenchmark {
+
+    private static final int EPICS = 512;
+    private static final int SUBTASKS_PER_EPIC = 64;
+
+    private enum Reader { NONE, LOCKED, SNAPSHOT }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        System.out.printf("%-10s %10s %12s %12s %12s %10s%n", "reader", "writes/s", "p50 ns", "p99 ns", "max ns",
+                "reports");
+        for (Reader reader : Reader.values()) {
+            run(reader, seconds);
+        }
+    }
+
+    private static void run(Reader readerMode, int seconds) throws InterruptedException {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        List<Integer> epicIds = new ArrayList<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int e = 0; e < EPICS; e++) {
+            Epic epic = manager.createEpic(new Epic("Epic " + e, "Description"));
+            epicIds.add(epic.getId());
+            for (int s = 0; s < SUBTASKS_PER_EPIC; s++) {
+                subtasks.add(manager.createSubtask(new Subtask("Subtask", "Description", epic.getId())));
+            }
+        }
+
+        Object reportLock = new Object();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long[] reports = new long[1];
+        Thread reader = new Thread(() -> {
+            while (System.nanoTime() < deadline) {
+                if (readerMode == Reader.LOCKED) {
+                    synchronized (reportLock) {
+                        report(manager.getAllEpics().size() + manager.getAllSubtasks().size());
+                    }
+                } else {
+                    try (BoardSnapshot snapshot = manager.openSnapshot()) {
+                        report(snapshot.getAllEpics().size() + snapshot.getAllSubtasks().size());
+                    }
+                }
+                reports[0]++;
+            }
+        });
+        if (readerMode != Reader.NONE) {
+            reader.start();
+        }
+
+        long[] latencies = new long[1 << 20];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            int index = random.nextInt(subtasks.size());
+            Subtask subtask = subtasks.get(index).copy();
+            subtask.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+            if (random.nextInt(10) == 0) {
+                subtask.setEpicId(epicIds.get(random.nextInt(epicIds.size())));
+            }
+            long before = System.nanoTime();
+            if (readerMode == Reader.LOCKED) {
+                synchronized (reportLock) {
+                    manager.updateSubtask(subtask);
+                }
+            } else {
+                manager.updateSubtask(subtask);
+            }
+            long latency = System.nanoTime() - before;
+            subtasks.set(index, subtask);
+            if (count < latencies.length) {
+                latencies[count++] = latency;
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        if (readerMode != Reader.NONE) {
+            reader.join();
+        }
+
+        Arrays.sort(latencies, 0, count);
+        System.out.printf("%-10s %10.0f %12d %12d %12d %10d%n", readerMode, count / elapsed,
+                latencies[count / 2], latencies[(int) (count * 0.99)], latencies[count - 1], reports[0]);
+    }
+
+    private static volatile int sink;
+
+    // Stands in for the work a report does with the data
+    private static void report(int size) {
+        sink = size;
+    }
+}
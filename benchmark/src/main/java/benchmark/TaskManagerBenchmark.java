@@ -0,0 +1,128 @@
+package benchmark;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import service.Managers;
+import service.TaskManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the default TaskManager at different data sizes.
+ * subtasks is the number of stored subtasks, spread over epics of subtasksPerEpic each.
+ * The manager is rebuilt before every iteration, so benchmarks that add data don't grow it without bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+
+    @Param({"1000", "100000"})
+    public int subtasks;
+
+    @Param({"10"})
+    public int subtasksPerEpic;
+
+    private TaskManager manager;
+    private int[] epicIds;
+    private int[] subtaskIds;
+    private Subtask[] subtaskCopies;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        manager = Managers.getDefault();
+        epicIds = new int[Math.max(1, subtasks / subtasksPerEpic)];
+        subtaskIds = new int[subtasks];
+        subtaskCopies = new Subtask[subtasks];
+        for (int i = 0; i < epicIds.length; i++) {
+            epicIds[i] = manager.createEpic(new Epic("Epic " + i, "Description")).getId();
+        }
+        for (int i = 0; i < subtasks; i++) {
+            Subtask subtask = manager.createSubtask(new Subtask("Subtask " + i, "Description",
+                    epicIds[i % epicIds.length]));
+            subtaskIds[i] = subtask.getId();
+            subtaskCopies[i] = subtask;
+        }
+        cursor = 0;
+    }
+
+    private int next(int bound) {
+        cursor = cursor + 1 == bound ? 0 : cursor + 1;
+        return cursor;
+    }
+
+    @Benchmark
+    public Subtask createSubtask() {
+        return manager.createSubtask(new Subtask("New subtask", "Description", epicIds[next(epicIds.length)]));
+    }
+
+    @Benchmark
+    public void updateSubtaskSameEpic() {
+        Subtask subtask = subtaskCopies[next(subtaskCopies.length)];
+        subtask.setStatus(subtask.getStatus() == Status.DONE ? Status.IN_PROGRESS : Status.DONE);
+        manager.updateSubtask(subtask);
+    }
+
+    @Benchmark
+    public void updateSubtaskCrossEpic() {
+        Subtask subtask = subtaskCopies[next(subtaskCopies.length)];
+        int epicIndex = (subtask.getEpicId() - epicIds[0] + 1) % epicIds.length;
+        subtask.setEpicId(epicIds[epicIndex]);
+        manager.updateSubtask(subtask);
+    }
+
+    @Benchmark
+    public Epic getEpic() {
+        return manager.getEpic(epicIds[next(epicIds.length)]);
+    }
+
+    @Benchmark
+    public List<Subtask> getAllSubtasks() {
+        return manager.getAllSubtasks();
+    }
+
+    /**
+     * Deletes an epic with subtasksPerEpic subtasks. The epic is created before each call and the creation
+     * is not measured. Level.Invocation setup is fine here because one call takes microseconds.
+     */
+    @State(Scope.Thread)
+    public static class CascadeState {
+        // JMH can run this setup before the iteration setup replaces the manager, so keep the one used here
+        private TaskManager manager;
+        private int epicId;
+
+        @Setup(Level.Invocation)
+        public void createEpic(TaskManagerBenchmark benchmark) {
+            manager = benchmark.manager;
+            epicId = manager.createEpic(new Epic("Doomed", "Description")).getId();
+            for (int i = 0; i < benchmark.subtasksPerEpic; i++) {
+                manager.createSubtask(new Subtask("Doomed subtask", "Description", epicId));
+            }
+        }
+    }
+
+    @Benchmark
+    public void deleteEpicCascade(CascadeState state, Blackhole blackhole) {
+        state.manager.deleteEpic(state.epicId);
+        blackhole.consume(state.epicId);
+    }
+}
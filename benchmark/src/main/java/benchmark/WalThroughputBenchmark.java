@@ -0,0 +1,85 @@
+package benchmark;
+
+import model.Task;
+import persistence.SyncPolicy;
+import service.Managers;
+import service.WalTaskManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Measures createTask writes/sec of WalTaskManager for every sync policy.
+ * Usage: WalThroughputBenchmark [threads] [seconds]
+ */
+public class WalThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<SyncPolicy> policies = List.of(
+                SyncPolicy.everyWrite(),
+                SyncPolicy.batched(64),
+                SyncPolicy.periodic(10));
+
+        System.out.printf("%-16s %8s %14s%n", "policy", "threads", "writes/sec");
+        for (SyncPolicy policy : policies) {
+            for (int threadCount : new int[]{1, threads}) {
+                double writesPerSecond = run(policy, threadCount, seconds);
+                System.out.printf("%-16s %8d %14.0f%n", policy, threadCount, writesPerSecond);
+            }
+        }
+    }
+
+    private static double run(SyncPolicy policy, int threadCount, int seconds) throws Exception {
+        Path dir = Files.createTempDirectory("wal-benchmark");
+        Path dataDir = dir.resolve("data");
+        LongAdder writes = new LongAdder();
+
+        long start;
+        long elapsed;
+        try (WalTaskManager manager = Managers.getDurable(dataDir, policy)) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                Thread worker = new Thread(() -> {
+                    Task task = new Task("Benchmark task", "Benchmark description");
+                    while (System.nanoTime() < deadline) {
+                        manager.createTask(task);
+                        writes.increment();
+                    }
+                });
+                workers.add(worker);
+            }
+
+            start = System.nanoTime();
+            for (Thread worker : workers) {
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            manager.flush();
+            elapsed = System.nanoTime() - start;
+        } finally {
+            deleteRecursively(dir);
+        }
+        return writes.sum() * 1_000_000_000.0 / elapsed;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
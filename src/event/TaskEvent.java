@@ -0,0 +1,59 @@
+package event;
+
+import model.Status;
+import model.Task;
+
+/**
+ * One slot of the ring buffer. Slots are allocated once and overwritten by later events,
+ * so a listener must copy what it needs before onEvent returns. The task itself is a frozen
+ * snapshot and can be kept.
+ */
+public final class TaskEvent {
+
+    private TaskEventType type;
+    private int id;
+    private Task task;
+    private Status oldStatus;
+    private Status newStatus;
+
+    void set(TaskEventType type, int id, Task task, Status oldStatus, Status newStatus) {
+        this.type = type;
+        this.id = id;
+        this.task = task;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+    }
+
+    public TaskEventType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * State after the change, null for deletions.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    public Status getOldStatus() {
+        return oldStatus;
+    }
+
+    public Status getNewStatus() {
+        return newStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "type=" + type +
+                ", id=" + id +
+                ", oldStatus=" + oldStatus +
+                ", newStatus=" + newStatus +
+                '}';
+    }
+}
@@ -0,0 +1,224 @@
+package event;
+
+import model.Status;
+import model.Task;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers task manager changes to subscribers through a ring buffer of preallocated events.
+ *
+ * Publishers claim a sequence number, fill the event slot in place and mark it published,
+ * so publishing allocates nothing. Every subscriber has its own thread and its own sequence
+ * and gets all events that are available at once as one batch (up to maxBatchSize).
+ * A publisher can't overwrite a slot that some subscriber hasn't read yet: when the slowest
+ * subscriber is a whole buffer behind, publishers wait for it with the wait strategy.
+ * Without subscribers publishing does nothing.
+ */
+public class TaskEventBus implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final TaskEvent[] events;
+    private final int mask;
+    private final int indexShift;
+    // Lap number of the event published into each slot, so a subscriber can tell fresh events from old ones
+    private final AtomicIntegerArray publishedLaps;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final WaitStrategy waitStrategy;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    // Replaced as a whole on subscribe / unsubscribe, publishers only read it
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    public TaskEventBus() {
+        this(DEFAULT_BUFFER_SIZE, WaitStrategy.blocking());
+    }
+
+    public TaskEventBus(int bufferSize, WaitStrategy waitStrategy) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two: " + bufferSize);
+        }
+        this.events = new TaskEvent[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            events[i] = new TaskEvent();
+        }
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.publishedLaps = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            publishedLaps.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    public void publish(TaskEventType type, int id, Task task) {
+        publish(type, id, task, null, null);
+    }
+
+    public void publish(TaskEventType type, int id, Task task, Status oldStatus, Status newStatus) {
+        if (subscriptions.length == 0) {
+            return;
+        }
+
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - events.length;
+        int attempt = 0;
+        // Backpressure: wait until every subscriber has read the event that was in this slot
+        while (wrapPoint > slowestSequence()) {
+            waitStrategy.idle(attempt++);
+        }
+
+        int index = (int) sequence & mask;
+        events[index].set(type, id, task, oldStatus, newStatus);
+        publishedLaps.lazySet(index, (int) (sequence >>> indexShift));
+        waitStrategy.signalAll();
+    }
+
+    public Subscription subscribe(TaskEventListener listener) {
+        return subscribe(listener, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Starts delivering events published from now on to the listener on its own daemon thread.
+     */
+    public synchronized Subscription subscribe(TaskEventListener listener, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        Subscription subscription = new Subscription(listener, maxBatchSize, claimed.get());
+
+        Subscription[] current = subscriptions;
+        Subscription[] updated = new Subscription[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Delivers what is already published and stops all subscriptions.
+     */
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        int count = 0;
+        Subscription[] updated = new Subscription[current.length];
+        for (Subscription other : current) {
+            if (other != subscription) {
+                updated[count++] = other;
+            }
+        }
+        Subscription[] trimmed = new Subscription[count];
+        System.arraycopy(updated, 0, trimmed, 0, count);
+        subscriptions = trimmed;
+        // Publishers could be waiting for this subscriber
+        waitStrategy.signalAll();
+    }
+
+    private long slowestSequence() {
+        long slowest = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.sequence.get());
+        }
+        return slowest;
+    }
+
+    private boolean isPublished(long sequence) {
+        return publishedLaps.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    public class Subscription implements AutoCloseable {
+
+        private final TaskEventListener listener;
+        private final int maxBatchSize;
+        // Last sequence this subscriber has processed
+        private final AtomicLong sequence;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Subscription(TaskEventListener listener, int maxBatchSize, long startSequence) {
+            this.listener = listener;
+            this.maxBatchSize = maxBatchSize;
+            this.sequence = new AtomicLong(startSequence);
+            this.thread = new Thread(this::run, "task-events-" + threadCounter.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        public long getSequence() {
+            return sequence.get();
+        }
+
+        /**
+         * Delivers what is already published, then stops the subscription thread and waits for it.
+         */
+        @Override
+        public void close() {
+            running = false;
+            waitStrategy.signalAll();
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            unsubscribe(this);
+        }
+
+        private void run() {
+            try {
+                deliver();
+            } finally {
+                // A listener that threw an Error killed this thread, publishers must not wait for it forever
+                unsubscribe(this);
+            }
+        }
+
+        private void deliver() {
+            long next = sequence.get() + 1;
+            int attempt = 0;
+            while (true) {
+                long available = next - 1;
+                long batchEnd = next + maxBatchSize - 1;
+                while (available < batchEnd && isPublished(available + 1)) {
+                    available++;
+                }
+
+                if (available < next) {
+                    // Claimed events are published right after claiming, so stopping here loses nothing
+                    // that was published before close()
+                    if (!running) {
+                        return;
+                    }
+                    waitStrategy.idle(attempt++);
+                    continue;
+                }
+
+                attempt = 0;
+                for (long s = next; s <= available; s++) {
+                    try {
+                        listener.onEvent(events[(int) s & mask], s, s == available);
+                    } catch (RuntimeException e) {
+                        // One broken event must not stop delivery of the others
+                        Thread current = Thread.currentThread();
+                        current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                    }
+                }
+                sequence.lazySet(available);
+                waitStrategy.signalAll();
+                next = available + 1;
+            }
+        }
+    }
+}
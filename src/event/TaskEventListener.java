@@ -0,0 +1,10 @@
+package event;
+
+public interface TaskEventListener {
+
+    /**
+     * Called on the subscription thread, in publishing order.
+     * endOfBatch is true for the last event that was available at once, a good moment to flush.
+     */
+    void onEvent(TaskEvent event, long sequence, boolean endOfBatch);
+}
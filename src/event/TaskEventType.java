@@ -0,0 +1,15 @@
+package event;
+
+public enum TaskEventType {
+    TASK_CREATED,
+    TASK_UPDATED,
+    TASK_DELETED,
+    SUBTASK_CREATED,
+    SUBTASK_UPDATED,
+    SUBTASK_DELETED,
+    EPIC_CREATED,
+    EPIC_UPDATED,
+    EPIC_DELETED,
+    // Derived from subtask statuses, oldStatus and newStatus are set
+    EPIC_STATUS_CHANGED
+}
@@ -0,0 +1,113 @@
+package event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * How a thread waits in the event bus: subscribers waiting for new events
+ * and publishers waiting for a slow subscriber to free a slot.
+ * The caller re-checks its condition after every idle() call, so waiting never allocates.
+ */
+public abstract class WaitStrategy {
+
+    /**
+     * Waits a little. attempt counts calls since the condition was last true, starting at 0.
+     */
+    public abstract void idle(int attempt);
+
+    /**
+     * Called after events were published or consumed.
+     */
+    public void signalAll() {
+    }
+
+    /**
+     * Lowest latency, burns a core per waiting thread.
+     */
+    public static WaitStrategy busySpin() {
+        return new WaitStrategy() {
+            @Override
+            public void idle(int attempt) {
+                Thread.onSpinWait();
+            }
+        };
+    }
+
+    /**
+     * Spins a bit, then gives the core to other threads.
+     */
+    public static WaitStrategy yielding() {
+        return new WaitStrategy() {
+            @Override
+            public void idle(int attempt) {
+                if (attempt < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        };
+    }
+
+    /**
+     * Spins, yields, then sleeps for short periods. Low CPU use when idle, latency up to sleepNanos.
+     */
+    public static WaitStrategy sleeping(long sleepNanos) {
+        return new WaitStrategy() {
+            @Override
+            public void idle(int attempt) {
+                if (attempt < 100) {
+                    Thread.onSpinWait();
+                } else if (attempt < 200) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(sleepNanos);
+                }
+            }
+        };
+    }
+
+    /**
+     * Waiting threads sleep on a condition and are woken up by signalAll().
+     * The wait is limited to a millisecond, so a signal sent just before waiting is not lost for long.
+     */
+    public static WaitStrategy blocking() {
+        return new WaitStrategy() {
+            private final ReentrantLock lock = new ReentrantLock();
+            private final Condition changed = lock.newCondition();
+            private volatile int waiting;
+
+            @Override
+            public void idle(int attempt) {
+                if (attempt < 100) {
+                    Thread.onSpinWait();
+                    return;
+                }
+                lock.lock();
+                try {
+                    waiting++;
+                    changed.await(1, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    waiting--;
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public void signalAll() {
+                if (waiting > 0) {
+                    lock.lock();
+                    try {
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        };
+    }
+}
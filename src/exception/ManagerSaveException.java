@@ -0,0 +1,17 @@
+package exception;
+
+/**
+ * Thrown when the manager cannot write or read its data on disk.
+ * It is unchecked for the same reasons as TaskNotFoundException:
+ * callers of TaskManager can't do anything sensible with an IO error in the middle of an operation.
+ */
+public class ManagerSaveException extends RuntimeException {
+
+    public ManagerSaveException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ManagerSaveException(String message) {
+        super(message);
+    }
+}
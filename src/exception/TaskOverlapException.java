@@ -0,0 +1,12 @@
+package exception;
+
+/**
+ * Thrown when a task or subtask would run at the same time as another scheduled one.
+ * The change is rejected as a whole, the manager state stays as it was.
+ */
+public class TaskOverlapException extends RuntimeException {
+
+    public TaskOverlapException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,236 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import exception.TaskNotFoundException;
+import exception.TaskOverlapException;
+import json.JsonReader;
+import json.JsonWriter;
+import model.Task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Common part of all API handlers: error mapping, path parsing and writing responses.
+ * The request body is always read to the end and the exchange closed, otherwise the server
+ * can't reuse the connection for the next request (keep-alive).
+ */
+abstract class BaseHttpHandler implements HttpHandler {
+
+    // Smaller bodies fit into one packet anyway, compressing them only costs CPU
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    // Requests don't stay on one thread long enough for thread locals, so writers are pooled
+    private static final Queue<JsonWriter> WRITERS = new ConcurrentLinkedQueue<>();
+
+    protected interface JsonBody {
+        void writeTo(JsonWriter json) throws IOException;
+    }
+
+    protected interface ElementReader<T> {
+        T read(JsonReader json) throws IOException;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                handleRequest(exchange, pathParts(exchange));
+            } catch (TaskNotFoundException e) {
+                sendText(exchange, 404, e.getMessage());
+            } catch (TaskOverlapException e) {
+                sendText(exchange, 406, e.getMessage());
+            } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                sendText(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                // A bug, the client only gets a 500, so make sure it is reported somewhere
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                sendText(exchange, 500, "Internal server error");
+            }
+        }
+    }
+
+    /**
+     * path holds the non-empty segments of the request path, e.g. ["epics", "3", "subtasks"].
+     */
+    protected abstract void handleRequest(HttpExchange exchange, String[] path) throws IOException;
+
+    protected static JsonReader readJson(HttpExchange exchange) {
+        // Not closed here, responses drain whatever is left before the exchange is closed
+        return new JsonReader(exchange.getRequestBody(), READ_BUFFER_SIZE);
+    }
+
+    protected static int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad id: " + value);
+        }
+    }
+
+    /**
+     * Streams the body to the client. A body that fits into the writer buffer is sent with Content-Length,
+     * a larger one is sent chunked as soon as the buffer fills up, so it is never held in memory as a whole.
+     * If the body fails before anything was sent, the error response can still replace it.
+     */
+    protected static void sendJson(HttpExchange exchange, int code, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+
+        JsonWriter json = WRITERS.poll();
+        if (json == null) {
+            json = new JsonWriter();
+        }
+        ResponseStream out = new ResponseStream(exchange, code);
+        try {
+            json.reset(out);
+            body.writeTo(json);
+            exchange.getRequestBody().readAllBytes();
+            if (!out.started) {
+                out.startFixed(json.pending());
+            }
+            json.flush();
+            out.close();
+        } finally {
+            json.reset((OutputStream) null);
+            WRITERS.offer(json);
+        }
+    }
+
+    /**
+     * Bulk creation from a JSON array in the request body. The whole array is parsed first and created
+     * in one batch call, so a malformed element or a rejected task is an error response and nothing is created.
+     * Only the response is streamed: once it has started nothing can fail anymore.
+     */
+    protected static <T extends Task> void sendCreatedAll(HttpExchange exchange, JsonReader body,
+                                                          ElementReader<T> reader,
+                                                          Function<List<T>, List<? extends Task>> createAll)
+            throws IOException {
+        List<T> parsed = new ArrayList<>();
+        body.beginArray();
+        while (body.hasNext()) {
+            parsed.add(reader.read(body));
+        }
+        body.endDocument();
+
+        List<? extends Task> created = createAll.apply(parsed);
+        sendJson(exchange, 201, json -> {
+            json.beginArray();
+            for (Task task : created) {
+                json.writeTask(task);
+            }
+            json.endArray();
+        });
+    }
+
+    protected static void sendText(HttpExchange exchange, int code, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        byte[] body = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+        exchange.getRequestBody().readAllBytes();
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    protected static void sendNoContent(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    protected static void sendNotFound(HttpExchange exchange) throws IOException {
+        sendText(exchange, 404, "Not found");
+    }
+
+    protected static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        sendText(exchange, 405, "Method not allowed");
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        List<String> values = exchange.getRequestHeaders().get("Accept-Encoding");
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            if (value.contains("gzip")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] pathParts(HttpExchange exchange) {
+        return Arrays.stream(exchange.getRequestURI().getPath().split("/"))
+                .filter(part -> !part.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Sends the response headers when the first bytes are written: chunked (and gzipped if the client accepts it),
+     * unless startFixed() was called before with the final length.
+     */
+    private static class ResponseStream extends OutputStream {
+        private final HttpExchange exchange;
+        private final int code;
+        private OutputStream target;
+        boolean started;
+
+        ResponseStream(HttpExchange exchange, int code) {
+            this.exchange = exchange;
+            this.code = code;
+        }
+
+        void startFixed(int length) throws IOException {
+            if (length >= GZIP_MIN_BYTES && acceptsGzip(exchange)) {
+                startChunked();
+                return;
+            }
+            started = true;
+            exchange.sendResponseHeaders(code, length == 0 ? -1 : length);
+            target = exchange.getResponseBody();
+        }
+
+        private void startChunked() throws IOException {
+            started = true;
+            if (acceptsGzip(exchange)) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+                exchange.sendResponseHeaders(code, 0);
+                target = new GZIPOutputStream(exchange.getResponseBody(), 8192);
+            } else {
+                exchange.sendResponseHeaders(code, 0);
+                target = exchange.getResponseBody();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (!started) {
+                startChunked();
+            }
+            target.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (target != null) {
+                target.close();
+            }
+        }
+    }
+}
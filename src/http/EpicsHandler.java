@@ -0,0 +1,77 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import json.JsonReader;
+import model.Epic;
+import model.Subtask;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * GET /epics, GET /epics/{id}, GET /epics/{id}/subtasks, POST /epics (create without id, update with id),
+ * DELETE /epics, DELETE /epics/{id}
+ */
+class EpicsHandler extends BaseHttpHandler {
+
+    private final TaskManager taskManager;
+
+    EpicsHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, 200, json -> json.writeTasks(taskManager.streamEpics().iterator()));
+                case "POST" -> {
+                    JsonReader body = readJson(exchange);
+                    Epic epic = body.readEpic();
+                    body.endDocument();
+                    if (epic.getId() == 0) {
+                        Epic created = taskManager.createEpic(epic);
+                        sendJson(exchange, 201, json -> json.writeTask(created));
+                    } else {
+                        // Only title and description are taken from the client, subtasks and status stay as stored
+                        taskManager.updateEpicDetails(epic.getId(), epic.getTitle(), epic.getDescription());
+                        sendNoContent(exchange);
+                    }
+                }
+                case "DELETE" -> {
+                    taskManager.deleteAllEpics();
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 2) {
+            int id = parseId(path[1]);
+            switch (method) {
+                case "GET" -> {
+                    Epic epic = taskManager.getEpic(id);
+                    if (epic == null) {
+                        sendNotFound(exchange);
+                    } else {
+                        sendJson(exchange, 200, json -> json.writeTask(epic));
+                    }
+                }
+                case "DELETE" -> {
+                    taskManager.deleteEpic(id);
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 3 && path[2].equals("subtasks")) {
+            if (method.equals("GET")) {
+                List<Subtask> subtasks = taskManager.getEpicSubtasks(parseId(path[1]));
+                sendJson(exchange, 200, json -> json.writeTasks(subtasks.iterator()));
+            } else {
+                sendMethodNotAllowed(exchange);
+            }
+        } else {
+            sendNotFound(exchange);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.Task;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * GET /history, GET /history?limit=N for the last N entries
+ */
+class HistoryHandler extends BaseHttpHandler {
+
+    private final TaskManager taskManager;
+
+    HistoryHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 1) {
+            sendNotFound(exchange);
+        } else if (exchange.getRequestMethod().equals("GET")) {
+            String limit = queryParameter(exchange, "limit");
+            List<Task> history = limit == null
+                    ? taskManager.getHistory()
+                    : taskManager.getRecentHistory(parseLimit(limit));
+            sendJson(exchange, 200, json -> json.writeTasks(history.iterator()));
+        } else {
+            sendMethodNotAllowed(exchange);
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).equals(name)) {
+                return parameter.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    private static int parseLimit(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad limit: " + value);
+        }
+    }
+}
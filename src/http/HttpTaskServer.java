@@ -0,0 +1,80 @@
+package http;
+
+import com.sun.net.httpserver.HttpServer;
+import metrics.MetricsRegistry;
+import service.Managers;
+import service.TaskManager;
+import util.Threads;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * JSON API over a TaskManager on the JDK built-in HTTP server.
+ *
+ * Every request runs on its own virtual thread (a cached thread pool before Java 21), so a slow client
+ * never holds up the others. Requests run in parallel, so the task manager must be thread-safe.
+ * Connections are kept alive between requests, large responses are gzipped for clients that accept it.
+ */
+public class HttpTaskServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, DEFAULT_PORT, 0);
+    }
+
+    /**
+     * Port 0 picks a free port, see getPort(). Backlog 0 uses the system default.
+     */
+    public HttpTaskServer(TaskManager taskManager, int port, int backlog) throws IOException {
+        this(taskManager, port, backlog, null);
+    }
+
+    /**
+     * With a registry the server also serves GET /metrics.
+     */
+    public HttpTaskServer(TaskManager taskManager, int port, int backlog, MetricsRegistry metrics)
+            throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        this.executor = Threads.newPerTaskExecutor("http-");
+        server.setExecutor(executor);
+        server.createContext("/tasks", new TasksHandler(taskManager));
+        server.createContext("/subtasks", new SubtasksHandler(taskManager));
+        server.createContext("/epics", new EpicsHandler(taskManager));
+        server.createContext("/history", new HistoryHandler(taskManager));
+        server.createContext("/prioritized", new PrioritizedHandler(taskManager));
+        if (metrics != null) {
+            server.createContext("/metrics", new MetricsHandler(metrics));
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Waits up to delaySeconds for running requests to finish.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MetricsRegistry metrics = new MetricsRegistry();
+        HttpTaskServer server = new HttpTaskServer(Managers.instrument(Managers.getConcurrent(), metrics), port, 0,
+                metrics);
+        server.start();
+        System.out.println("Task API is listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,29 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+/**
+ * GET /metrics in the Prometheus text format
+ */
+class MetricsHandler extends BaseHttpHandler {
+
+    private final MetricsRegistry registry;
+
+    MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 1) {
+            sendNotFound(exchange);
+        } else if (exchange.getRequestMethod().equals("GET")) {
+            sendText(exchange, 200, registry.toText());
+        } else {
+            sendMethodNotAllowed(exchange);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import service.TaskManager;
+
+import java.io.IOException;
+
+/**
+ * GET /prioritized
+ */
+class PrioritizedHandler extends BaseHttpHandler {
+
+    private final TaskManager taskManager;
+
+    PrioritizedHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 1) {
+            sendNotFound(exchange);
+        } else if (exchange.getRequestMethod().equals("GET")) {
+            sendJson(exchange, 200, json -> json.writeTasks(taskManager.getPrioritizedTasks().iterator()));
+        } else {
+            sendMethodNotAllowed(exchange);
+        }
+    }
+}
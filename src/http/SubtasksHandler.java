@@ -0,0 +1,72 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import json.JsonReader;
+import model.Subtask;
+import service.TaskManager;
+
+import java.io.IOException;
+
+/**
+ * GET /subtasks, GET /subtasks/{id}, POST /subtasks (create without id, update with id, bulk create with an array),
+ * DELETE /subtasks, DELETE /subtasks/{id}
+ */
+class SubtasksHandler extends BaseHttpHandler {
+
+    private final TaskManager taskManager;
+
+    SubtasksHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, 200,
+                        json -> json.writeTasks(taskManager.streamSubtasks().iterator()));
+                case "POST" -> {
+                    JsonReader body = readJson(exchange);
+                    if (body.peek() == '[') {
+                        sendCreatedAll(exchange, body, JsonReader::readSubtask, taskManager::createSubtasks);
+                        return;
+                    }
+                    Subtask subtask = body.readSubtask();
+                    body.endDocument();
+                    if (subtask.getId() == 0) {
+                        Subtask created = taskManager.createSubtask(subtask);
+                        sendJson(exchange, 201, json -> json.writeTask(created));
+                    } else {
+                        taskManager.updateSubtask(subtask);
+                        sendNoContent(exchange);
+                    }
+                }
+                case "DELETE" -> {
+                    taskManager.deleteAllSubtask();
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 2) {
+            int id = parseId(path[1]);
+            switch (method) {
+                case "GET" -> {
+                    Subtask subtask = taskManager.getSubtask(id);
+                    if (subtask == null) {
+                        sendNotFound(exchange);
+                    } else {
+                        sendJson(exchange, 200, json -> json.writeTask(subtask));
+                    }
+                }
+                case "DELETE" -> {
+                    taskManager.deleteSubtask(id);
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else {
+            sendNotFound(exchange);
+        }
+    }
+}
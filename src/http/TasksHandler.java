@@ -0,0 +1,71 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import json.JsonReader;
+import model.Task;
+import service.TaskManager;
+
+import java.io.IOException;
+
+/**
+ * GET /tasks, GET /tasks/{id}, POST /tasks (create without id, update with id, bulk create with an array),
+ * DELETE /tasks, DELETE /tasks/{id}
+ */
+class TasksHandler extends BaseHttpHandler {
+
+    private final TaskManager taskManager;
+
+    TasksHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, 200, json -> json.writeTasks(taskManager.streamTasks().iterator()));
+                case "POST" -> {
+                    JsonReader body = readJson(exchange);
+                    if (body.peek() == '[') {
+                        sendCreatedAll(exchange, body, JsonReader::readTask, taskManager::createTasks);
+                        return;
+                    }
+                    Task task = body.readTask();
+                    body.endDocument();
+                    if (task.getId() == 0) {
+                        Task created = taskManager.createTask(task);
+                        sendJson(exchange, 201, json -> json.writeTask(created));
+                    } else {
+                        taskManager.updateTask(task);
+                        sendNoContent(exchange);
+                    }
+                }
+                case "DELETE" -> {
+                    taskManager.deleteAllTasks();
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else if (path.length == 2) {
+            int id = parseId(path[1]);
+            switch (method) {
+                case "GET" -> {
+                    Task task = taskManager.getTask(id);
+                    if (task == null) {
+                        sendNotFound(exchange);
+                    } else {
+                        sendJson(exchange, 200, json -> json.writeTask(task));
+                    }
+                }
+                case "DELETE" -> {
+                    taskManager.deleteTask(id);
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange);
+            }
+        } else {
+            sendNotFound(exchange);
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package json;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Pull parser for the JSON written by JsonWriter. Reads the input through a reusable byte buffer
+ * and hands out tasks one at a time, so arrays of any size can be ingested in constant memory.
+ * Field names and statuses are matched on raw bytes, only the title, description and times become Strings.
+ * Unknown fields are skipped. Malformed input throws IllegalArgumentException. Not thread-safe.
+ */
+public class JsonReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private enum Kind { ANY, TASK, SUBTASK, EPIC }
+
+    private static final byte[] ID = bytes("id");
+    private static final byte[] TITLE = bytes("title");
+    private static final byte[] DESCRIPTION = bytes("description");
+    private static final byte[] STATUS = bytes("status");
+    private static final byte[] EPIC_ID = bytes("epicId");
+    private static final byte[] SUBTASK_IDS = bytes("subtaskIds");
+    private static final byte[] START_TIME = bytes("startTime");
+    private static final byte[] DURATION = bytes("duration");
+    private static final byte[] END_TIME = bytes("endTime");
+    private static final byte[] TASKS = bytes("tasks");
+    private static final byte[] EPICS = bytes("epics");
+    private static final byte[] SUBTASKS = bytes("subtasks");
+    private static final byte[][] STATUS_NAMES = new byte[Status.values().length][];
+
+    static {
+        for (Status status : Status.values()) {
+            STATUS_NAMES[status.ordinal()] = bytes(status.name());
+        }
+    }
+
+    private final byte[] buffer;
+    private InputStream in;
+    private int position;
+    private int limit;
+    private long consumed;
+    // Raw bytes of the last field name or status
+    private byte[] name = new byte[32];
+    private int nameLength;
+    private final StringBuilder text = new StringBuilder();
+    private boolean firstInArray;
+
+    public JsonReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonReader(InputStream in, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.buffer = new byte[bufferSize];
+        reset(in);
+    }
+
+    public JsonReader reset(InputStream in) {
+        this.in = in;
+        position = 0;
+        limit = 0;
+        consumed = 0;
+        return this;
+    }
+
+    /**
+     * Next significant character without consuming it, -1 at the end of input.
+     */
+    public int peek() throws IOException {
+        skipWhitespace();
+        return position < limit ? buffer[position] & 0xFF : -1;
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+        firstInArray = true;
+    }
+
+    /**
+     * True if the current array has one more element, false after consuming the closing bracket.
+     */
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == ']') {
+            position++;
+            return false;
+        }
+        if (!firstInArray) {
+            expect(',');
+        }
+        firstInArray = false;
+        return true;
+    }
+
+    /**
+     * Reads an object as Subtask if it has epicId, as Epic if it has subtaskIds, otherwise as Task.
+     */
+    public Task readAny() throws IOException {
+        return readObject(Kind.ANY);
+    }
+
+    public Task readTask() throws IOException {
+        return readObject(Kind.TASK);
+    }
+
+    public Subtask readSubtask() throws IOException {
+        return (Subtask) readObject(Kind.SUBTASK);
+    }
+
+    /**
+     * Reads an epic with the stored subtask ids and status, like it was written.
+     */
+    public Epic readEpic() throws IOException {
+        return (Epic) readObject(Kind.EPIC);
+    }
+
+    /**
+     * Reads a whole array, passing every element to the consumer as soon as it is parsed.
+     */
+    public void readTasks(Consumer<? super Task> consumer) throws IOException {
+        beginArray();
+        while (hasNext()) {
+            consumer.accept(readAny());
+        }
+    }
+
+    /**
+     * Reads a document written by JsonWriter.writeBoard. Arrays can come in any order.
+     */
+    public void readBoard(Consumer<? super Task> tasks, Consumer<? super Epic> epics,
+                          Consumer<? super Subtask> subtasks) throws IOException {
+        expect('{');
+        if (peek() == '}') {
+            position++;
+            return;
+        }
+        while (true) {
+            readName();
+            expect(':');
+            if (nameIs(TASKS)) {
+                beginArray();
+                while (hasNext()) {
+                    tasks.accept(readTask());
+                }
+            } else if (nameIs(EPICS)) {
+                beginArray();
+                while (hasNext()) {
+                    epics.accept(readEpic());
+                }
+            } else if (nameIs(SUBTASKS)) {
+                beginArray();
+                while (hasNext()) {
+                    subtasks.accept(readSubtask());
+                }
+            } else {
+                skipValue();
+            }
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks that nothing but whitespace is left.
+     */
+    public void endDocument() throws IOException {
+        if (peek() != -1) {
+            throw error("Unexpected data after the end of JSON");
+        }
+    }
+
+    private Task readObject(Kind kind) throws IOException {
+        int id = 0;
+        String title = null;
+        String description = null;
+        Status status = null;
+        int epicId = 0;
+        boolean hasEpicId = false;
+        ArrayList<Integer> subtaskIds = null;
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        LocalDateTime endTime = null;
+
+        expect('{');
+        if (peek() == '}') {
+            position++;
+        } else {
+            while (true) {
+                readName();
+                expect(':');
+                if (nameIs(ID)) {
+                    id = readInt();
+                } else if (nameIs(TITLE)) {
+                    title = readNullableString();
+                } else if (nameIs(DESCRIPTION)) {
+                    description = readNullableString();
+                } else if (nameIs(STATUS)) {
+                    status = readStatus();
+                } else if (nameIs(EPIC_ID)) {
+                    epicId = readInt();
+                    hasEpicId = true;
+                } else if (nameIs(SUBTASK_IDS)) {
+                    subtaskIds = readIntArray();
+                } else if (nameIs(START_TIME)) {
+                    startTime = readDateTime();
+                } else if (nameIs(DURATION)) {
+                    duration = readMinutes();
+                } else if (nameIs(END_TIME)) {
+                    endTime = readDateTime();
+                } else {
+                    skipValue();
+                }
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect('}');
+                    break;
+                }
+            }
+        }
+
+        if (kind == Kind.ANY) {
+            kind = hasEpicId ? Kind.SUBTASK : subtaskIds != null ? Kind.EPIC : Kind.TASK;
+        }
+        switch (kind) {
+            case SUBTASK -> {
+                Subtask subtask = new Subtask(title, description, status == null ? Status.NEW : status, epicId,
+                        startTime, duration);
+                subtask.setId(id);
+                return subtask;
+            }
+            case EPIC -> {
+                Epic epic = new Epic(id, title, description, subtaskIds);
+                if (status != null) {
+                    epic.updateStatusFromTaskManager(status);
+                }
+                epic.updateScheduleFromTaskManager(startTime, duration, endTime);
+                return epic;
+            }
+            default -> {
+                Task task = new Task(title, description, status == null ? Status.NEW : status, startTime, duration);
+                task.setId(id);
+                return task;
+            }
+        }
+    }
+
+    private void readName() throws IOException {
+        skipWhitespace();
+        expect('"');
+        nameLength = 0;
+        while (true) {
+            int b = nextByte();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                // Names we know have no escapes, an escaped name is simply never matched
+                nextByte();
+                b = '\\';
+            }
+            if (nameLength == name.length) {
+                name = Arrays.copyOf(name, name.length * 2);
+            }
+            name[nameLength++] = (byte) b;
+        }
+    }
+
+    private boolean nameIs(byte[] expected) {
+        return Arrays.equals(name, 0, nameLength, expected, 0, expected.length);
+    }
+
+    private Status readStatus() throws IOException {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        readName();
+        for (Status status : Status.values()) {
+            if (nameIs(STATUS_NAMES[status.ordinal()])) {
+                return status;
+            }
+        }
+        throw error("Unknown status " + new String(name, 0, nameLength, StandardCharsets.UTF_8));
+    }
+
+    private String readNullableString() throws IOException {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            int b = nextByte();
+            if (b == '"') {
+                return text.toString();
+            }
+            if (b == '\\') {
+                readEscape();
+            } else if (b < 0x80) {
+                if (b < 0x20) {
+                    throw error("Control character in string");
+                }
+                text.append((char) b);
+            } else if ((b & 0xE0) == 0xC0) {
+                text.append((char) ((b & 0x1F) << 6 | continuation()));
+            } else if ((b & 0xF0) == 0xE0) {
+                text.append((char) ((b & 0x0F) << 12 | continuation() << 6 | continuation()));
+            } else if ((b & 0xF8) == 0xF0) {
+                text.appendCodePoint((b & 0x07) << 18 | continuation() << 12 | continuation() << 6 | continuation());
+            } else {
+                throw error("Bad UTF-8");
+            }
+        }
+    }
+
+    private LocalDateTime readDateTime() throws IOException {
+        String value = readNullableString();
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw error("Bad date-time " + value);
+        }
+    }
+
+    private Duration readMinutes() throws IOException {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        int minutes = readInt();
+        if (minutes < 0) {
+            throw error("Duration must not be negative");
+        }
+        return Duration.ofMinutes(minutes);
+    }
+
+    private int continuation() throws IOException {
+        int b = nextByte();
+        if ((b & 0xC0) != 0x80) {
+            throw error("Bad UTF-8");
+        }
+        return b & 0x3F;
+    }
+
+    private void readEscape() throws IOException {
+        int b = nextByte();
+        switch (b) {
+            case '"', '\\', '/' -> text.append((char) b);
+            case 'n' -> text.append('\n');
+            case 'r' -> text.append('\r');
+            case 't' -> text.append('\t');
+            case 'b' -> text.append('\b');
+            case 'f' -> text.append('\f');
+            case 'u' -> {
+                int c = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextByte(), 16);
+                    if (digit < 0) {
+                        throw error("Bad \\u escape");
+                    }
+                    c = c << 4 | digit;
+                }
+                text.append((char) c);
+            }
+            default -> throw error("Bad escape");
+        }
+    }
+
+    private int readInt() throws IOException {
+        skipWhitespace();
+        boolean negative = false;
+        if (position < limit && buffer[position] == '-') {
+            negative = true;
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (fill() && buffer[position] >= '0' && buffer[position] <= '9') {
+            value = value * 10 + (buffer[position++] - '0');
+            if (++digits > 10) {
+                throw error("Number is too large");
+            }
+        }
+        if (digits == 0) {
+            throw error("Expected a number");
+        }
+        if (fill() && (buffer[position] == '.' || buffer[position] == 'e' || buffer[position] == 'E')) {
+            throw error("Expected an integer");
+        }
+        value = negative ? -value : value;
+        if (value != (int) value) {
+            throw error("Number is too large");
+        }
+        return (int) value;
+    }
+
+    private ArrayList<Integer> readIntArray() throws IOException {
+        ArrayList<Integer> values = new ArrayList<>();
+        expect('[');
+        if (peek() == ']') {
+            position++;
+            return values;
+        }
+        while (true) {
+            values.add(readInt());
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return values;
+            }
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readNullableString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            // Strings can contain brackets, so they are skipped as a whole
+            do {
+                c = peek();
+                if (c == '"') {
+                    readNullableString();
+                    continue;
+                }
+                if (c == -1) {
+                    throw error("Unexpected end of JSON");
+                }
+                position++;
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else if (c == 't') {
+            expectLiteral("true");
+        } else if (c == 'f') {
+            expectLiteral("false");
+        } else if (c == 'n') {
+            expectLiteral("null");
+        } else {
+            // Numbers, also with fraction and exponent
+            int start = position;
+            while (fill() && "+-.eE0123456789".indexOf(buffer[position]) >= 0) {
+                position++;
+            }
+            if (position == start) {
+                throw error("Unexpected character");
+            }
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        skipWhitespace();
+        for (int i = 0; i < literal.length(); i++) {
+            if (nextByte() != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (fill()) {
+            byte b = buffer[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private int nextByte() throws IOException {
+        if (!fill()) {
+            throw error("Unexpected end of JSON");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    // Makes sure at least one byte is buffered, false at the end of input
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        consumed += limit;
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer);
+        while (read == 0) {
+            read = in.read(buffer);
+        }
+        if (read < 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at byte " + (consumed + position));
+    }
+
+    private static byte[] bytes(String ascii) {
+        return ascii.getBytes(StandardCharsets.US_ASCII);
+    }
+}
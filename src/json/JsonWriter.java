@@ -0,0 +1,373 @@
+package json;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import service.TaskManager;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+/**
+ * Writes tasks as JSON straight into a byte buffer that is flushed to an OutputStream or a channel when full.
+ * Numbers and strings are encoded in place (UTF-8, escaped), no String is created per field,
+ * so writing a stream of tasks runs in constant memory. One writer can be reused for many outputs with reset().
+ *
+ * Format: {"id":1,"title":"...","description":"...","status":"NEW","startTime":"2024-05-01T10:00:00","duration":90},
+ * subtasks add "epicId", epics add "endTime" and "subtaskIds":[...]. Unset times are left out. Statuses are written
+ * by enum name, times as ISO-8601 local date-time, durations in whole minutes. Not thread-safe.
+ */
+public class JsonWriter implements Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    // Longest thing written without a capacity check in between: a date-time
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[][] STATUS_NAMES = new byte[Status.values().length][];
+
+    static {
+        for (Status status : Status.values()) {
+            STATUS_NAMES[status.ordinal()] = ('"' + status.name() + '"').getBytes();
+        }
+    }
+
+    private final byte[] buffer;
+    private final ByteBuffer channelBuffer;
+    private OutputStream out;
+    private WritableByteChannel channel;
+    private int position;
+    private long flushedBytes;
+    // Tasks written inside beginArray() / endArray() are separated by commas
+    private boolean inArray;
+    private boolean firstInArray;
+
+    public JsonWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonWriter(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + ": " + bufferSize);
+        }
+        this.buffer = new byte[bufferSize];
+        this.channelBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    public JsonWriter(OutputStream out) {
+        this();
+        reset(out);
+    }
+
+    public JsonWriter(WritableByteChannel channel) {
+        this();
+        reset(channel);
+    }
+
+    /**
+     * Starts writing a new document to out. Whatever was not flushed to the previous output is dropped.
+     */
+    public JsonWriter reset(OutputStream out) {
+        this.out = out;
+        this.channel = null;
+        clear();
+        return this;
+    }
+
+    public JsonWriter reset(WritableByteChannel channel) {
+        this.out = null;
+        this.channel = channel;
+        clear();
+        return this;
+    }
+
+    public void beginArray() throws IOException {
+        if (inArray) {
+            throw new IllegalStateException("Nested arrays are not supported");
+        }
+        writeByte('[');
+        inArray = true;
+        firstInArray = true;
+    }
+
+    public void endArray() throws IOException {
+        if (!inArray) {
+            throw new IllegalStateException("No array to end");
+        }
+        writeByte(']');
+        inArray = false;
+    }
+
+    /**
+     * Writes a task, subtask or epic. Inside an array a comma is added before every task but the first.
+     */
+    public void writeTask(Task task) throws IOException {
+        if (inArray) {
+            if (!firstInArray) {
+                writeByte(',');
+            }
+            firstInArray = false;
+        }
+
+        writeRaw("{\"id\":");
+        writeLong(task.getId());
+        writeRaw(",\"title\":");
+        writeString(task.getTitle());
+        writeRaw(",\"description\":");
+        writeString(task.getDescription());
+        writeRaw(",\"status\":");
+        writeStatus(task.getStatus());
+        if (task.getStartTime() != null) {
+            writeRaw(",\"startTime\":");
+            writeDateTime(task.getStartTime());
+        }
+        if (task.getDuration() != null) {
+            writeRaw(",\"duration\":");
+            writeLong(task.getDuration().toMinutes());
+        }
+        if (task instanceof Subtask) {
+            writeRaw(",\"epicId\":");
+            writeLong(((Subtask) task).getEpicId());
+        } else if (task instanceof Epic) {
+            if (task.getEndTime() != null) {
+                writeRaw(",\"endTime\":");
+                writeDateTime(task.getEndTime());
+            }
+            writeRaw(",\"subtaskIds\":[");
+            PrimitiveIterator.OfInt subtaskIds = ((Epic) task).subtaskIdIterator();
+            for (boolean first = true; subtaskIds.hasNext(); first = false) {
+                if (!first) {
+                    writeByte(',');
+                }
+                writeLong(subtaskIds.nextInt());
+            }
+            writeByte(']');
+        }
+        writeByte('}');
+    }
+
+    /**
+     * Writes the tasks as one JSON array, pulling them one by one.
+     */
+    public void writeTasks(Iterator<? extends Task> tasks) throws IOException {
+        beginArray();
+        while (tasks.hasNext()) {
+            writeTask(tasks.next());
+        }
+        endArray();
+    }
+
+    /**
+     * Writes everything in the manager as {"tasks":[...],"epics":[...],"subtasks":[...]}.
+     * Goes through the manager streams page by page, so memory use doesn't depend on the board size.
+     * Epics come before subtasks, so JsonReader.readBoard can restore subtasks into known epics.
+     */
+    public void writeBoard(TaskManager taskManager) throws IOException {
+        writeRaw("{\"tasks\":");
+        writeTasks(taskManager.streamTasks().iterator());
+        writeRaw(",\"epics\":");
+        writeTasks(taskManager.streamEpics().iterator());
+        writeRaw(",\"subtasks\":");
+        writeTasks(taskManager.streamSubtasks().iterator());
+        writeByte('}');
+    }
+
+    public void writeStatus(Status status) throws IOException {
+        if (status == null) {
+            writeRaw("null");
+        } else {
+            writeBytes(STATUS_NAMES[status.ordinal()]);
+        }
+    }
+
+    /**
+     * Bytes not flushed to the output yet.
+     */
+    public int pending() {
+        return position;
+    }
+
+    /**
+     * Bytes written since the last reset, flushed or not.
+     */
+    public long written() {
+        return flushedBytes + position;
+    }
+
+    /**
+     * Writes the buffered bytes to the output. Doesn't flush the output itself.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        if (out != null) {
+            out.write(buffer, 0, position);
+        } else if (channel != null) {
+            channelBuffer.clear().limit(position);
+            while (channelBuffer.hasRemaining()) {
+                channel.write(channelBuffer);
+            }
+        } else {
+            throw new IllegalStateException("Writer has no output, call reset() first");
+        }
+        flushedBytes += position;
+        position = 0;
+    }
+
+    private void clear() {
+        position = 0;
+        flushedBytes = 0;
+        inArray = false;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeRaw("null");
+            return;
+        }
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            // Enough for the longest encoding of one char: \\uXXXX or 4 bytes of UTF-8
+            if (position > buffer.length - 6) {
+                flush();
+            }
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    buffer[position++] = '\\';
+                }
+                buffer[position++] = (byte) c;
+            } else if (c < 0x20) {
+                writeControl(c);
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // A lone surrogate can't be encoded in UTF-8
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeControl(char c) {
+        buffer[position++] = '\\';
+        switch (c) {
+            case '\n' -> buffer[position++] = 'n';
+            case '\r' -> buffer[position++] = 'r';
+            case '\t' -> buffer[position++] = 't';
+            case '\b' -> buffer[position++] = 'b';
+            case '\f' -> buffer[position++] = 'f';
+            default -> {
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (position > buffer.length - 20) {
+            flush();
+        }
+        if (value == Long.MIN_VALUE) {
+            writeRaw("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        writeDigits(value, digits);
+    }
+
+    // Writes exactly the given number of digits, with leading zeros
+    private void writeDigits(long value, int digits) {
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    private void writeDateTime(LocalDateTime value) throws IOException {
+        if (value.getYear() < 0 || value.getYear() > 9999) {
+            // ISO-8601 needs a sign and more digits here, rare enough to take the slow way
+            writeRaw('"' + value.toString() + '"');
+            return;
+        }
+        // "yyyy-MM-ddTHH:mm:ss.nnnnnnnnn"
+        if (position > buffer.length - 32) {
+            flush();
+        }
+        buffer[position++] = '"';
+        writeDigits(value.getYear(), 4);
+        buffer[position++] = '-';
+        writeDigits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(value.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        writeDigits(value.getHour(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getMinute(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getSecond(), 2);
+        if (value.getNano() != 0) {
+            buffer[position++] = '.';
+            writeDigits(value.getNano(), 9);
+        }
+        buffer[position++] = '"';
+    }
+
+    // Only for ASCII constants
+    private void writeRaw(String ascii) throws IOException {
+        if (position > buffer.length - ascii.length()) {
+            flush();
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            buffer[position++] = (byte) ascii.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (position > buffer.length - bytes.length) {
+            flush();
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(char c) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) c;
+    }
+}
@@ -0,0 +1,134 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Operation metrics grouped by component ("task_manager", "history_manager").
+ *
+ * Decorators look their OperationMetrics up once when they are created, recording never touches the registry.
+ * writeText() exports everything in the Prometheus text format: per operation a call counter,
+ * error counters by exception and a latency summary with quantiles taken from the histogram.
+ * The summary count is the exact number of calls, the sum is estimated from the timed ones.
+ */
+public class MetricsRegistry {
+
+    /**
+     * One call in 8 is timed by default: with nanoTime() at ~28 ns the decorators then add ~20 ns per call
+     * instead of ~85 ns when every call is timed.
+     */
+    public static final int DEFAULT_SAMPLE_EVERY = 8;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final int sampleEvery;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> components =
+            new ConcurrentHashMap<>();
+
+    public MetricsRegistry() {
+        this(DEFAULT_SAMPLE_EVERY);
+    }
+
+    /**
+     * sampleEvery must be a power of two, 1 times every call.
+     */
+    public MetricsRegistry(int sampleEvery) {
+        if (sampleEvery < 1 || Integer.bitCount(sampleEvery) != 1) {
+            throw new IllegalArgumentException("Sample rate must be a power of two: " + sampleEvery);
+        }
+        this.sampleEvery = sampleEvery;
+    }
+
+    public OperationMetrics operation(String component, String operation) {
+        return components.computeIfAbsent(component, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation, name -> new OperationMetrics(name, sampleEvery));
+    }
+
+    /**
+     * Operations of the component sorted by name, empty if nothing was registered for it.
+     */
+    public List<OperationMetrics> operations(String component) {
+        Map<String, OperationMetrics> operations = components.get(component);
+        List<OperationMetrics> result = operations == null ? new ArrayList<>() : new ArrayList<>(operations.values());
+        result.sort((first, second) -> first.getName().compareTo(second.getName()));
+        return result;
+    }
+
+    public void writeText(Appendable out) throws IOException {
+        List<String> names = new ArrayList<>(components.keySet());
+        names.sort(null);
+        for (String component : names) {
+            List<OperationMetrics> operations = operations(component);
+
+            String calls = component + "_calls_total";
+            out.append("# TYPE ").append(calls).append(" counter\n");
+            List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>(operations.size());
+            long[] callCounts = new long[operations.size()];
+            for (int i = 0; i < operations.size(); i++) {
+                OperationMetrics operation = operations.get(i);
+                snapshots.add(operation.latencySnapshot());
+                callCounts[i] = operation.getCalls();
+                line(out, calls, operation, null, Long.toString(callCounts[i]));
+            }
+
+            String errors = component + "_errors_total";
+            out.append("# TYPE ").append(errors).append(" counter\n");
+            for (OperationMetrics operation : operations) {
+                for (Map.Entry<String, Long> entry : operation.errorCounts().entrySet()) {
+                    line(out, errors, operation, "exception=\"" + entry.getKey() + "\"", entry.getValue().toString());
+                }
+            }
+
+            String latency = component + "_latency_seconds";
+            out.append("# TYPE ").append(latency).append(" summary\n");
+            for (int i = 0; i < operations.size(); i++) {
+                OperationMetrics operation = operations.get(i);
+                LatencyHistogram.Snapshot snapshot = snapshots.get(i);
+                for (double quantile : QUANTILES) {
+                    line(out, latency, operation, "quantile=\"" + quantile + "\"",
+                            seconds(snapshot.getValueAtQuantile(quantile)));
+                }
+                line(out, latency + "_sum", operation, null,
+                        seconds(Math.round(snapshot.getMean() * callCounts[i])));
+                line(out, latency + "_count", operation, null, Long.toString(callCounts[i]));
+            }
+
+            String max = component + "_latency_max_seconds";
+            out.append("# TYPE ").append(max).append(" gauge\n");
+            for (int i = 0; i < operations.size(); i++) {
+                line(out, max, operations.get(i), null, seconds(snapshots.get(i).getMax()));
+            }
+        }
+    }
+
+    public String toText() {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeText(out);
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void line(Appendable out, String metric, OperationMetrics operation, String extraLabel,
+                             String value) throws IOException {
+        out.append(metric).append("{operation=\"").append(operation.getName()).append('"');
+        if (extraLabel != null) {
+            out.append(',').append(extraLabel);
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
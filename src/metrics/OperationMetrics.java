@@ -0,0 +1,81 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, latencies and errors of one operation.
+ *
+ * Every call is counted, but only every sampleEvery-th call on average is timed: a nanoTime() read costs
+ * about as much as a fast call itself, and a random sample gives the same quantiles. Failed calls are
+ * counted as calls and additionally per exception class.
+ *
+ * Usage: long start = metrics.start(); try { ... } catch (RuntimeException e) { metrics.recordError(e); throw e; }
+ * finally { metrics.stop(start); }
+ */
+public class OperationMetrics {
+
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final String name;
+    private final int sampleMask;
+    private final LongAdder calls = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    // Only touched when a call fails
+    private final Map<Class<?>, LongAdder> errors = new ConcurrentHashMap<>();
+
+    OperationMetrics(String name, int sampleEvery) {
+        this.name = name;
+        this.sampleMask = sampleEvery - 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Counts a call, returns the start time if this call is timed.
+     */
+    public long start() {
+        calls.increment();
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    public void stop(long start) {
+        if (start != NOT_TIMED) {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordError(Throwable error) {
+        errors.computeIfAbsent(error.getClass(), type -> new LongAdder()).increment();
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Latencies of the timed calls only, see the class comment.
+     */
+    public LatencyHistogram.Snapshot latencySnapshot() {
+        return latency.snapshot();
+    }
+
+    /**
+     * Error counts by simple exception class name, sorted by name.
+     */
+    public Map<String, Long> errorCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<Class<?>, LongAdder> entry : errors.entrySet()) {
+            result.merge(entry.getKey().getSimpleName(), entry.getValue().sum(), Long::sum);
+        }
+        return result;
+    }
+}
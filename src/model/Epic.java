@@ -1,34 +1,74 @@
 package model;
 
+import util.IntOrderedSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
 
 public class Epic extends Task {
 
-    private ArrayList<Integer> subtaskIds;
+    // Insertion-ordered, so ids come back in the order the subtasks were added
+    private IntOrderedSet subtaskIds;
+    // Start time, duration and end time of an epic are derived from its subtasks
+    private LocalDateTime endTime;
 
     public Epic(String title, String description) {
         super(title, description);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = new IntOrderedSet();
     }
 
     public Epic(int id, String title, String description, ArrayList<Integer> subtaskIds) {
         super(id, title, description);
-        this.subtaskIds = subtaskIds != null ? new ArrayList<>(subtaskIds) : new ArrayList<>();
+        this.subtaskIds = toSet(subtaskIds);
     }
 
+    /**
+     * Mutable copy of subtask ids. Prefer getSubtaskIdsView() or subtaskIdIterator(), they don't copy.
+     */
     public ArrayList<Integer> getSubtaskIds() {
-        return new ArrayList<>(subtaskIds);
+        return new ArrayList<>(subtaskIds.asList());
+    }
+
+    /**
+     * Read-only view of subtask ids without copying them.
+     * For a frozen epic the view never changes.
+     */
+    public List<Integer> getSubtaskIdsView() {
+        return subtaskIds.asList();
+    }
+
+    /**
+     * Subtask ids in the order they were added, without boxing.
+     */
+    public PrimitiveIterator.OfInt subtaskIdIterator() {
+        return subtaskIds.iterator();
+    }
+
+    public boolean hasSubtaskId(int id) {
+        return subtaskIds.contains(id);
+    }
+
+    public int getSubtaskCount() {
+        return subtaskIds.size();
     }
 
     public void setSubtaskIds(ArrayList<Integer> subtaskIds) {
-        this.subtaskIds = subtaskIds != null ? new ArrayList<>(subtaskIds) : new ArrayList<>();
+        checkNotFrozen();
+        this.subtaskIds = toSet(subtaskIds);
     }
 
     public void addSubtaskId(int id) {
+        checkNotFrozen();
         this.subtaskIds.add(id);
     }
 
-    public void removeSubtaskId(Integer id) {
+    public void removeSubtaskId(int id) {
+        checkNotFrozen();
         this.subtaskIds.remove(id);
     }
 
@@ -38,15 +78,123 @@ public class Epic extends Task {
     }
 
     public void updateStatusFromTaskManager(Status status) {
+        checkNotFrozen();
         super.setStatus(status);
     }
 
+    @Override
+    public void setStartTime(LocalDateTime startTime) {
+        throw new UnsupportedOperationException("Epic start time cannot be set directly. It is calculated based on subtasks.");
+    }
+
+    @Override
+    public void setDuration(Duration duration) {
+        throw new UnsupportedOperationException("Epic duration cannot be set directly. It is calculated based on subtasks.");
+    }
+
+    @Override
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void updateScheduleFromTaskManager(LocalDateTime startTime, Duration duration, LocalDateTime endTime) {
+        checkNotFrozen();
+        this.startTime = startTime;
+        this.duration = duration;
+        this.endTime = endTime;
+    }
+
+    public Epic withScheduleFromTaskManager(LocalDateTime startTime, Duration duration, LocalDateTime endTime) {
+        Epic copy = copy();
+        copy.startTime = startTime;
+        copy.duration = duration;
+        copy.endTime = endTime;
+        copy.frozen = true;
+        return copy;
+    }
+
+    @Override
+    public Epic withSchedule(LocalDateTime startTime, Duration duration) {
+        throw new UnsupportedOperationException("Epic schedule cannot be set directly. It is calculated based on subtasks.");
+    }
+
+    public Epic withSubtaskId(int id) {
+        Epic copy = copy();
+        copy.subtaskIds.add(id);
+        copy.frozen = true;
+        return copy;
+    }
+
+    public Epic withoutSubtaskId(int id) {
+        Epic copy = copy();
+        copy.subtaskIds.remove(id);
+        copy.frozen = true;
+        return copy;
+    }
+
+    /**
+     * Removes and adds many subtask ids with one copy. Added ids go to the end in the given order.
+     */
+    public Epic withSubtaskIdsChanged(Set<Integer> removed, Collection<Integer> added) {
+        Epic copy = new Epic(this.getTitle(), this.getDescription());
+        copy.id = this.id;
+        copy.status = this.status;
+        copy.startTime = this.startTime;
+        copy.duration = this.duration;
+        copy.endTime = this.endTime;
+        copy.subtaskIds = new IntOrderedSet(subtaskIds.size() + added.size());
+        for (PrimitiveIterator.OfInt it = subtaskIds.iterator(); it.hasNext(); ) {
+            int subtaskId = it.nextInt();
+            if (!removed.contains(subtaskId)) {
+                copy.subtaskIds.add(subtaskId);
+            }
+        }
+        for (int subtaskId : added) {
+            copy.subtaskIds.add(subtaskId);
+        }
+        copy.frozen = true;
+        return copy;
+    }
+
+    public Epic withoutSubtasks() {
+        Epic copy = new Epic(this.getTitle(), this.getDescription());
+        copy.id = this.id;
+        copy.status = Status.NEW;
+        copy.frozen = true;
+        return copy;
+    }
+
+    public Epic withStatusFromTaskManager(Status status) {
+        Epic copy = copy();
+        copy.status = status;
+        copy.frozen = true;
+        return copy;
+    }
+
+    @Override
+    public Epic freeze() {
+        return (Epic) super.freeze();
+    }
+
+    @Override
+    public Epic withTitle(String title) {
+        return (Epic) super.withTitle(title);
+    }
+
+    @Override
+    public Epic withDescription(String description) {
+        return (Epic) super.withDescription(description);
+    }
+
     @Override
     public Epic copy() {
         Epic copy = new Epic(this.getTitle(), this.getDescription());
-        copy.setId(this.getId());
-        copy.updateStatusFromTaskManager(this.getStatus());
-        copy.setSubtaskIds(new ArrayList<>(this.getSubtaskIds()));
+        copy.id = this.id;
+        copy.status = this.status;
+        copy.startTime = this.startTime;
+        copy.duration = this.duration;
+        copy.endTime = this.endTime;
+        copy.subtaskIds = new IntOrderedSet(this.subtaskIds);
         return copy;
     }
 
@@ -57,7 +205,21 @@ public class Epic extends Task {
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
                 ", status=" + status +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
+                ", endTime=" + endTime +
                 ", subtaskIds=" + subtaskIds +
                 '}';
     }
-}
\ No newline at end of file
+
+    private static IntOrderedSet toSet(List<Integer> subtaskIds) {
+        if (subtaskIds == null) {
+            return new IntOrderedSet();
+        }
+        IntOrderedSet set = new IntOrderedSet(subtaskIds.size());
+        for (int subtaskId : subtaskIds) {
+            set.add(subtaskId);
+        }
+        return set;
+    }
+}
@@ -1,5 +1,8 @@
 package model;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 public class Subtask extends Task {
 
     private int epicId;
@@ -9,6 +12,12 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    public Subtask(String title, String description, Status status, int epicId,
+                   LocalDateTime startTime, Duration duration) {
+        super(title, description, status, startTime, duration);
+        this.epicId = epicId;
+    }
+
     public Subtask(String title, String description, int epicId) {
         super(title, description);
         this.epicId = epicId;
@@ -19,14 +28,49 @@ public class Subtask extends Task {
     }
 
     public void setEpicId(int epicId) {
+        checkNotFrozen();
         this.epicId = epicId;
     }
 
+    public Subtask withEpicId(int epicId) {
+        Subtask copy = copy();
+        copy.epicId = epicId;
+        copy.frozen = true;
+        return copy;
+    }
+
+    @Override
+    public Subtask freeze() {
+        return (Subtask) super.freeze();
+    }
+
+    @Override
+    public Subtask withTitle(String title) {
+        return (Subtask) super.withTitle(title);
+    }
+
+    @Override
+    public Subtask withDescription(String description) {
+        return (Subtask) super.withDescription(description);
+    }
+
+    @Override
+    public Subtask withStatus(Status status) {
+        return (Subtask) super.withStatus(status);
+    }
+
+    @Override
+    public Subtask withSchedule(LocalDateTime startTime, Duration duration) {
+        return (Subtask) super.withSchedule(startTime, duration);
+    }
+
     @Override
     public Subtask copy() {
         Subtask copy = new Subtask(this.getTitle(), this.getDescription(), this.epicId);
         copy.setId(this.getId());
         copy.setStatus(this.getStatus());
+        copy.startTime = this.startTime;
+        copy.duration = this.duration;
         return copy;
     }
 
@@ -37,6 +81,8 @@ public class Subtask extends Task {
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
                 ", status=" + status +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
                 ", epicId=" + epicId +
                 '}';
     }
@@ -1,5 +1,7 @@
 package model;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Task {
@@ -8,6 +10,11 @@ public class Task {
     protected String title;
     protected String description;
     protected Status status;
+    // Both null for tasks that are not scheduled
+    protected LocalDateTime startTime;
+    protected Duration duration;
+    // Frozen instances are read-only snapshots, they can be shared without copying
+    protected boolean frozen;
 
     public Task(String title, String description, Status status) {
         this.title = title;
@@ -15,6 +22,12 @@ public class Task {
         this.status = status;
     }
 
+    public Task(String title, String description, Status status, LocalDateTime startTime, Duration duration) {
+        this(title, description, status);
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
     public Task(int id, String title, String description) {
         this.id = id;
         this.title = title;
@@ -37,6 +50,7 @@ public class Task {
     }
 
     public void setTitle(String title) {
+        checkNotFrozen();
         this.title = title;
     }
 
@@ -45,6 +59,7 @@ public class Task {
     }
 
     public void setDescription(String description) {
+        checkNotFrozen();
         this.description = description;
     }
 
@@ -53,17 +68,108 @@ public class Task {
     }
 
     public void setStatus(Status status) {
+        checkNotFrozen();
         this.status = status;
     }
 
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        checkNotFrozen();
+        this.startTime = startTime;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Duration duration) {
+        checkNotFrozen();
+        if (duration != null && duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must not be negative: " + duration);
+        }
+        this.duration = duration;
+    }
+
+    /**
+     * Start time plus duration, null if the task has no start time.
+     */
+    public LocalDateTime getEndTime() {
+        if (startTime == null) {
+            return null;
+        }
+        return duration == null ? startTime : startTime.plus(duration);
+    }
+
     public void setId(int id) {
+        checkNotFrozen();
         this.id = id;
     }
 
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Returns a read-only snapshot of this task: the task itself if it is already frozen, otherwise a frozen copy.
+     * Snapshots are what repositories store and what reads return, so nobody has to copy them defensively.
+     */
+    public Task freeze() {
+        if (frozen) {
+            return this;
+        }
+        Task copy = copy();
+        copy.frozen = true;
+        return copy;
+    }
+
+    public Task withTitle(String title) {
+        Task copy = copy();
+        copy.title = title;
+        copy.frozen = true;
+        return copy;
+    }
+
+    public Task withDescription(String description) {
+        Task copy = copy();
+        copy.description = description;
+        copy.frozen = true;
+        return copy;
+    }
+
+    public Task withStatus(Status status) {
+        Task copy = copy();
+        copy.setStatus(status);
+        copy.frozen = true;
+        return copy;
+    }
+
+    public Task withSchedule(LocalDateTime startTime, Duration duration) {
+        Task copy = copy();
+        copy.setStartTime(startTime);
+        copy.setDuration(duration);
+        copy.frozen = true;
+        return copy;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " with id " + id
+                    + " is a read-only snapshot. Use copy() or with* methods to change it.");
+        }
+    }
+
+    /**
+     * Returns a mutable copy, also for frozen tasks.
+     */
     public Task copy() {
         Task copy = new Task(this.title, this.description);
         copy.setId(this.id);
         copy.setStatus(this.status);
+        copy.startTime = this.startTime;
+        copy.duration = this.duration;
         return copy;
     }
 
@@ -87,6 +193,8 @@ public class Task {
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
                 ", status=" + status +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * fsync of a file only makes its contents durable. A created, renamed or deleted file is a change of the directory,
+ * which needs an fsync of its own, otherwise a crash can bring back the old directory entry.
+ */
+final class DirectorySync {
+
+    // Windows can't open a directory as a channel, and NTFS makes directory changes durable by itself
+    private static final boolean SUPPORTED = !System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+    private DirectorySync() {
+    }
+
+    /**
+     * Makes the directory entry of the file durable.
+     */
+    static void syncParentOf(Path file) throws IOException {
+        if (!SUPPORTED) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package persistence;
+
+import exception.ManagerSaveException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single durable int in its own file, e.g. the highest id that was ever handed out.
+ * Written like the snapshot: to a temporary file, forced to disk and renamed over the old one.
+ */
+public final class HighWaterMark {
+
+    private static final int MAGIC = 0x4B48574D;
+
+    private HighWaterMark() {
+    }
+
+    /**
+     * Returns 0 if the file doesn't exist yet.
+     */
+    public static int read(Path file) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (in.remaining() != 8 || in.getInt() != MAGIC) {
+                throw new ManagerSaveException("Not a high-water mark file: " + file);
+            }
+            return in.getInt();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to read " + file, e);
+        }
+    }
+
+    public static void write(Path file, int value) {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocate(8).putInt(MAGIC).putInt(value).flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to write " + tempFile, e);
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            DirectorySync.syncParentOf(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to replace " + file, e);
+        }
+    }
+}
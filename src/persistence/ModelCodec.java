@@ -0,0 +1,173 @@
+package persistence;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.PrimitiveIterator;
+
+/**
+ * Binary layout of the model classes shared by everything we write to disk.
+ * Writing goes through DataOutput, reading works on a ByteBuffer so memory-mapped files can be decoded in place.
+ * Strings are stored as length + UTF-8 bytes (length -1 means null),
+ * because DataOutput.writeUTF can't store null and is limited to 64 KB.
+ *
+ * Version 2 added start time and duration (and end time for epics) after the status.
+ * Writing always uses the current VERSION, reading takes the version the data was written with.
+ */
+public final class ModelCodec {
+
+    public static final int VERSION = 2;
+
+    private static final byte NO_STATUS = -1;
+
+    private ModelCodec() {
+    }
+
+    public static void writeTask(DataOutput out, Task task) throws IOException {
+        out.writeInt(task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        writeStatus(out, task.getStatus());
+        writeDateTime(out, task.getStartTime());
+        writeDuration(out, task.getDuration());
+    }
+
+    public static Task readTask(ByteBuffer in, int version) {
+        int id = in.getInt();
+        Task task = new Task(readString(in), readString(in), readStatus(in));
+        task.setId(id);
+        if (version >= 2) {
+            task.setStartTime(readDateTime(in));
+            task.setDuration(readDuration(in));
+        }
+        return task;
+    }
+
+    public static void writeSubtask(DataOutput out, Subtask subtask) throws IOException {
+        writeTask(out, subtask);
+        out.writeInt(subtask.getEpicId());
+    }
+
+    public static Subtask readSubtask(ByteBuffer in, int version) {
+        int id = in.getInt();
+        String title = readString(in);
+        String description = readString(in);
+        Status status = readStatus(in);
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        if (version >= 2) {
+            startTime = readDateTime(in);
+            duration = readDuration(in);
+        }
+        Subtask subtask = new Subtask(title, description, status, in.getInt(), startTime, duration);
+        subtask.setId(id);
+        return subtask;
+    }
+
+    public static void writeEpic(DataOutput out, Epic epic) throws IOException {
+        writeTask(out, epic);
+        writeDateTime(out, epic.getEndTime());
+        out.writeInt(epic.getSubtaskCount());
+        for (PrimitiveIterator.OfInt it = epic.subtaskIdIterator(); it.hasNext(); ) {
+            out.writeInt(it.nextInt());
+        }
+    }
+
+    public static Epic readEpic(ByteBuffer in, int version) {
+        int id = in.getInt();
+        String title = readString(in);
+        String description = readString(in);
+        Status status = readStatus(in);
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        LocalDateTime endTime = null;
+        if (version >= 2) {
+            startTime = readDateTime(in);
+            duration = readDuration(in);
+            endTime = readDateTime(in);
+        }
+
+        int count = in.getInt();
+        ArrayList<Integer> subtaskIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            subtaskIds.add(in.getInt());
+        }
+
+        Epic epic = new Epic(id, title, description, subtaskIds);
+        epic.updateStatusFromTaskManager(status);
+        epic.updateScheduleFromTaskManager(startTime, duration, endTime);
+        return epic;
+    }
+
+    // Presence flag, then seconds and nanos, so the value comes back exactly
+    private static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        long epochSecond = in.getLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.getInt(), ZoneOffset.UTC);
+    }
+
+    private static void writeDuration(DataOutput out, Duration value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getSeconds());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Duration readDuration(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        long seconds = in.getLong();
+        return Duration.ofSeconds(seconds, in.getInt());
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStatus(DataOutput out, Status status) throws IOException {
+        out.writeByte(status == null ? NO_STATUS : status.ordinal());
+    }
+
+    private static Status readStatus(ByteBuffer in) {
+        byte ordinal = in.get();
+        return ordinal == NO_STATUS ? null : Status.values()[ordinal];
+    }
+}
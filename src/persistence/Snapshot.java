@@ -0,0 +1,165 @@
+package persistence;
+
+import exception.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full copy of the manager state at one point of the log.
+ *
+ * File layout: magic, version, first log segment to replay after the snapshot, last generated id,
+ * record counts, then tasks, epics, subtasks (in ModelCodec format) and history ids in order.
+ * Snapshot version 1 holds ModelCodec version 1 records, version 2 holds version 2 records.
+ * Loading time depends only on the number of live records, not on how long the log was.
+ */
+public class Snapshot {
+
+    private static final int MAGIC = 0x4B534E50; // "KSNP"
+    private static final int VERSION = ModelCodec.VERSION;
+
+    private final long nextSegment;
+    private final int lastId;
+    private final List<Task> tasks;
+    private final List<Epic> epics;
+    private final List<Subtask> subtasks;
+    private final int[] historyIds;
+
+    public Snapshot(long nextSegment, int lastId, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks,
+                    int[] historyIds) {
+        this.nextSegment = nextSegment;
+        this.lastId = lastId;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.historyIds = historyIds;
+    }
+
+    // Log segments older than this one are already included in the snapshot
+    public long getNextSegment() {
+        return nextSegment;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Epic> getEpics() {
+        return epics;
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks;
+    }
+
+    public int[] getHistoryIds() {
+        return historyIds;
+    }
+
+    /**
+     * Writes the snapshot next to the target file and renames it over the target,
+     * so a crash leaves either the old or the new snapshot, never a half-written one.
+     */
+    public void writeTo(Path file) {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nextSegment);
+            out.writeInt(lastId);
+            out.writeInt(tasks.size());
+            out.writeInt(epics.size());
+            out.writeInt(subtasks.size());
+            out.writeInt(historyIds.length);
+
+            for (Task task : tasks) {
+                ModelCodec.writeTask(out, task);
+            }
+            for (Epic epic : epics) {
+                ModelCodec.writeEpic(out, epic);
+            }
+            for (Subtask subtask : subtasks) {
+                ModelCodec.writeSubtask(out, subtask);
+            }
+            for (int historyId : historyIds) {
+                out.writeInt(historyId);
+            }
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to write snapshot " + tempFile, e);
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Callers delete what the snapshot covers right after this, so the rename must be on disk first
+            DirectorySync.syncParentOf(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to replace snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Maps the file into memory and decodes the records directly from the mapping.
+     */
+    public static Snapshot readFrom(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC) {
+                throw new ManagerSaveException("Not a snapshot file: " + file);
+            }
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new ManagerSaveException("Unsupported snapshot version " + version + " in " + file);
+            }
+            long nextSegment = in.getLong();
+            int lastId = in.getInt();
+            int taskCount = in.getInt();
+            int epicCount = in.getInt();
+            int subtaskCount = in.getInt();
+            int historyCount = in.getInt();
+
+            List<Task> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(ModelCodec.readTask(in, version));
+            }
+            List<Epic> epics = new ArrayList<>(epicCount);
+            for (int i = 0; i < epicCount; i++) {
+                epics.add(ModelCodec.readEpic(in, version));
+            }
+            List<Subtask> subtasks = new ArrayList<>(subtaskCount);
+            for (int i = 0; i < subtaskCount; i++) {
+                subtasks.add(ModelCodec.readSubtask(in, version));
+            }
+            int[] historyIds = new int[historyCount];
+            for (int i = 0; i < historyCount; i++) {
+                historyIds[i] = in.getInt();
+            }
+            return new Snapshot(nextSegment, lastId, tasks, epics, subtasks, historyIds);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to read snapshot " + file, e);
+        } catch (BufferUnderflowException e) {
+            throw new ManagerSaveException("Snapshot " + file + " is truncated", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package persistence;
+
+/**
+ * Says when the write-ahead log calls fsync.
+ * EVERY_WRITE - an operation returns only after its entry is on disk (nothing is lost on crash).
+ * BATCHED - fsync once batchSize entries are waiting (up to batchSize - 1 operations can be lost).
+ * PERIODIC - a background thread calls fsync every intervalMillis (up to one interval can be lost).
+ */
+public final class SyncPolicy {
+
+    public enum Mode {
+        EVERY_WRITE,
+        BATCHED,
+        PERIODIC
+    }
+
+    private final Mode mode;
+    private final int batchSize;
+    private final long intervalMillis;
+
+    private SyncPolicy(Mode mode, int batchSize, long intervalMillis) {
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public static SyncPolicy everyWrite() {
+        return new SyncPolicy(Mode.EVERY_WRITE, 1, 0);
+    }
+
+    public static SyncPolicy batched(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        return new SyncPolicy(Mode.BATCHED, batchSize, 0);
+    }
+
+    public static SyncPolicy periodic(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Sync interval must be positive: " + intervalMillis);
+        }
+        return new SyncPolicy(Mode.PERIODIC, Integer.MAX_VALUE, intervalMillis);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case EVERY_WRITE -> "everyWrite";
+            case BATCHED -> "batched(" + batchSize + ")";
+            case PERIODIC -> "periodic(" + intervalMillis + "ms)";
+        };
+    }
+}
@@ -0,0 +1,164 @@
+package persistence;
+
+import exception.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * One log entry holds all the records written by a single TaskManager operation,
+ * so an operation is either replayed completely or not at all.
+ * Records describe the resulting state (put / delete), not the operation itself,
+ * that way replay doesn't need to know the business rules of the manager.
+ * Put records of older model versions have their own types, so old logs can still be replayed.
+ */
+public class WalEntry {
+
+    private enum RecordType {
+        PUT_TASK,
+        PUT_SUBTASK,
+        PUT_EPIC,
+        DELETE_TASK,
+        DELETE_SUBTASK,
+        DELETE_EPIC,
+        CLEAR_TASKS,
+        CLEAR_SUBTASKS,
+        CLEAR_EPICS,
+        // ModelCodec version 2, with start time and duration
+        PUT_TASK_V2,
+        PUT_SUBTASK_V2,
+        PUT_EPIC_V2
+    }
+
+    public interface Visitor {
+
+        void putTask(Task task);
+
+        void putSubtask(Subtask subtask);
+
+        void putEpic(Epic epic);
+
+        void deleteTask(int id);
+
+        void deleteSubtask(int id);
+
+        void deleteEpic(int id);
+
+        void clearTasks();
+
+        void clearSubtasks();
+
+        void clearEpics();
+    }
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    public WalEntry putTask(Task task) {
+        try {
+            out.writeByte(RecordType.PUT_TASK_V2.ordinal());
+            ModelCodec.writeTask(out, task);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to encode task " + task.getId(), e);
+        }
+        return this;
+    }
+
+    public WalEntry putSubtask(Subtask subtask) {
+        try {
+            out.writeByte(RecordType.PUT_SUBTASK_V2.ordinal());
+            ModelCodec.writeSubtask(out, subtask);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to encode subtask " + subtask.getId(), e);
+        }
+        return this;
+    }
+
+    public WalEntry putEpic(Epic epic) {
+        try {
+            out.writeByte(RecordType.PUT_EPIC_V2.ordinal());
+            ModelCodec.writeEpic(out, epic);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to encode epic " + epic.getId(), e);
+        }
+        return this;
+    }
+
+    public WalEntry deleteTask(int id) {
+        return writeDelete(RecordType.DELETE_TASK, id);
+    }
+
+    public WalEntry deleteSubtask(int id) {
+        return writeDelete(RecordType.DELETE_SUBTASK, id);
+    }
+
+    public WalEntry deleteEpic(int id) {
+        return writeDelete(RecordType.DELETE_EPIC, id);
+    }
+
+    public WalEntry clearTasks() {
+        return writeType(RecordType.CLEAR_TASKS);
+    }
+
+    public WalEntry clearSubtasks() {
+        return writeType(RecordType.CLEAR_SUBTASKS);
+    }
+
+    public WalEntry clearEpics() {
+        return writeType(RecordType.CLEAR_EPICS);
+    }
+
+    public byte[] toByteArray() {
+        return bytes.toByteArray();
+    }
+
+    public static void replay(byte[] entry, Visitor visitor) {
+        ByteBuffer in = ByteBuffer.wrap(entry);
+        try {
+            while (in.hasRemaining()) {
+                RecordType type = RecordType.values()[in.get()];
+                switch (type) {
+                    case PUT_TASK -> visitor.putTask(ModelCodec.readTask(in, 1));
+                    case PUT_SUBTASK -> visitor.putSubtask(ModelCodec.readSubtask(in, 1));
+                    case PUT_EPIC -> visitor.putEpic(ModelCodec.readEpic(in, 1));
+                    case PUT_TASK_V2 -> visitor.putTask(ModelCodec.readTask(in, 2));
+                    case PUT_SUBTASK_V2 -> visitor.putSubtask(ModelCodec.readSubtask(in, 2));
+                    case PUT_EPIC_V2 -> visitor.putEpic(ModelCodec.readEpic(in, 2));
+                    case DELETE_TASK -> visitor.deleteTask(in.getInt());
+                    case DELETE_SUBTASK -> visitor.deleteSubtask(in.getInt());
+                    case DELETE_EPIC -> visitor.deleteEpic(in.getInt());
+                    case CLEAR_TASKS -> visitor.clearTasks();
+                    case CLEAR_SUBTASKS -> visitor.clearSubtasks();
+                    case CLEAR_EPICS -> visitor.clearEpics();
+                }
+            }
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new ManagerSaveException("Corrupted log entry", e);
+        }
+    }
+
+    private WalEntry writeDelete(RecordType type, int id) {
+        try {
+            out.writeByte(type.ordinal());
+            out.writeInt(id);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to encode " + type + " for id " + id, e);
+        }
+        return this;
+    }
+
+    private WalEntry writeType(RecordType type) {
+        try {
+            out.writeByte(type.ordinal());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to encode " + type, e);
+        }
+        return this;
+    }
+}
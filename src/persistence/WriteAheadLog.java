@@ -0,0 +1,324 @@
+package persistence;
+
+import exception.ManagerSaveException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log. Every entry is stored as [length][crc32][payload].
+ *
+ * Appending only copies the entry into a memory buffer. Writing the buffer and fsync happen in commit(),
+ * which callers should call outside of their own locks: while one thread is inside fsync,
+ * other threads keep appending, and the next fsync makes all of them durable at once (group commit).
+ *
+ * A failed write or fsync stops the log for good: the file may end with a torn entry and nothing after it
+ * can be trusted, so every later append and commit throws instead of acknowledging entries replay would drop.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    // Don't keep more than this in memory even if the policy allows to wait with fsync
+    private static final int MAX_PENDING_BYTES = 1 << 20;
+
+    private final SyncPolicy syncPolicy;
+    private final ScheduledExecutorService syncScheduler;
+
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final CRC32 crc = new CRC32();
+
+    // guarded by syncLock, replaced when the log moves to a new segment
+    private FileChannel channel;
+
+    // guarded by appendLock
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    // guarded by syncLock, swapped with pending on every sync so appends don't wait for the disk
+    private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+    private long appendedSequence;
+
+    private volatile long durableSequence;
+    // first write or fsync error, the log refuses everything after it
+    private volatile IOException syncFailure;
+    private volatile boolean closed;
+
+    // The channel must be positioned at the end of the valid entries
+    WriteAheadLog(FileChannel channel, SyncPolicy syncPolicy) {
+        this.channel = channel;
+        this.syncPolicy = syncPolicy;
+        if (syncPolicy.getMode() == SyncPolicy.Mode.PERIODIC) {
+            syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = syncPolicy.getIntervalMillis();
+            syncScheduler.scheduleWithFixedDelay(this::periodicSync, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            syncScheduler = null;
+        }
+    }
+
+    /**
+     * Reads every complete entry of the log and passes its payload to the consumer, then opens the log for appending.
+     * A torn or corrupted entry at the end (crash in the middle of a write) is cut off.
+     */
+    public static WriteAheadLog open(Path file, SyncPolicy syncPolicy, Consumer<byte[]> replayConsumer) {
+        try {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long validSize = replay(channel, replayConsumer);
+            if (validSize < channel.size()) {
+                channel.truncate(validSize);
+                channel.force(true);
+            }
+            channel.position(validSize);
+            // The file may have just been created, entries in it are lost if its directory entry is
+            DirectorySync.syncParentOf(file);
+            return new WriteAheadLog(channel, syncPolicy);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to open log " + file, e);
+        }
+    }
+
+    /**
+     * Reads a finished log segment that is not going to be appended to anymore.
+     */
+    public static void replay(Path file, Consumer<byte[]> replayConsumer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            replay(channel, replayConsumer);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to read log " + file, e);
+        }
+    }
+
+    /**
+     * Puts the entry into the log buffer and returns its sequence number for commit().
+     * The entry is not durable until commit() says so.
+     */
+    public long append(byte[] entry) {
+        ensureOpen();
+        synchronized (appendLock) {
+            crc.reset();
+            crc.update(entry);
+            pending = ensureCapacity(pending, HEADER_SIZE + entry.length);
+            pending.putInt(entry.length);
+            pending.putInt((int) crc.getValue());
+            pending.put(entry);
+            return ++appendedSequence;
+        }
+    }
+
+    /**
+     * Makes the entry durable according to the sync policy.
+     * With EVERY_WRITE this blocks until the entry is on disk, possibly in the same fsync as entries of other threads.
+     */
+    public void commit(long sequence) {
+        ensureHealthy();
+        if (sequence <= durableSequence) {
+            return;
+        }
+        if (syncPolicy.getMode() == SyncPolicy.Mode.EVERY_WRITE
+                || sequence - durableSequence >= syncPolicy.getBatchSize()
+                || pendingBytes() >= MAX_PENDING_BYTES) {
+            sync(sequence);
+        }
+    }
+
+    /**
+     * Writes and fsyncs everything appended so far.
+     */
+    public void flush() {
+        long sequence;
+        synchronized (appendLock) {
+            sequence = appendedSequence;
+        }
+        sync(sequence);
+    }
+
+    /**
+     * Makes everything appended so far durable in the current file and continues the log in a new file.
+     * Entries appended after this call are written only to the new file.
+     */
+    public void roll(Path newFile) {
+        synchronized (syncLock) {
+            ensureHealthy();
+            writePending();
+            try {
+                channel.close();
+                channel = FileChannel.open(newFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                DirectorySync.syncParentOf(newFile);
+            } catch (IOException e) {
+                // The old file is closed and the new one may not survive a crash, nothing can be appended safely
+                syncFailure = e;
+                throw new ManagerSaveException("Failed to start log " + newFile, e);
+            }
+        }
+    }
+
+    /**
+     * Throws what append() would throw now: the log is closed or stopped after a failed write.
+     * Lets callers refuse a change before they apply it.
+     */
+    public void ensureWritable() {
+        ensureOpen();
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (syncScheduler != null) {
+            syncScheduler.shutdown();
+        }
+        try {
+            if (syncFailure == null) {
+                flush();
+            }
+        } finally {
+            closed = true;
+            synchronized (syncLock) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Failed to close log", e);
+                }
+            }
+        }
+    }
+
+    private void sync(long sequence) {
+        synchronized (syncLock) {
+            if (sequence <= durableSequence) {
+                // Someone else's fsync already covered this entry
+                return;
+            }
+            // The fsync this thread waited for may have failed
+            ensureHealthy();
+            writePending();
+        }
+    }
+
+    // Must be called with syncLock held
+    private void writePending() {
+        long syncedUpTo;
+        synchronized (appendLock) {
+            ByteBuffer filled = pending;
+            pending = writing;
+            writing = filled;
+            syncedUpTo = appendedSequence;
+        }
+        try {
+            writing.flip();
+            while (writing.hasRemaining()) {
+                channel.write(writing);
+            }
+            writing.clear();
+            channel.force(false);
+        } catch (IOException e) {
+            syncFailure = e;
+            writing.clear();
+            throw new ManagerSaveException("Failed to write log", e);
+        }
+        durableSequence = syncedUpTo;
+    }
+
+    private void periodicSync() {
+        if (syncFailure != null || closed) {
+            return;
+        }
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            // writePending() stopped the log, the next commit() reports it
+        }
+    }
+
+    private int pendingBytes() {
+        synchronized (appendLock) {
+            return pending.position();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new ManagerSaveException("Log is closed");
+        }
+        ensureHealthy();
+    }
+
+    private void ensureHealthy() {
+        IOException failure = syncFailure;
+        if (failure != null) {
+            throw new ManagerSaveException("Log stopped after a failed write", failure);
+        }
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int extra) {
+        if (buffer.remaining() >= extra) {
+            return buffer;
+        }
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < extra) {
+            capacity *= 2;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    private static long replay(FileChannel channel, Consumer<byte[]> consumer) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        CRC32 checksum = new CRC32();
+
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || position + HEADER_SIZE + length > size) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + HEADER_SIZE);
+            checksum.reset();
+            checksum.update(payload.array());
+            if ((int) checksum.getValue() != expectedCrc) {
+                break;
+            }
+
+            consumer.accept(payload.array());
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of log");
+            }
+            position += read;
+        }
+    }
+}
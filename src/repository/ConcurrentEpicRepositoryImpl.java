@@ -0,0 +1,158 @@
+package repository;
+
+import exception.TaskNotFoundException;
+import model.Epic;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Thread-safe version of EpicRepositoryImpl. Single operations are atomic and reads never block,
+ * keeping several operations consistent is the job of the manager (see ConcurrentTaskManager).
+ */
+public class ConcurrentEpicRepositoryImpl implements EpicRepository {
+
+    // Sorted by id, so pages and findAll come in id order
+    private final ConcurrentNavigableMap<Integer, Epic> epics = new ConcurrentSkipListMap<>();
+
+    private final FieldIndex titleIndex;
+    private final FieldIndex descriptionIndex;
+
+    public ConcurrentEpicRepositoryImpl() {
+        this(EnumSet.allOf(IndexedField.class));
+    }
+
+    /**
+     * Only fields in indexedFields get an index, lookups by other fields scan all epics.
+     */
+    public ConcurrentEpicRepositoryImpl(Set<IndexedField> indexedFields) {
+        titleIndex = FieldIndex.create(IndexedField.TITLE, indexedFields, true);
+        descriptionIndex = FieldIndex.create(IndexedField.DESCRIPTION, indexedFields, true);
+    }
+
+    @Override
+    public Epic findEpicById(int id) {
+        return epics.get(id);
+    }
+
+    @Override
+    public ArrayList<Epic> findEpicByTitle(String title) {
+        if (titleIndex != null) {
+            return titleIndex.find(title, epics::get);
+        }
+
+        ArrayList<Epic> result = new ArrayList<>();
+        if (title == null) {
+            return result;
+        }
+        for (Epic epic : epics.values()) {
+            if (title.equalsIgnoreCase(epic.getTitle())) {
+                result.add(epic);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ArrayList<Epic> findEpicByDescription(String description) {
+        if (descriptionIndex != null) {
+            return descriptionIndex.find(description, epics::get);
+        }
+
+        ArrayList<Epic> result = new ArrayList<>();
+        if (description == null) {
+            return result;
+        }
+        for (Epic epic : epics.values()) {
+            if (description.equalsIgnoreCase(epic.getDescription())) {
+                result.add(epic);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Epic> findAllEpics() {
+        List<Epic> result = new ArrayList<>();
+        for (Epic epic : epics.values()) {
+            result.add(epic);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Epic> findEpicsAfter(int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<Epic> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Epic epic : epics.tailMap(afterId, false).values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(epic);
+        }
+        return result;
+    }
+
+    @Override
+    public Epic saveEpic(Epic epic) {
+        Epic epicCopy = epic.freeze();
+        reindex(epics.put(epicCopy.getId(), epicCopy), epicCopy);
+        return epicCopy;
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        Epic epicCopy = epic.freeze();
+        Epic oldEpic = epics.replace(epicCopy.getId(), epicCopy);
+        if (oldEpic == null) {
+            throw new TaskNotFoundException(epic.getId());
+        }
+        reindex(oldEpic, epicCopy);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        Epic removed = epics.remove(id);
+        if (removed != null) {
+            unindex(removed);
+        }
+    }
+
+    @Override
+    public int[] deleteAllEpics() {
+        // The manager keeps others out while it deletes everything, so the keys are exactly what clear() removes
+        int[] ids = epics.keySet().stream().mapToInt(Integer::intValue).toArray();
+        epics.clear();
+        if (titleIndex != null) {
+            titleIndex.clear();
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.clear();
+        }
+        return ids;
+    }
+
+    private void reindex(Epic oldEpic, Epic newEpic) {
+        if (titleIndex != null) {
+            titleIndex.replace(oldEpic, newEpic);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.replace(oldEpic, newEpic);
+        }
+    }
+
+    private void unindex(Epic epic) {
+        if (titleIndex != null) {
+            titleIndex.remove(epic);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.remove(epic);
+        }
+    }
+}
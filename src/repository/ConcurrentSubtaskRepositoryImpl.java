@@ -0,0 +1,220 @@
+package repository;
+
+import exception.TaskNotFoundException;
+import model.Subtask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Thread-safe version of SubtaskRepositoryImpl. Single operations are atomic and reads never block,
+ * keeping several operations consistent is the job of the manager (see ConcurrentTaskManager).
+ * Subtasks of an epic are returned in id order.
+ */
+public class ConcurrentSubtaskRepositoryImpl implements SubtaskRepository {
+
+    // Sorted by id, so pages and findAll come in id order
+    private final ConcurrentNavigableMap<Integer, Subtask> subtasks = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Set<Integer>> subtasksByEpicId = new ConcurrentHashMap<>();
+
+    private final FieldIndex titleIndex;
+    private final FieldIndex descriptionIndex;
+
+    public ConcurrentSubtaskRepositoryImpl() {
+        this(EnumSet.allOf(IndexedField.class));
+    }
+
+    /**
+     * Only fields in indexedFields get an index, lookups by other fields scan all subtasks.
+     */
+    public ConcurrentSubtaskRepositoryImpl(Set<IndexedField> indexedFields) {
+        titleIndex = FieldIndex.create(IndexedField.TITLE, indexedFields, true);
+        descriptionIndex = FieldIndex.create(IndexedField.DESCRIPTION, indexedFields, true);
+    }
+
+    @Override
+    public Subtask findSubtaskById(int id) {
+        return subtasks.get(id);
+    }
+
+    @Override
+    public ArrayList<Subtask> findSubtaskByTitle(String title) {
+        if (titleIndex != null) {
+            return titleIndex.find(title, subtasks::get);
+        }
+
+        ArrayList<Subtask> result = new ArrayList<>();
+        if (title == null) {
+            return result;
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (title.equalsIgnoreCase(subtask.getTitle())) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ArrayList<Subtask> findSubtaskByDescription(String description) {
+        if (descriptionIndex != null) {
+            return descriptionIndex.find(description, subtasks::get);
+        }
+
+        ArrayList<Subtask> result = new ArrayList<>();
+        if (description == null) {
+            return result;
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (description.equalsIgnoreCase(subtask.getDescription())) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> findAllSubtasks() {
+        List<Subtask> result = new ArrayList<>();
+        for (Subtask subtask : subtasks.values()) {
+            result.add(subtask);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> findSubtasksAfter(int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<Subtask> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Subtask subtask : subtasks.tailMap(afterId, false).values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(subtask);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> findByEpicId(int epicId) {
+        List<Subtask> result = new ArrayList<>();
+        Set<Integer> subtaskIds = subtasksByEpicId.get(epicId);
+        if (subtaskIds == null) {
+            return result;
+        }
+        for (Integer subtaskId : subtaskIds) {
+            Subtask subtask = subtasks.get(subtaskId);
+            // Can be missing if the subtask is being deleted right now
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Subtask saveSubtask(Subtask subtask) {
+        Subtask subtaskCopy = subtask.freeze();
+        reindex(subtasks.put(subtaskCopy.getId(), subtaskCopy), subtaskCopy);
+        epicSubtasks(subtaskCopy.getEpicId()).add(subtaskCopy.getId());
+        return subtaskCopy;
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        int subtaskId = subtask.getId();
+        Subtask oldSubtask = subtasks.get(subtaskId);
+        if (oldSubtask == null) {
+            throw new TaskNotFoundException(subtaskId);
+        }
+
+        int oldEpicId = oldSubtask.getEpicId();
+        int newEpicId = subtask.getEpicId();
+        if (oldEpicId != newEpicId) {
+            epicSubtasks(newEpicId).add(subtaskId);
+            Set<Integer> oldEpicSubtasks = subtasksByEpicId.get(oldEpicId);
+            if (oldEpicSubtasks != null) {
+                oldEpicSubtasks.remove(subtaskId);
+            }
+        }
+        Subtask subtaskCopy = subtask.freeze();
+        reindex(subtasks.put(subtaskId, subtaskCopy), subtaskCopy);
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        Subtask subtask = subtasks.remove(id);
+        if (subtask != null) {
+            unindex(subtask);
+            Set<Integer> epicSubtasks = subtasksByEpicId.get(subtask.getEpicId());
+            if (epicSubtasks != null) {
+                epicSubtasks.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public int[] deleteSubtasksByEpicId(int epicId) {
+        Set<Integer> subtaskIds = subtasksByEpicId.remove(epicId);
+        if (subtaskIds == null) {
+            return new int[0];
+        }
+        int[] ids = new int[subtaskIds.size()];
+        int count = 0;
+        for (Integer id : subtaskIds) {
+            Subtask subtask = subtasks.remove(id);
+            if (subtask != null) {
+                unindex(subtask);
+                ids[count++] = id;
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    @Override
+    public int[] deleteAllSubtasks() {
+        // The manager keeps others out while it deletes everything, so the keys are exactly what clear() removes
+        int[] ids = subtasks.keySet().stream().mapToInt(Integer::intValue).toArray();
+        subtasks.clear();
+        if (titleIndex != null) {
+            titleIndex.clear();
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.clear();
+        }
+        subtasksByEpicId.clear();
+        return ids;
+    }
+
+    private Set<Integer> epicSubtasks(int epicId) {
+        return subtasksByEpicId.computeIfAbsent(epicId, k -> new ConcurrentSkipListSet<>());
+    }
+
+    private void reindex(Subtask oldSubtask, Subtask newSubtask) {
+        if (titleIndex != null) {
+            titleIndex.replace(oldSubtask, newSubtask);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.replace(oldSubtask, newSubtask);
+        }
+    }
+
+    private void unindex(Subtask subtask) {
+        if (titleIndex != null) {
+            titleIndex.remove(subtask);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.remove(subtask);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package repository;
+
+import exception.TaskNotFoundException;
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Thread-safe version of TaskRepositoryImpl. Single operations are atomic and reads never block,
+ * keeping several operations consistent is the job of the manager (see ConcurrentTaskManager).
+ */
+public class ConcurrentTaskRepositoryImpl implements TaskRepository {
+
+    // Sorted by id, so pages and findAll come in id order
+    private final ConcurrentNavigableMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+
+    private final FieldIndex titleIndex;
+    private final FieldIndex descriptionIndex;
+
+    public ConcurrentTaskRepositoryImpl() {
+        this(EnumSet.allOf(IndexedField.class));
+    }
+
+    /**
+     * Only fields in indexedFields get an index, lookups by other fields scan all tasks.
+     */
+    public ConcurrentTaskRepositoryImpl(Set<IndexedField> indexedFields) {
+        titleIndex = FieldIndex.create(IndexedField.TITLE, indexedFields, true);
+        descriptionIndex = FieldIndex.create(IndexedField.DESCRIPTION, indexedFields, true);
+    }
+
+    @Override
+    public Task findTaskById(int id) {
+        return tasks.get(id);
+    }
+
+    @Override
+    public ArrayList<Task> findTaskByTitle(String title) {
+        if (titleIndex != null) {
+            return titleIndex.find(title, tasks::get);
+        }
+
+        ArrayList<Task> result = new ArrayList<>();
+        if (title == null) {
+            return result;
+        }
+        for (Task task : tasks.values()) {
+            if (title.equalsIgnoreCase(task.getTitle())) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ArrayList<Task> findTaskByDescription(String description) {
+        if (descriptionIndex != null) {
+            return descriptionIndex.find(description, tasks::get);
+        }
+
+        ArrayList<Task> result = new ArrayList<>();
+        if (description == null) {
+            return result;
+        }
+        for (Task task : tasks.values()) {
+            if (description.equalsIgnoreCase(task.getDescription())) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> findAllTasks() {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            result.add(task);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> findTasksAfter(int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<Task> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Task task : tasks.tailMap(afterId, false).values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(task);
+        }
+        return result;
+    }
+
+    @Override
+    public Task saveTask(Task task) {
+        Task taskCopy = task.freeze();
+        reindex(tasks.put(taskCopy.getId(), taskCopy), taskCopy);
+        return taskCopy;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        Task taskCopy = task.freeze();
+        Task oldTask = tasks.replace(taskCopy.getId(), taskCopy);
+        if (oldTask == null) {
+            throw new TaskNotFoundException(task.getId());
+        }
+        reindex(oldTask, taskCopy);
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        Task removed = tasks.remove(id);
+        if (removed != null) {
+            unindex(removed);
+        }
+    }
+
+    @Override
+    public int[] deleteAllTasks() {
+        // The manager keeps others out while it deletes everything, so the keys are exactly what clear() removes
+        int[] ids = tasks.keySet().stream().mapToInt(Integer::intValue).toArray();
+        tasks.clear();
+        if (titleIndex != null) {
+            titleIndex.clear();
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.clear();
+        }
+        return ids;
+    }
+
+    private void reindex(Task oldTask, Task newTask) {
+        if (titleIndex != null) {
+            titleIndex.replace(oldTask, newTask);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.replace(oldTask, newTask);
+        }
+    }
+
+    private void unindex(Task task) {
+        if (titleIndex != null) {
+            titleIndex.remove(task);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.remove(task);
+        }
+    }
+}
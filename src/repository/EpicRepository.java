@@ -14,11 +14,20 @@ public interface EpicRepository {
 
     List<Epic> findAllEpics();
 
+    /**
+     * Cursor pagination: up to limit epics with id greater than afterId, in id order.
+     * Pass 0 for the first page and the id of the last returned epic for the next one.
+     */
+    List<Epic> findEpicsAfter(int afterId, int limit);
+
     Epic saveEpic(Epic epic);
 
     void updateEpic(Epic epic);
 
     void deleteEpic(int id);
 
-    void deleteAllEpics();
+    /**
+     * Deletes all epics and returns their ids in id order.
+     */
+    int[] deleteAllEpics();
 }
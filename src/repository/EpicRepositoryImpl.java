@@ -2,34 +2,53 @@ package repository;
 
 import exception.TaskNotFoundException;
 import model.Epic;
+import util.IntObjectMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 public class EpicRepositoryImpl implements EpicRepository {
 
-    private final Map<Integer, Epic> epics = new HashMap<>();
+    private final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    // Ids of stored epics, gives id order without sorting. Generated ids are small and dense, so it stays compact
+    private final BitSet storedIds = new BitSet();
+
+    private final FieldIndex titleIndex;
+    private final FieldIndex descriptionIndex;
+
+    public EpicRepositoryImpl() {
+        this(EnumSet.allOf(IndexedField.class));
+    }
+
+    /**
+     * Only fields in indexedFields get an index, lookups by other fields scan all epics.
+     */
+    public EpicRepositoryImpl(Set<IndexedField> indexedFields) {
+        titleIndex = FieldIndex.create(IndexedField.TITLE, indexedFields, false);
+        descriptionIndex = FieldIndex.create(IndexedField.DESCRIPTION, indexedFields, false);
+    }
 
     @Override
     public Epic findEpicById(int id) {
-        Epic epic = epics.get(id);
-        if (epic == null) {
-            return null;
-        }
-        return copyEpic(epic);
+        return epics.get(id);
     }
 
     @Override
     public ArrayList<Epic> findEpicByTitle(String title) {
+        if (titleIndex != null) {
+            return titleIndex.find(title, epics::get);
+        }
+
         ArrayList<Epic> result = new ArrayList<>();
         if (title == null) {
             return result;
         }
         for (Epic epic : epics.values()) {
             if (title.equalsIgnoreCase(epic.getTitle())) {
-                result.add(copyEpic(epic));
+                result.add(epic);
             }
         }
         return result;
@@ -37,13 +56,17 @@ public class EpicRepositoryImpl implements EpicRepository {
 
     @Override
     public ArrayList<Epic> findEpicByDescription(String description) {
+        if (descriptionIndex != null) {
+            return descriptionIndex.find(description, epics::get);
+        }
+
         ArrayList<Epic> result = new ArrayList<>();
         if (description == null) {
             return result;
         }
         for (Epic epic : epics.values()) {
             if (description.equalsIgnoreCase(epic.getDescription())) {
-                result.add(copyEpic(epic));
+                result.add(epic);
             }
         }
         return result;
@@ -51,18 +74,32 @@ public class EpicRepositoryImpl implements EpicRepository {
 
     @Override
     public List<Epic> findAllEpics() {
-        List<Epic> result = new ArrayList<>();
-        for (Epic epic : epics.values()) {
-            result.add(copyEpic(epic));
+        List<Epic> result = new ArrayList<>(epics.size());
+        for (int id = storedIds.nextSetBit(0); id >= 0; id = storedIds.nextSetBit(id + 1)) {
+            result.add(epics.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Epic> findEpicsAfter(int afterId, int limit) {
+        checkLimit(limit);
+        List<Epic> result = new ArrayList<>(Math.min(limit, epics.size()));
+        int id = storedIds.nextSetBit(Math.max(0, afterId + 1));
+        while (id >= 0 && result.size() < limit) {
+            result.add(epics.get(id));
+            id = storedIds.nextSetBit(id + 1);
         }
         return result;
     }
 
     @Override
     public Epic saveEpic(Epic epic) {
-        Epic epicCopy = copyEpic(epic);
-        epics.put(epicCopy.getId(), epicCopy);
-        return copyEpic(epicCopy);
+        Epic epicCopy = epic.freeze();
+        checkId(epicCopy.getId());
+        reindex(epics.put(epicCopy.getId(), epicCopy), epicCopy);
+        storedIds.set(epicCopy.getId());
+        return epicCopy;
     }
 
     @Override
@@ -70,28 +107,64 @@ public class EpicRepositoryImpl implements EpicRepository {
         if (!epics.containsKey(epic.getId())) {
             throw new TaskNotFoundException(epic.getId());
         }
-        epics.put(epic.getId(), copyEpic(epic));
+        Epic epicCopy = epic.freeze();
+        reindex(epics.put(epicCopy.getId(), epicCopy), epicCopy);
     }
 
     @Override
     public void deleteEpic(int id) {
-        epics.remove(id);
+        Epic removed = epics.remove(id);
+        if (removed != null) {
+            storedIds.clear(id);
+            unindex(removed);
+        }
         // Note: TaskManager will handle deleting the subtasks, not this class.
         // This is because connecting tasks is business logic, not storage.
     }
 
     @Override
-    public void deleteAllEpics() {
+    public int[] deleteAllEpics() {
+        int[] ids = storedIds.stream().toArray();
         epics.clear();
+        storedIds.clear();
+        if (titleIndex != null) {
+            titleIndex.clear();
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.clear();
+        }
         // Note: TaskManager will delete the subtasks too.
         // Repositories should only work with their own data.
+        return ids;
+    }
+
+    private void reindex(Epic oldEpic, Epic newEpic) {
+        if (titleIndex != null) {
+            titleIndex.replace(oldEpic, newEpic);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.replace(oldEpic, newEpic);
+        }
     }
 
-    private Epic copyEpic(Epic original) {
-        Epic copy = new Epic(original.getTitle(), original.getDescription());
-        copy.setId(original.getId());
-        copy.updateStatusFromTaskManager(original.getStatus());
-        copy.setSubtaskIds(new ArrayList<>(original.getSubtaskIds()));
-        return copy;
+    private void unindex(Epic epic) {
+        if (titleIndex != null) {
+            titleIndex.remove(epic);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.remove(epic);
+        }
+    }
+
+    private static void checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id must not be negative: " + id);
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package repository;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Case-insensitive index from a field value to ids of tasks having it.
+ * Matches the same values as String.equalsIgnoreCase, tasks with a null value are not indexed.
+ * The concurrent variant can be changed and read from different threads, but a reader can briefly
+ * see a task under its old value, so find() checks the value of every task it returns.
+ */
+class FieldIndex {
+
+    private final IndexedField field;
+    private final Map<String, Set<Integer>> idsByKey;
+    private final boolean concurrent;
+
+    private FieldIndex(IndexedField field, boolean concurrent) {
+        this.field = field;
+        this.concurrent = concurrent;
+        this.idsByKey = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * Returns null if the field is not in indexedFields, repositories scan all tasks then.
+     */
+    static FieldIndex create(IndexedField field, Set<IndexedField> indexedFields, boolean concurrent) {
+        return indexedFields.contains(field) ? new FieldIndex(field, concurrent) : null;
+    }
+
+    void add(Task task) {
+        String key = key(field.valueOf(task));
+        if (key == null) {
+            return;
+        }
+        idsByKey.compute(key, (k, ids) -> {
+            if (ids == null) {
+                ids = concurrent ? ConcurrentHashMap.newKeySet() : new LinkedHashSet<>();
+            }
+            ids.add(task.getId());
+            return ids;
+        });
+    }
+
+    void remove(Task task) {
+        String key = key(field.valueOf(task));
+        if (key == null) {
+            return;
+        }
+        idsByKey.computeIfPresent(key, (k, ids) -> {
+            ids.remove(task.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    void replace(Task oldTask, Task newTask) {
+        if (oldTask != null && sameKey(field.valueOf(oldTask), field.valueOf(newTask))) {
+            return;
+        }
+        if (oldTask != null) {
+            remove(oldTask);
+        }
+        add(newTask);
+    }
+
+    void clear() {
+        idsByKey.clear();
+    }
+
+    <T extends Task> ArrayList<T> find(String value, IntFunction<T> taskById) {
+        ArrayList<T> result = new ArrayList<>();
+        String key = key(value);
+        Set<Integer> ids = key != null ? idsByKey.get(key) : null;
+        if (ids == null) {
+            return result;
+        }
+        for (int id : ids) {
+            T task = taskById.apply(id);
+            if (task != null && value.equalsIgnoreCase(field.valueOf(task))) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private static boolean sameKey(String first, String second) {
+        return first == null ? second == null : first.equalsIgnoreCase(second);
+    }
+
+    // Same folding as String.equalsIgnoreCase: two chars are equal if their upper cases have equal lower cases
+    static String key(String value) {
+        if (value == null) {
+            return null;
+        }
+        char[] chars = new char[value.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,16 @@
+package repository;
+
+import model.Task;
+
+/**
+ * Text fields that repositories can keep a case-insensitive index for,
+ * so findBy* lookups don't scan every stored task.
+ */
+public enum IndexedField {
+    TITLE,
+    DESCRIPTION;
+
+    String valueOf(Task task) {
+        return this == TITLE ? task.getTitle() : task.getDescription();
+    }
+}
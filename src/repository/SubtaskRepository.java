@@ -15,6 +15,12 @@ public interface SubtaskRepository {
 
     List<Subtask> findAllSubtasks();
 
+    /**
+     * Cursor pagination: up to limit subtasks with id greater than afterId, in id order.
+     * Pass 0 for the first page and the id of the last returned subtask for the next one.
+     */
+    List<Subtask> findSubtasksAfter(int afterId, int limit);
+
     List<Subtask> findByEpicId(int epicId);
 
     Subtask saveSubtask(Subtask subtask);
@@ -23,6 +29,14 @@ public interface SubtaskRepository {
 
     void deleteSubtask(int id);
 
-    void deleteAllSubtasks();
+    /**
+     * Deletes all subtasks of the epic in one go and returns their ids in the order of findByEpicId.
+     */
+    int[] deleteSubtasksByEpicId(int epicId);
+
+    /**
+     * Deletes all subtasks and returns their ids in id order.
+     */
+    int[] deleteAllSubtasks();
 
 }
@@ -2,28 +2,49 @@ package repository;
 
 import exception.TaskNotFoundException;
 import model.Subtask;
+import util.IntObjectMap;
+import util.IntOrderedSet;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.PrimitiveIterator;
+import java.util.Set;
 
 public class SubtaskRepositoryImpl implements SubtaskRepository {
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
-    private final Map<Integer, List<Integer>> subtasksByEpicId = new HashMap<>();
+    private final IntObjectMap<Subtask> subtasks = new IntObjectMap<>();
+    // Ids of stored subtasks, gives id order without sorting. Generated ids are small and dense, so it stays compact
+    private final BitSet storedIds = new BitSet();
+    // Subtask ids of every epic in the order they were added, moves and deletes don't scan
+    private final IntObjectMap<IntOrderedSet> subtasksByEpicId = new IntObjectMap<>();
+
+    private final FieldIndex titleIndex;
+    private final FieldIndex descriptionIndex;
+
+    public SubtaskRepositoryImpl() {
+        this(EnumSet.allOf(IndexedField.class));
+    }
+
+    /**
+     * Only fields in indexedFields get an index, lookups by other fields scan all subtasks.
+     */
+    public SubtaskRepositoryImpl(Set<IndexedField> indexedFields) {
+        titleIndex = FieldIndex.create(IndexedField.TITLE, indexedFields, false);
+        descriptionIndex = FieldIndex.create(IndexedField.DESCRIPTION, indexedFields, false);
+    }
 
     @Override
     public Subtask findSubtaskById(int id) {
-        Subtask subtask = subtasks.get(id);
-        if (subtask == null) {
-            return null;
-        }
-        return copySubtask(subtask);
+        return subtasks.get(id);
     }
 
     @Override
     public ArrayList<Subtask> findSubtaskByTitle(String title) {
+        if (titleIndex != null) {
+            return titleIndex.find(title, subtasks::get);
+        }
+
         ArrayList<Subtask> result = new ArrayList<>();
 
         if (title == null) {
@@ -32,7 +53,7 @@ public class SubtaskRepositoryImpl implements SubtaskRepository {
 
         for (Subtask subtask : subtasks.values()) {
             if (title.equalsIgnoreCase(subtask.getTitle())) {
-                result.add(copySubtask(subtask));
+                result.add(subtask);
             }
         }
         return result;
@@ -40,6 +61,10 @@ public class SubtaskRepositoryImpl implements SubtaskRepository {
 
     @Override
     public ArrayList<Subtask> findSubtaskByDescription(String description) {
+        if (descriptionIndex != null) {
+            return descriptionIndex.find(description, subtasks::get);
+        }
+
         ArrayList<Subtask> result = new ArrayList<>();
 
         if (description == null) {
@@ -48,7 +73,7 @@ public class SubtaskRepositoryImpl implements SubtaskRepository {
 
         for (Subtask subtask : subtasks.values()) {
             if (description.equalsIgnoreCase(subtask.getDescription())) {
-                result.add(copySubtask(subtask));
+                result.add(subtask);
             }
         }
         return result;
@@ -56,20 +81,36 @@ public class SubtaskRepositoryImpl implements SubtaskRepository {
 
     @Override
     public List<Subtask> findAllSubtasks() {
-        List<Subtask> result = new ArrayList<>();
-        for (Subtask subtask : subtasks.values()) {
-            result.add(copySubtask(subtask));
+        List<Subtask> result = new ArrayList<>(subtasks.size());
+        for (int id = storedIds.nextSetBit(0); id >= 0; id = storedIds.nextSetBit(id + 1)) {
+            result.add(subtasks.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> findSubtasksAfter(int afterId, int limit) {
+        checkLimit(limit);
+        List<Subtask> result = new ArrayList<>(Math.min(limit, subtasks.size()));
+        int id = storedIds.nextSetBit(Math.max(0, afterId + 1));
+        while (id >= 0 && result.size() < limit) {
+            result.add(subtasks.get(id));
+            id = storedIds.nextSetBit(id + 1);
         }
         return result;
     }
 
     @Override
     public List<Subtask> findByEpicId(int epicId) {
-        List<Integer> subtaskIds = subtasksByEpicId.getOrDefault(epicId, new ArrayList<>());
-        return subtaskIds.stream()
-                .map(subtasks::get)
-                .map(this::copySubtask)
-                .collect(Collectors.toList());
+        IntOrderedSet subtaskIds = subtasksByEpicId.get(epicId);
+        if (subtaskIds == null) {
+            return new ArrayList<>();
+        }
+        List<Subtask> result = new ArrayList<>(subtaskIds.size());
+        for (PrimitiveIterator.OfInt it = subtaskIds.iterator(); it.hasNext(); ) {
+            result.add(subtasks.get(it.nextInt()));
+        }
+        return result;
     }
 
     @Override
@@ -77,12 +118,14 @@ public class SubtaskRepositoryImpl implements SubtaskRepository {
         int subtaskId = subtask.getId();
         int epicId = subtask.getEpicId();
 
-        Subtask subtaskCopy = copySubtask(subtask);
-        subtasks.put(subtaskId, subtaskCopy);
+        Subtask subtaskCopy = subtask.freeze();
+        checkId(subtaskId);
+        reindex(subtasks.put(subtaskId, subtaskCopy), subtaskCopy);
+        storedIds.set(subtaskId);
 
-        subtasksByEpicId.computeIfAbsent(epicId, k -> new ArrayList<>()).add(subtaskId);
+        epicSubtaskIds(epicId).add(subtaskId);
 
-        return copySubtask(subtaskCopy);
+        return subtaskCopy;
     }
 
     @Override
@@ -98,15 +141,13 @@ public class SubtaskRepositoryImpl implements SubtaskRepository {
         int oldEpicId = oldSubtask.getEpicId();
 
         if (oldEpicId != newEpicId) {
-            List<Integer> oldEpicSubtasks = subtasksByEpicId.get(oldEpicId);
-            if (oldEpicSubtasks != null) {
-                oldEpicSubtasks.remove(Integer.valueOf(subtaskId));
-            }
+            removeFromEpic(oldEpicId, subtaskId);
 
-            subtasksByEpicId.computeIfAbsent(newEpicId, k -> new ArrayList<>()).add(subtaskId);
+            epicSubtaskIds(newEpicId).add(subtaskId);
         }
 
-        subtasks.put(subtaskId, copySubtask(subtask));
+        Subtask subtaskCopy = subtask.freeze();
+        reindex(subtasks.put(subtaskId, subtaskCopy), subtaskCopy);
     }
 
     @Override
@@ -115,21 +156,86 @@ public class SubtaskRepositoryImpl implements SubtaskRepository {
         if (subtask != null) {
             int epicId = subtask.getEpicId();
             subtasks.remove(id);
+            storedIds.clear(id);
+            unindex(subtask);
 
-            List<Integer> epicSubtasks = subtasksByEpicId.get(epicId);
-            if (epicSubtasks != null) {
-                epicSubtasks.remove(Integer.valueOf(id));
-            }
+            removeFromEpic(epicId, id);
         }
     }
 
     @Override
-    public void deleteAllSubtasks() {
+    public int[] deleteSubtasksByEpicId(int epicId) {
+        IntOrderedSet subtaskIds = subtasksByEpicId.remove(epicId);
+        if (subtaskIds == null) {
+            return new int[0];
+        }
+        int[] ids = subtaskIds.toArray();
+        for (int id : ids) {
+            unindex(subtasks.remove(id));
+            storedIds.clear(id);
+        }
+        return ids;
+    }
+
+    @Override
+    public int[] deleteAllSubtasks() {
+        int[] ids = storedIds.stream().toArray();
         subtasks.clear();
+        storedIds.clear();
+        if (titleIndex != null) {
+            titleIndex.clear();
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.clear();
+        }
         subtasksByEpicId.clear();
+        return ids;
+    }
+
+    private IntOrderedSet epicSubtaskIds(int epicId) {
+        IntOrderedSet subtaskIds = subtasksByEpicId.get(epicId);
+        if (subtaskIds == null) {
+            subtaskIds = new IntOrderedSet();
+            subtasksByEpicId.put(epicId, subtaskIds);
+        }
+        return subtaskIds;
+    }
+
+    private void removeFromEpic(int epicId, int subtaskId) {
+        IntOrderedSet subtaskIds = subtasksByEpicId.get(epicId);
+        if (subtaskIds != null && subtaskIds.remove(subtaskId) && subtaskIds.isEmpty()) {
+            // Don't keep an empty set for every epic that ever had subtasks
+            subtasksByEpicId.remove(epicId);
+        }
     }
 
-    private Subtask copySubtask(Subtask original) {
-        return original.copy();
+    private void reindex(Subtask oldSubtask, Subtask newSubtask) {
+        if (titleIndex != null) {
+            titleIndex.replace(oldSubtask, newSubtask);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.replace(oldSubtask, newSubtask);
+        }
+    }
+
+    private void unindex(Subtask subtask) {
+        if (titleIndex != null) {
+            titleIndex.remove(subtask);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.remove(subtask);
+        }
+    }
+
+    private static void checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id must not be negative: " + id);
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
     }
-}
\ No newline at end of file
+}
@@ -15,12 +15,21 @@ public interface TaskRepository {
 
     List<Task> findAllTasks();
 
+    /**
+     * Cursor pagination: up to limit tasks with id greater than afterId, in id order.
+     * Pass 0 for the first page and the id of the last returned task for the next one.
+     */
+    List<Task> findTasksAfter(int afterId, int limit);
+
     Task saveTask(Task task);
 
     void updateTask(Task task);
 
     void deleteTask(int id);
 
-    void deleteAllTasks();
+    /**
+     * Deletes all tasks and returns their ids in id order.
+     */
+    int[] deleteAllTasks();
 
 }
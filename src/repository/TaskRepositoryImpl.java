@@ -2,27 +2,46 @@ package repository;
 
 import exception.TaskNotFoundException;
 import model.Task;
+import util.IntObjectMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 public class TaskRepositoryImpl implements TaskRepository {
 
-    private final Map<Integer, Task> tasks = new HashMap<>();
+    private final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    // Ids of stored tasks, gives id order without sorting. Generated ids are small and dense, so it stays compact
+    private final BitSet storedIds = new BitSet();
+
+    private final FieldIndex titleIndex;
+    private final FieldIndex descriptionIndex;
+
+    public TaskRepositoryImpl() {
+        this(EnumSet.allOf(IndexedField.class));
+    }
+
+    /**
+     * Only fields in indexedFields get an index, lookups by other fields scan all tasks.
+     */
+    public TaskRepositoryImpl(Set<IndexedField> indexedFields) {
+        titleIndex = FieldIndex.create(IndexedField.TITLE, indexedFields, false);
+        descriptionIndex = FieldIndex.create(IndexedField.DESCRIPTION, indexedFields, false);
+    }
 
     @Override
     public Task findTaskById(int id) {
-        Task task = tasks.get(id);
-        if (task == null) {
-            return null;
-        }
-        return copyTask(task);
+        return tasks.get(id);
     }
 
     @Override
     public ArrayList<Task> findTaskByTitle(String title) {
+        if (titleIndex != null) {
+            return titleIndex.find(title, tasks::get);
+        }
+
         ArrayList<Task> result = new ArrayList<>();
 
         if (title == null) {
@@ -31,7 +50,7 @@ public class TaskRepositoryImpl implements TaskRepository {
 
         for (Task task : tasks.values()) {
             if (title.equalsIgnoreCase(task.getTitle())) {
-                result.add(copyTask(task));
+                result.add(task);
             }
         }
 
@@ -40,6 +59,10 @@ public class TaskRepositoryImpl implements TaskRepository {
 
     @Override
     public ArrayList<Task> findTaskByDescription(String description) {
+        if (descriptionIndex != null) {
+            return descriptionIndex.find(description, tasks::get);
+        }
+
         ArrayList<Task> result = new ArrayList<>();
 
         if (description == null) {
@@ -48,7 +71,7 @@ public class TaskRepositoryImpl implements TaskRepository {
 
         for (Task task : tasks.values()) {
             if (description.equalsIgnoreCase(task.getDescription())) {
-                result.add(copyTask(task));
+                result.add(task);
             }
         }
 
@@ -57,18 +80,32 @@ public class TaskRepositoryImpl implements TaskRepository {
 
     @Override
     public List<Task> findAllTasks() {
-        List<Task> result = new ArrayList<>();
-        for (Task task : tasks.values()) {
-            result.add(copyTask(task));
+        List<Task> result = new ArrayList<>(tasks.size());
+        for (int id = storedIds.nextSetBit(0); id >= 0; id = storedIds.nextSetBit(id + 1)) {
+            result.add(tasks.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> findTasksAfter(int afterId, int limit) {
+        checkLimit(limit);
+        List<Task> result = new ArrayList<>(Math.min(limit, tasks.size()));
+        int id = storedIds.nextSetBit(Math.max(0, afterId + 1));
+        while (id >= 0 && result.size() < limit) {
+            result.add(tasks.get(id));
+            id = storedIds.nextSetBit(id + 1);
         }
         return result;
     }
 
     @Override
     public Task saveTask(Task task) {
-        Task taskCopy = copyTask(task);
-        tasks.put(taskCopy.getId(), taskCopy);
-        return copyTask(taskCopy);
+        Task taskCopy = freezeTask(task);
+        checkId(taskCopy.getId());
+        reindex(tasks.put(taskCopy.getId(), taskCopy), taskCopy);
+        storedIds.set(taskCopy.getId());
+        return taskCopy;
     }
 
     @Override
@@ -76,23 +113,71 @@ public class TaskRepositoryImpl implements TaskRepository {
         if (!tasks.containsKey(task.getId())) {
             throw new TaskNotFoundException(task.getId());
         }
-        tasks.put(task.getId(), copyTask(task));
+        Task taskCopy = freezeTask(task);
+        reindex(tasks.put(taskCopy.getId(), taskCopy), taskCopy);
     }
 
     @Override
     public void deleteTask(int id) {
-        tasks.remove(id);
+        Task removed = tasks.remove(id);
+        if (removed != null) {
+            storedIds.clear(id);
+            unindex(removed);
+        }
     }
 
     @Override
-    public void deleteAllTasks() {
+    public int[] deleteAllTasks() {
+        int[] ids = storedIds.stream().toArray();
         tasks.clear();
+        storedIds.clear();
+        if (titleIndex != null) {
+            titleIndex.clear();
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.clear();
+        }
+        return ids;
     }
 
-    private Task copyTask(Task original) {
-        Task copy = new Task(original.getTitle(), original.getDescription());
+    // Only the Task part is stored, even if a subclass is passed in
+    private Task freezeTask(Task original) {
+        if (original.getClass() == Task.class) {
+            return original.freeze();
+        }
+        Task copy = new Task(original.getTitle(), original.getDescription(), original.getStatus(),
+                original.getStartTime(), original.getDuration());
         copy.setId(original.getId());
-        copy.setStatus(original.getStatus());
-        return copy;
+        return copy.freeze();
+    }
+
+    private void reindex(Task oldTask, Task newTask) {
+        if (titleIndex != null) {
+            titleIndex.replace(oldTask, newTask);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.replace(oldTask, newTask);
+        }
+    }
+
+    private void unindex(Task task) {
+        if (titleIndex != null) {
+            titleIndex.remove(task);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.remove(task);
+        }
+    }
+
+    private static void checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id must not be negative: " + id);
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package repository;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Previous versions of changed records, kept only while a snapshot may still need them.
+ *
+ * The repository always holds the newest version. Before a record is changed its old value is pushed here
+ * with the version of the change, so a reader at snapshot s takes the current value and rolls it back over
+ * every newer change. Stored values are frozen, so the old versions are the same objects readers got before.
+ *
+ * Writers push before changing the repository and readers look at the repository before looking here,
+ * that way a reader that saw the new value always finds the entry that undoes it.
+ */
+final class UndoLog<T extends Task> {
+
+    private static final class Version<T> {
+        final long version;
+        // null if the record didn't exist before this change
+        final T previous;
+        Version<T> older;
+
+        Version(long version, T previous, Version<T> older) {
+            this.version = version;
+            this.previous = previous;
+            this.older = older;
+        }
+    }
+
+    private final VersionClock clock;
+    private final Map<Integer, Version<T>> versions = new ConcurrentHashMap<>();
+
+    UndoLog(VersionClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Remembers the value a record had before the change that is about to be made.
+     * Writers of one record must not run at the same time, the manager makes sure of that.
+     */
+    void record(int id, T previous) {
+        long version = clock.writeVersion();
+        Version<T> head = versions.get(id);
+        if (head != null && head.version == version) {
+            // Changed again by the same operation, snapshots need only the value from before it
+            return;
+        }
+        versions.put(id, new Version<>(version, previous, trim(head, clock.oldestOpenSnapshot())));
+    }
+
+    /**
+     * Value of the record at the snapshot, current is what the repository holds now.
+     */
+    T resolve(int id, T current, long snapshot) {
+        T value = current;
+        for (Version<T> node = versions.get(id); node != null && node.version > snapshot; node = node.older) {
+            value = node.previous;
+        }
+        return value;
+    }
+
+    /**
+     * All records at the snapshot in id order, current is everything the repository holds now (in id order).
+     */
+    List<T> resolveAll(List<T> current, long snapshot) {
+        List<T> result = new ArrayList<>(current.size());
+        for (T task : current) {
+            T value = resolve(task.getId(), task, snapshot);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+
+        // Records deleted after the snapshot are not in the repository any more
+        boolean added = false;
+        for (Map.Entry<Integer, Version<T>> entry : versions.entrySet()) {
+            if (entry.getValue().version <= snapshot || containsId(current, entry.getKey())) {
+                continue;
+            }
+            T value = resolve(entry.getKey(), null, snapshot);
+            if (value != null) {
+                result.add(value);
+                added = true;
+            }
+        }
+        if (added) {
+            result.sort(Comparator.comparingInt(Task::getId));
+        }
+        return result;
+    }
+
+    /**
+     * Drops versions no open snapshot can see. Called by readers when a snapshot is closed.
+     */
+    void prune() {
+        long oldest = clock.reclaimableUpTo();
+        for (Map.Entry<Integer, Version<T>> entry : versions.entrySet()) {
+            Version<T> head = entry.getValue();
+            if (trim(head, oldest) == null) {
+                versions.remove(entry.getKey(), head);
+            }
+        }
+    }
+
+    int size() {
+        return versions.size();
+    }
+
+    // Cuts off the versions that are not newer than oldest, returns what is left of the chain
+    private static <T> Version<T> trim(Version<T> head, long oldest) {
+        if (head == null || head.version <= oldest) {
+            return null;
+        }
+        Version<T> node = head;
+        while (node.older != null && node.older.version > oldest) {
+            node = node.older;
+        }
+        node.older = null;
+        return head;
+    }
+
+    private static boolean containsId(List<? extends Task> tasks, int id) {
+        // current is in id order
+        int low = 0;
+        int high = tasks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = tasks.get(middle).getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+}
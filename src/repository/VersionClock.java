@@ -0,0 +1,172 @@
+package repository;
+
+/**
+ * Version numbers for snapshot reads, shared by the Versioned*Repository decorators of one manager.
+ *
+ * A write operation that can run at the same time as openSnapshot() is wrapped in beginWrite() / endWrite(),
+ * every change inside gets the version of the operation, so a snapshot sees either all of it or nothing.
+ * Changes made outside of such a bracket get a version of their own, which is enough when writes and
+ * openSnapshot() never run at the same time (a single-threaded or fully synchronized manager).
+ *
+ * openSnapshot() waits for the operations that already have a version, writers never wait for readers.
+ * While no snapshot is open nothing is recorded at all.
+ */
+public class VersionClock {
+
+    private static final class WriteScope {
+        long version;
+        int depth;
+    }
+
+    private final ThreadLocal<WriteScope> writeScope = ThreadLocal.withInitial(WriteScope::new);
+
+    private volatile int openSnapshots;
+    private volatile long oldestOpenSnapshot = Long.MAX_VALUE;
+
+    // guarded by this
+    private long lastVersion;
+    private long[] inFlight = new long[8];
+    private int inFlightSize;
+    private long[] snapshots = new long[8];
+    private int snapshotCount;
+
+    /**
+     * Starts a write operation. Nested calls on the same thread join the outer operation.
+     */
+    public void beginWrite() {
+        WriteScope scope = writeScope.get();
+        if (scope.depth++ > 0) {
+            return;
+        }
+        synchronized (this) {
+            scope.version = ++lastVersion;
+            inFlight = append(inFlight, inFlightSize++, scope.version);
+        }
+    }
+
+    public void endWrite() {
+        WriteScope scope = writeScope.get();
+        if (scope.depth == 0) {
+            throw new IllegalStateException("endWrite() without beginWrite()");
+        }
+        if (--scope.depth > 0) {
+            return;
+        }
+        synchronized (this) {
+            inFlightSize = removeValue(inFlight, inFlightSize, scope.version);
+            if (openSnapshots > 0) {
+                // Somebody may be waiting in openSnapshot()
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Registers a snapshot and returns its version: it sees every change with this version or lower.
+     * Must be given back with closeSnapshot().
+     */
+    public synchronized long openSnapshot() {
+        if (writeScope.get().depth > 0) {
+            throw new IllegalStateException("Cannot open a snapshot inside a write operation");
+        }
+        long version = lastVersion;
+        snapshots = append(snapshots, snapshotCount++, version);
+        openSnapshots = snapshotCount;
+        oldestOpenSnapshot = Math.min(oldestOpenSnapshot, version);
+
+        // Operations started from now on have a newer version and record what they change.
+        // The ones already running may not record anything, so let them finish first.
+        boolean interrupted = false;
+        while (hasInFlightUpTo(version)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return version;
+    }
+
+    public synchronized void closeSnapshot(long version) {
+        int count = removeValue(snapshots, snapshotCount, version);
+        if (count == snapshotCount) {
+            throw new IllegalStateException("Snapshot " + version + " is not open");
+        }
+        snapshotCount = count;
+        openSnapshots = count;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            oldest = Math.min(oldest, snapshots[i]);
+        }
+        oldestOpenSnapshot = oldest;
+    }
+
+    /**
+     * True while at least one snapshot is open, only then changes have to be recorded.
+     */
+    public boolean isRecording() {
+        return openSnapshots > 0;
+    }
+
+    /**
+     * Version of the change being made now.
+     */
+    long writeVersion() {
+        WriteScope scope = writeScope.get();
+        if (scope.depth > 0) {
+            return scope.version;
+        }
+        synchronized (this) {
+            return ++lastVersion;
+        }
+    }
+
+    /**
+     * Recorded versions up to this one can't be seen by any open snapshot. Long.MAX_VALUE when none is open.
+     */
+    long oldestOpenSnapshot() {
+        return oldestOpenSnapshot;
+    }
+
+    /**
+     * Recorded versions up to this one are not needed by open snapshots nor by ones opened later.
+     */
+    synchronized long reclaimableUpTo() {
+        // A snapshot opened later gets at least lastVersion
+        return snapshotCount == 0 ? lastVersion : oldestOpenSnapshot;
+    }
+
+    // Must be called with the monitor held
+    private boolean hasInFlightUpTo(long version) {
+        for (int i = 0; i < inFlightSize; i++) {
+            if (inFlight[i] <= version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] append(long[] values, int size, long value) {
+        if (size == values.length) {
+            long[] grown = new long[size * 2];
+            System.arraycopy(values, 0, grown, 0, size);
+            values = grown;
+        }
+        values[size] = value;
+        return values;
+    }
+
+    // Removes one occurrence, order doesn't matter. Returns the new size.
+    private static int removeValue(long[] values, int size, long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                values[i] = values[size - 1];
+                return size - 1;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,112 @@
+package repository;
+
+import model.Epic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot reads for an EpicRepository, works like VersionedTaskRepository.
+ */
+public class VersionedEpicRepository implements EpicRepository {
+
+    private final EpicRepository delegate;
+    private final VersionClock clock;
+    private final UndoLog<Epic> undoLog;
+
+    public VersionedEpicRepository(EpicRepository delegate, VersionClock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.undoLog = new UndoLog<>(clock);
+    }
+
+    /**
+     * The epic as it was at the snapshot version (see VersionClock.openSnapshot()), null if it didn't exist.
+     */
+    public Epic findEpicAt(int id, long snapshot) {
+        return undoLog.resolve(id, delegate.findEpicById(id), snapshot);
+    }
+
+    /**
+     * All epics as they were at the snapshot version, in id order.
+     */
+    public List<Epic> findAllEpicsAt(long snapshot) {
+        return undoLog.resolveAll(delegate.findAllEpics(), snapshot);
+    }
+
+    /**
+     * Forgets old versions that no open snapshot needs any more.
+     */
+    public void pruneVersions() {
+        undoLog.prune();
+    }
+
+    /**
+     * Number of records that have old versions kept for open snapshots.
+     */
+    public int retainedVersionCount() {
+        return undoLog.size();
+    }
+
+    @Override
+    public Epic findEpicById(int id) {
+        return delegate.findEpicById(id);
+    }
+
+    @Override
+    public ArrayList<Epic> findEpicByTitle(String title) {
+        return delegate.findEpicByTitle(title);
+    }
+
+    @Override
+    public ArrayList<Epic> findEpicByDescription(String description) {
+        return delegate.findEpicByDescription(description);
+    }
+
+    @Override
+    public List<Epic> findAllEpics() {
+        return delegate.findAllEpics();
+    }
+
+    @Override
+    public List<Epic> findEpicsAfter(int afterId, int limit) {
+        return delegate.findEpicsAfter(afterId, limit);
+    }
+
+    @Override
+    public Epic saveEpic(Epic epic) {
+        if (clock.isRecording()) {
+            undoLog.record(epic.getId(), delegate.findEpicById(epic.getId()));
+        }
+        return delegate.saveEpic(epic);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (clock.isRecording()) {
+            undoLog.record(epic.getId(), delegate.findEpicById(epic.getId()));
+        }
+        delegate.updateEpic(epic);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        if (clock.isRecording()) {
+            Epic oldEpic = delegate.findEpicById(id);
+            if (oldEpic != null) {
+                undoLog.record(id, oldEpic);
+            }
+        }
+        delegate.deleteEpic(id);
+    }
+
+    @Override
+    public int[] deleteAllEpics() {
+        if (clock.isRecording()) {
+            for (Epic epic : delegate.findAllEpics()) {
+                undoLog.record(epic.getId(), epic);
+            }
+        }
+        return delegate.deleteAllEpics();
+    }
+}
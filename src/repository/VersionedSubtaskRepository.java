@@ -0,0 +1,127 @@
+package repository;
+
+import model.Subtask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot reads for a SubtaskRepository, works like VersionedTaskRepository.
+ */
+public class VersionedSubtaskRepository implements SubtaskRepository {
+
+    private final SubtaskRepository delegate;
+    private final VersionClock clock;
+    private final UndoLog<Subtask> undoLog;
+
+    public VersionedSubtaskRepository(SubtaskRepository delegate, VersionClock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.undoLog = new UndoLog<>(clock);
+    }
+
+    /**
+     * The subtask as it was at the snapshot version (see VersionClock.openSnapshot()), null if it didn't exist.
+     */
+    public Subtask findSubtaskAt(int id, long snapshot) {
+        return undoLog.resolve(id, delegate.findSubtaskById(id), snapshot);
+    }
+
+    /**
+     * All subtasks as they were at the snapshot version, in id order.
+     */
+    public List<Subtask> findAllSubtasksAt(long snapshot) {
+        return undoLog.resolveAll(delegate.findAllSubtasks(), snapshot);
+    }
+
+    /**
+     * Forgets old versions that no open snapshot needs any more.
+     */
+    public void pruneVersions() {
+        undoLog.prune();
+    }
+
+    /**
+     * Number of records that have old versions kept for open snapshots.
+     */
+    public int retainedVersionCount() {
+        return undoLog.size();
+    }
+
+    @Override
+    public Subtask findSubtaskById(int id) {
+        return delegate.findSubtaskById(id);
+    }
+
+    @Override
+    public ArrayList<Subtask> findSubtaskByTitle(String title) {
+        return delegate.findSubtaskByTitle(title);
+    }
+
+    @Override
+    public ArrayList<Subtask> findSubtaskByDescription(String description) {
+        return delegate.findSubtaskByDescription(description);
+    }
+
+    @Override
+    public List<Subtask> findAllSubtasks() {
+        return delegate.findAllSubtasks();
+    }
+
+    @Override
+    public List<Subtask> findSubtasksAfter(int afterId, int limit) {
+        return delegate.findSubtasksAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> findByEpicId(int epicId) {
+        return delegate.findByEpicId(epicId);
+    }
+
+    @Override
+    public Subtask saveSubtask(Subtask subtask) {
+        if (clock.isRecording()) {
+            undoLog.record(subtask.getId(), delegate.findSubtaskById(subtask.getId()));
+        }
+        return delegate.saveSubtask(subtask);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (clock.isRecording()) {
+            undoLog.record(subtask.getId(), delegate.findSubtaskById(subtask.getId()));
+        }
+        delegate.updateSubtask(subtask);
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        if (clock.isRecording()) {
+            Subtask oldSubtask = delegate.findSubtaskById(id);
+            if (oldSubtask != null) {
+                undoLog.record(id, oldSubtask);
+            }
+        }
+        delegate.deleteSubtask(id);
+    }
+
+    @Override
+    public int[] deleteSubtasksByEpicId(int epicId) {
+        if (clock.isRecording()) {
+            for (Subtask subtask : delegate.findByEpicId(epicId)) {
+                undoLog.record(subtask.getId(), subtask);
+            }
+        }
+        return delegate.deleteSubtasksByEpicId(epicId);
+    }
+
+    @Override
+    public int[] deleteAllSubtasks() {
+        if (clock.isRecording()) {
+            for (Subtask subtask : delegate.findAllSubtasks()) {
+                undoLog.record(subtask.getId(), subtask);
+            }
+        }
+        return delegate.deleteAllSubtasks();
+    }
+}
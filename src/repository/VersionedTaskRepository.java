@@ -0,0 +1,116 @@
+package repository;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds snapshot reads to any TaskRepository.
+ *
+ * While a snapshot is open every change first saves the value it replaces, so findTaskAt / findAllTasksAt
+ * can roll the current state back to the snapshot. With no snapshot open writes only pay for one volatile read.
+ * Snapshot reads can run next to writers if the wrapped repository allows concurrent reads.
+ */
+public class VersionedTaskRepository implements TaskRepository {
+
+    private final TaskRepository delegate;
+    private final VersionClock clock;
+    private final UndoLog<Task> undoLog;
+
+    public VersionedTaskRepository(TaskRepository delegate, VersionClock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.undoLog = new UndoLog<>(clock);
+    }
+
+    /**
+     * The task as it was at the snapshot version (see VersionClock.openSnapshot()), null if it didn't exist.
+     */
+    public Task findTaskAt(int id, long snapshot) {
+        return undoLog.resolve(id, delegate.findTaskById(id), snapshot);
+    }
+
+    /**
+     * All tasks as they were at the snapshot version, in id order.
+     */
+    public List<Task> findAllTasksAt(long snapshot) {
+        return undoLog.resolveAll(delegate.findAllTasks(), snapshot);
+    }
+
+    /**
+     * Forgets old versions that no open snapshot needs any more.
+     */
+    public void pruneVersions() {
+        undoLog.prune();
+    }
+
+    /**
+     * Number of records that have old versions kept for open snapshots.
+     */
+    public int retainedVersionCount() {
+        return undoLog.size();
+    }
+
+    @Override
+    public Task findTaskById(int id) {
+        return delegate.findTaskById(id);
+    }
+
+    @Override
+    public ArrayList<Task> findTaskByTitle(String title) {
+        return delegate.findTaskByTitle(title);
+    }
+
+    @Override
+    public ArrayList<Task> findTaskByDescription(String description) {
+        return delegate.findTaskByDescription(description);
+    }
+
+    @Override
+    public List<Task> findAllTasks() {
+        return delegate.findAllTasks();
+    }
+
+    @Override
+    public List<Task> findTasksAfter(int afterId, int limit) {
+        return delegate.findTasksAfter(afterId, limit);
+    }
+
+    @Override
+    public Task saveTask(Task task) {
+        if (clock.isRecording()) {
+            undoLog.record(task.getId(), delegate.findTaskById(task.getId()));
+        }
+        return delegate.saveTask(task);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (clock.isRecording()) {
+            undoLog.record(task.getId(), delegate.findTaskById(task.getId()));
+        }
+        delegate.updateTask(task);
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        if (clock.isRecording()) {
+            Task oldTask = delegate.findTaskById(id);
+            if (oldTask != null) {
+                undoLog.record(id, oldTask);
+            }
+        }
+        delegate.deleteTask(id);
+    }
+
+    @Override
+    public int[] deleteAllTasks() {
+        if (clock.isRecording()) {
+            for (Task task : delegate.findAllTasks()) {
+                undoLog.record(task.getId(), task);
+            }
+        }
+        return delegate.deleteAllTasks();
+    }
+}
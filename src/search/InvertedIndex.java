@@ -0,0 +1,229 @@
+package search;
+
+import util.IntIntMap;
+import util.IntObjectMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory full-text index: for every word, the ids of documents containing it and how many times.
+ *
+ * A query matches documents that contain all its words. Matches are ranked by the summed frequency
+ * of the query words (ties by id), and only the requested page is sorted.
+ * Documents are added, replaced and removed one by one, so the index follows the repositories.
+ * Safe to use from several threads: searches share a read lock, changes take the write lock.
+ */
+public class InvertedIndex {
+
+    private final Map<String, IntIntMap> postings = new HashMap<>();
+    // Distinct words of every document, needed to remove it from postings
+    private final IntObjectMap<String[]> wordsByDocument = new IntObjectMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes the text of the document, replacing what was indexed for this id before.
+     */
+    public void put(int documentId, String... texts) {
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (String text : texts) {
+            for (String word : Tokenizer.tokenize(text)) {
+                frequencies.computeIfAbsent(word, k -> new int[1])[0]++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(documentId);
+            if (frequencies.isEmpty()) {
+                return;
+            }
+            String[] words = new String[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                words[i++] = entry.getKey();
+                postings.computeIfAbsent(entry.getKey(), k -> new IntIntMap()).put(documentId, entry.getValue()[0]);
+            }
+            wordsByDocument.put(documentId, words);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int documentId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Like remove() for every id, under one lock.
+     */
+    public void removeAll(int[] documentIds) {
+        lock.writeLock().lock();
+        try {
+            for (int documentId : documentIds) {
+                removeDocument(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            wordsByDocument.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return wordsByDocument.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of matching documents, best first, skipping the first offset matches.
+     */
+    public int[] search(String query, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+        }
+        Set<String> words = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (words.isEmpty() || limit == 0) {
+            return new int[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            IntIntMap[] wordPostings = new IntIntMap[words.size()];
+            int i = 0;
+            for (String word : words) {
+                IntIntMap documents = postings.get(word);
+                if (documents == null) {
+                    return new int[0];
+                }
+                wordPostings[i++] = documents;
+            }
+            // Walk the rarest word, the others are only looked up
+            Arrays.sort(wordPostings, (a, b) -> Integer.compare(a.size(), b.size()));
+
+            TopRanks top = new TopRanks((int) Math.min((long) offset + limit, Integer.MAX_VALUE));
+            wordPostings[0].forEach((documentId, frequency) -> {
+                int score = frequency;
+                for (int w = 1; w < wordPostings.length; w++) {
+                    int other = wordPostings[w].get(documentId, 0);
+                    if (other == 0) {
+                        return;
+                    }
+                    score += other;
+                }
+                top.offer(score, documentId);
+            });
+            return top.page(offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Must be called with the write lock held
+    private void removeDocument(int documentId) {
+        String[] words = wordsByDocument.remove(documentId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            IntIntMap documents = postings.get(word);
+            documents.remove(documentId);
+            if (documents.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Keeps the best k (score, id) pairs in a min-heap of longs, so ranking n matches costs O(n log k).
+     * Higher score wins, on equal score the lower id wins.
+     */
+    private static final class TopRanks {
+        private final int capacity;
+        private long[] heap = new long[16];
+        private int size;
+
+        TopRanks(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void offer(int score, int documentId) {
+            long rank = ((long) score << 32) | (Integer.MAX_VALUE - (long) documentId);
+            if (size < capacity) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, (int) Math.min((long) size * 2, capacity));
+                }
+                heap[size] = rank;
+                siftUp(size++);
+            } else if (rank > heap[0]) {
+                heap[0] = rank;
+                siftDown(0);
+            }
+        }
+
+        int[] page(int offset) {
+            long[] ranks = Arrays.copyOf(heap, size);
+            Arrays.sort(ranks);
+            int count = Math.max(0, size - offset);
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = (int) (Integer.MAX_VALUE - (ranks[size - 1 - offset - i] & 0xFFFFFFFFL));
+            }
+            return ids;
+        }
+
+        private void siftUp(int index) {
+            long rank = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] <= rank) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = rank;
+        }
+
+        private void siftDown(int index) {
+            long rank = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (rank <= heap[child]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = rank;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package service;
+
+import persistence.HighWaterMark;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IdGenerator for many threads: every thread takes ids from its own block, and only taking a new block
+ * touches shared state (one atomic add), so threads don't fight over a counter on every create.
+ * Ids are unique but not ordered between threads.
+ *
+ * Only worth it for a few long-lived worker threads that create a lot: a thread that creates one entity
+ * and goes away (a request thread, a virtual thread) wastes the rest of its block, which spreads ids out
+ * and uses up the id space blockSize times faster. Managers use IdGeneratorImpl unless given this one.
+ *
+ * With a state file, the high-water mark of reserved blocks is written to disk before ids from a block
+ * are handed out (a few blocks ahead, so not on every block). After a restart or crash numbering
+ * continues above it, ids are never reused, and a few unused ones are skipped.
+ *
+ * The id space can be split into partitionCount interleaved partitions: partition p gets ids
+ * p + 1, p + 1 + partitionCount, ... so several managers can allocate ids without talking to each other.
+ */
+public class BlockIdGenerator implements IdGenerator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final int BLOCKS_PER_WRITE = 64;
+
+    private static final class Block {
+        int next = 1;
+        int end;
+        int epoch = -1;
+    }
+
+    private final int blockSize;
+    private final int partition;
+    private final int partitionCount;
+    private final Path stateFile;
+
+    // Sequence numbers count ids of this partition only, sequence n is id (n - 1) * partitionCount + partition + 1
+    private final AtomicInteger reservedSequence = new AtomicInteger();
+    // Changed by reserve(), blocks taken before that are dropped
+    private final AtomicInteger epoch = new AtomicInteger();
+    private volatile int persistedSequence;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    public BlockIdGenerator() {
+        this(null, DEFAULT_BLOCK_SIZE, 0, 1);
+    }
+
+    public BlockIdGenerator(Path stateFile) {
+        this(stateFile, DEFAULT_BLOCK_SIZE, 0, 1);
+    }
+
+    /**
+     * @param stateFile where the high-water mark is kept, null to keep it only in memory
+     */
+    public BlockIdGenerator(Path stateFile, int blockSize, int partition, int partitionCount) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (partitionCount < 1 || partition < 0 || partition >= partitionCount) {
+            throw new IllegalArgumentException("Invalid partition " + partition + " of " + partitionCount);
+        }
+        this.blockSize = blockSize;
+        this.partition = partition;
+        this.partitionCount = partitionCount;
+        this.stateFile = stateFile;
+
+        if (stateFile != null) {
+            int persisted = HighWaterMark.read(stateFile);
+            reservedSequence.set(persisted);
+            persistedSequence = persisted;
+        }
+    }
+
+    @Override
+    public int generateId() {
+        Block block = blocks.get();
+        if (block.next > block.end || block.epoch != epoch.get()) {
+            takeBlock(block);
+        }
+        return idOf(block.next++);
+    }
+
+    /**
+     * Meant for restoring state before ids are generated: blocks that threads took earlier are dropped,
+     * but an id taken at the same moment from such a block can still be at or below usedId.
+     */
+    @Override
+    public void reserve(int usedId) {
+        long sequence = sequenceAtOrBelow(usedId);
+        if (sequence <= 0) {
+            return;
+        }
+        int reserved = reservedSequence.accumulateAndGet((int) sequence, Math::max);
+        persistUpTo(reserved);
+        epoch.incrementAndGet();
+    }
+
+    /**
+     * The largest id of all reserved blocks, some of them can still be unused.
+     */
+    @Override
+    public int getLastId() {
+        int sequence = reservedSequence.get();
+        return sequence == 0 ? 0 : idOf(sequence);
+    }
+
+    private void takeBlock(Block block) {
+        int currentEpoch = epoch.get();
+        int end = reservedSequence.addAndGet(blockSize);
+        if (end < 0 || (long) (end - 1) * partitionCount + partition + 1 > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Id space is exhausted");
+        }
+        persistUpTo(end);
+        block.next = end - blockSize + 1;
+        block.end = end;
+        block.epoch = currentEpoch;
+    }
+
+    private void persistUpTo(int sequence) {
+        if (stateFile == null || sequence <= persistedSequence) {
+            return;
+        }
+        synchronized (this) {
+            if (sequence > persistedSequence) {
+                int target = (int) Math.min((long) sequence + (long) blockSize * BLOCKS_PER_WRITE, Integer.MAX_VALUE);
+                HighWaterMark.write(stateFile, target);
+                persistedSequence = target;
+            }
+        }
+    }
+
+    private int idOf(int sequence) {
+        return (sequence - 1) * partitionCount + partition + 1;
+    }
+
+    // The largest sequence whose id is not greater than id
+    private long sequenceAtOrBelow(int id) {
+        long offset = (long) id - partition - 1;
+        return offset < 0 ? 0 : offset / partitionCount + 1;
+    }
+}
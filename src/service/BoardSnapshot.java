@@ -0,0 +1,94 @@
+package service;
+
+import exception.TaskNotFoundException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State of a task manager at one moment, see TaskManager.openSnapshot().
+ *
+ * Every read returns what was stored when the snapshot was opened, no matter what was written since.
+ * Reads don't add to history and never block writers. Returned tasks are the shared frozen instances.
+ */
+public final class BoardSnapshot implements AutoCloseable {
+
+    private final InMemoryTaskManager manager;
+    private final long version;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    BoardSnapshot(InMemoryTaskManager manager, long version) {
+        this.manager = manager;
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Task getTask(int id) {
+        checkOpen();
+        return manager.findTaskAt(id, version);
+    }
+
+    public Subtask getSubtask(int id) {
+        checkOpen();
+        return manager.findSubtaskAt(id, version);
+    }
+
+    public Epic getEpic(int id) {
+        checkOpen();
+        return manager.findEpicAt(id, version);
+    }
+
+    public List<Task> getAllTasks() {
+        checkOpen();
+        return manager.findAllTasksAt(version);
+    }
+
+    public List<Subtask> getAllSubtasks() {
+        checkOpen();
+        return manager.findAllSubtasksAt(version);
+    }
+
+    public List<Epic> getAllEpics() {
+        checkOpen();
+        return manager.findAllEpicsAt(version);
+    }
+
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Epic epic = getEpic(epicId);
+        if (epic == null) {
+            throw new TaskNotFoundException("Epic with id " + epicId + " not found");
+        }
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        for (PrimitiveIterator.OfInt it = epic.subtaskIdIterator(); it.hasNext(); ) {
+            Subtask subtask = manager.findSubtaskAt(it.nextInt(), version);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lets the old versions this snapshot kept alive go. Closing twice does nothing.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            manager.closeSnapshot(version);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("Snapshot is closed");
+        }
+    }
+}
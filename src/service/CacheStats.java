@@ -0,0 +1,82 @@
+package service;
+
+import java.util.Locale;
+
+/**
+ * Counters of a cache at one moment. Weight is what the cache is bounded by (for example cached subtasks).
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+    private final int size;
+    private final long weight;
+    private final long maxWeight;
+
+    CacheStats(long hits, long misses, long evictions, long invalidations, int size, long weight, long maxWeight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.size = size;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Share of lookups answered from the cache, 0 if there were none.
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Entries dropped to stay under the maximum weight.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Entries dropped because their data changed.
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", hitRate=" + String.format(Locale.ROOT, "%.3f", getHitRate()) +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                ", size=" + size +
+                ", weight=" + weight + "/" + maxWeight +
+                '}';
+    }
+}
@@ -0,0 +1,222 @@
+package service;
+
+import model.Task;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * HistoryManager that can be shared between threads without making every get* call fight for one lock.
+ *
+ * add() only writes the task into one of a few small buffers, picked by the calling thread's id. There are
+ * about two buffers per CPU and their number never changes, so threads rarely share one and a server that
+ * starts a thread per request doesn't pile up buffers of dead threads. When a buffer is full,
+ * or when somebody reads or removes history, all buffers are drained into the ordered history under one lock.
+ * Every access gets a global sequence number, so draining keeps the real order of accesses across threads.
+ *
+ * Semantics are the same as in InMemoryHistoryManager: a task is in history once, a repeated view
+ * moves it to the end. When capacity is exceeded the oldest entries are evicted.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final int DEFAULT_BUFFER_SIZE = 64;
+
+    private static final class Buffer {
+        // guarded by the buffer itself, written by the threads that map to it
+        Task[] tasks;
+        long[] sequences;
+        int size;
+
+        // guarded by drainLock, filled by swapping with the arrays above
+        Task[] drainedTasks;
+        long[] drainedSequences;
+        int drainedSize;
+        int drainedPosition;
+
+        Buffer(int bufferSize) {
+            tasks = new Task[bufferSize];
+            sequences = new long[bufferSize];
+            drainedTasks = new Task[bufferSize];
+            drainedSequences = new long[bufferSize];
+        }
+    }
+
+    private final AtomicLong accessSequence = new AtomicLong();
+    // Power of two so the buffer can be picked with a mask
+    private final Buffer[] buffers;
+
+    private final int capacity;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // guarded by drainLock
+    private final HistoryList history = new HistoryList();
+
+    public ConcurrentHistoryManager() {
+        this(UNLIMITED);
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        this(capacity, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ConcurrentHistoryManager(int capacity, int bufferSize) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.capacity = capacity;
+
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        buffers = new Buffer[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = new Buffer(bufferSize);
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+
+        Task taskCopy = task.freeze();
+        Buffer buffer = bufferOfCurrentThread();
+        while (true) {
+            boolean added;
+            synchronized (buffer) {
+                // Another thread on this buffer may have filled it and not drained it yet
+                if (buffer.size < buffer.tasks.length) {
+                    // Taken under the buffer lock, so sequences in one buffer stay ordered when threads share it
+                    buffer.tasks[buffer.size] = taskCopy;
+                    buffer.sequences[buffer.size] = accessSequence.getAndIncrement();
+                    buffer.size++;
+                    if (buffer.size < buffer.tasks.length) {
+                        return;
+                    }
+                    // Added and filled the buffer, drain it below
+                    added = true;
+                } else {
+                    added = false;
+                }
+            }
+
+            drainLock.lock();
+            try {
+                drain();
+            } finally {
+                drainLock.unlock();
+            }
+            if (added) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            // Views recorded before the removal must not bring the task back later
+            drain();
+            history.remove(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(int[] ids) {
+        drainLock.lock();
+        try {
+            drain();
+            for (int id : ids) {
+                history.remove(id);
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Class<? extends Task> type) {
+        drainLock.lock();
+        try {
+            drain();
+            history.removeAll(type);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain();
+            return history.toList();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int limit) {
+        drainLock.lock();
+        try {
+            drain();
+            return history.last(limit);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private Buffer bufferOfCurrentThread() {
+        // Spread consecutive thread ids over different buffers
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return buffers[(hash >>> 16) & (buffers.length - 1)];
+    }
+
+    // Must be called with drainLock held
+    private void drain() {
+        for (Buffer buffer : buffers) {
+            synchronized (buffer) {
+                Task[] tasks = buffer.drainedTasks;
+                long[] sequences = buffer.drainedSequences;
+                buffer.drainedTasks = buffer.tasks;
+                buffer.drainedSequences = buffer.sequences;
+                buffer.drainedSize = buffer.size;
+                buffer.drainedPosition = 0;
+                buffer.tasks = tasks;
+                buffer.sequences = sequences;
+                buffer.size = 0;
+            }
+        }
+
+        // Every buffer is already ordered, merge them by sequence number
+        while (true) {
+            Buffer next = null;
+            for (Buffer buffer : buffers) {
+                if (buffer.drainedPosition < buffer.drainedSize
+                        && (next == null || buffer.drainedSequences[buffer.drainedPosition]
+                        < next.drainedSequences[next.drainedPosition])) {
+                    next = buffer;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+
+            Task task = next.drainedTasks[next.drainedPosition];
+            next.drainedTasks[next.drainedPosition] = null;
+            next.drainedPosition++;
+
+            history.add(task);
+            if (history.size() > capacity) {
+                history.removeOldest();
+            }
+        }
+    }
+}
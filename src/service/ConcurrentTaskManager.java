@@ -0,0 +1,334 @@
+package service;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import repository.ConcurrentEpicRepositoryImpl;
+import repository.ConcurrentSubtaskRepositoryImpl;
+import repository.ConcurrentTaskRepositoryImpl;
+import repository.EpicRepository;
+import repository.SubtaskRepository;
+import repository.TaskRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TaskManager that can be shared between threads.
+ *
+ * Instead of one lock for the whole manager, ids are spread over a fixed number of lock stripes.
+ * A subtask change locks only the stripe of its epic (both stripes when the subtask moves to another epic,
+ * always in stripe order so two moves in opposite directions can't deadlock). Task and epic changes lock
+ * the stripe of their own id, and operations on everything (deleteAll* and batches) lock all stripes.
+ * Creating a task or an epic has no id to lock yet, it locks one stripe picked by the calling thread:
+ * creates on different threads rarely meet, and deleteAll* can't remove a task that is only half created.
+ * Reads don't lock at all: they go straight to the concurrent repositories and never wait for writers.
+ * Every write is also one version for openSnapshot(), so snapshots never see half of an operation.
+ *
+ * Repositories and the history manager passed to the constructor must be thread-safe themselves.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private final SubtaskRepository subtaskRepository;
+    private final ReentrantLock[] stripes;
+
+    public ConcurrentTaskManager() {
+        // One atomic counter keeps ids dense, see BlockIdGenerator for when blocks pay off
+        this(new IdGeneratorImpl(),
+                new ConcurrentTaskRepositoryImpl(),
+                new ConcurrentSubtaskRepositoryImpl(),
+                new ConcurrentEpicRepositoryImpl(),
+                new ConcurrentHistoryManager(),
+                Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public ConcurrentTaskManager(IdGenerator idGenerator,
+                                 TaskRepository taskRepository,
+                                 SubtaskRepository subtaskRepository,
+                                 EpicRepository epicRepository,
+                                 HistoryManager historyManager,
+                                 int stripeCount) {
+        super(idGenerator, taskRepository, subtaskRepository, epicRepository, historyManager);
+        this.subtaskRepository = subtaskRepository;
+
+        // Power of two so the stripe can be picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        ReentrantLock lock = creatorStripe();
+        lock.lock();
+        beginWrite();
+        try {
+            return super.createTask(task);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> createTasks(List<Task> tasks) {
+        ReentrantLock lock = creatorStripe();
+        lock.lock();
+        beginWrite();
+        try {
+            return super.createTasks(tasks);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        ReentrantLock lock = stripeOf(task.getId());
+        lock.lock();
+        beginWrite();
+        try {
+            super.updateTask(task);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        beginWrite();
+        try {
+            super.deleteTask(id);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        lockAll();
+        try {
+            super.deleteAllTasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        ReentrantLock lock = stripeOf(subtask.getEpicId());
+        lock.lock();
+        beginWrite();
+        try {
+            return super.createSubtask(subtask);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        while (true) {
+            Subtask current = subtaskRepository.findSubtaskById(subtask.getId());
+            if (current == null) {
+                // Let the base class report the error
+                super.updateSubtask(subtask);
+                return;
+            }
+
+            int oldEpicId = current.getEpicId();
+            int oldStripe = stripeIndex(oldEpicId);
+            int newStripe = stripeIndex(subtask.getEpicId());
+            ReentrantLock first = stripes[Math.min(oldStripe, newStripe)];
+            ReentrantLock second = stripes[Math.max(oldStripe, newStripe)];
+            first.lock();
+            second.lock();
+            beginWrite();
+            try {
+                // The subtask could have been moved to another epic before we got the locks
+                Subtask locked = subtaskRepository.findSubtaskById(subtask.getId());
+                if (locked == null || locked.getEpicId() == oldEpicId) {
+                    super.updateSubtask(subtask);
+                    return;
+                }
+            } finally {
+                endWrite();
+                second.unlock();
+                first.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        while (true) {
+            Subtask current = subtaskRepository.findSubtaskById(id);
+            if (current == null) {
+                super.deleteSubtask(id);
+                return;
+            }
+
+            ReentrantLock lock = stripeOf(current.getEpicId());
+            lock.lock();
+            beginWrite();
+            try {
+                Subtask locked = subtaskRepository.findSubtaskById(id);
+                if (locked == null || locked.getEpicId() == current.getEpicId()) {
+                    super.deleteSubtask(id);
+                    return;
+                }
+            } finally {
+                endWrite();
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void deleteAllSubtask() {
+        lockAll();
+        try {
+            super.deleteAllSubtask();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Subtask> createSubtasks(List<Subtask> subtasks) {
+        lockAll();
+        try {
+            return super.createSubtasks(subtasks);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void updateSubtasks(List<Subtask> subtasks) {
+        lockAll();
+        try {
+            super.updateSubtasks(subtasks);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void deleteSubtasks(Collection<Integer> ids) {
+        lockAll();
+        try {
+            super.deleteSubtasks(ids);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        ReentrantLock lock = creatorStripe();
+        lock.lock();
+        beginWrite();
+        try {
+            return super.createEpic(epic);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        ReentrantLock lock = stripeOf(epic.getId());
+        lock.lock();
+        beginWrite();
+        try {
+            super.updateEpic(epic);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpicDetails(int id, String title, String description) {
+        // Subtask changes of this epic take the same stripe, so the epic read here is still current when written
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            super.updateEpicDetails(id, title, description);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        beginWrite();
+        try {
+            super.deleteEpic(id);
+        } finally {
+            endWrite();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        lockAll();
+        try {
+            super.deleteAllEpics();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean checkEpicStatusConsistency() {
+        lockAll();
+        try {
+            return super.checkEpicStatusConsistency();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private int stripeIndex(int id) {
+        // Spread consecutive ids over different stripes
+        return (id * 0x9E3779B9 >>> 16) & (stripes.length - 1);
+    }
+
+    private ReentrantLock stripeOf(int id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    // Any one stripe is enough to keep lockAll() out
+    private ReentrantLock creatorStripe() {
+        return stripeOf((int) Thread.currentThread().getId());
+    }
+
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        beginWrite();
+    }
+
+    private void unlockAll() {
+        endWrite();
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
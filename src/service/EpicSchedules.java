@@ -0,0 +1,134 @@
+package service;
+
+import model.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Start time, end time and duration of every epic, kept up to date from subtask changes
+ * like EpicStatusCounters keeps statuses. Start and end times of the subtasks of an epic are counted
+ * in sorted maps, so the earliest start and the latest end are known after any change in O(log n)
+ * without looking at the other subtasks. The epic duration is the sum of its subtask durations.
+ * The same threading rules as for EpicStatusCounters apply.
+ */
+class EpicSchedules {
+
+    private static class Schedule {
+        // time -> number of subtasks that start (end) at that time
+        final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+        Duration duration = Duration.ZERO;
+        int withDuration;
+
+        boolean isEmpty() {
+            return starts.isEmpty() && withDuration == 0;
+        }
+    }
+
+    private final Map<Integer, Schedule> scheduleByEpicId = new ConcurrentHashMap<>();
+
+    public void add(Subtask subtask) {
+        if (subtask.getStartTime() == null && subtask.getDuration() == null) {
+            return;
+        }
+        Schedule schedule = scheduleByEpicId.computeIfAbsent(subtask.getEpicId(), k -> new Schedule());
+        if (subtask.getStartTime() != null) {
+            schedule.starts.merge(subtask.getStartTime(), 1, Integer::sum);
+            schedule.ends.merge(subtask.getEndTime(), 1, Integer::sum);
+        }
+        if (subtask.getDuration() != null) {
+            schedule.duration = schedule.duration.plus(subtask.getDuration());
+            schedule.withDuration++;
+        }
+    }
+
+    public void remove(Subtask subtask) {
+        Schedule schedule = scheduleByEpicId.get(subtask.getEpicId());
+        if (schedule == null) {
+            if (subtask.getStartTime() != null || subtask.getDuration() != null) {
+                throw new IllegalStateException("Epic with id " + subtask.getEpicId() + " has no scheduled subtasks");
+            }
+            return;
+        }
+        if (subtask.getStartTime() != null) {
+            decrement(schedule.starts, subtask.getStartTime(), subtask.getEpicId());
+            decrement(schedule.ends, subtask.getEndTime(), subtask.getEpicId());
+        }
+        if (subtask.getDuration() != null) {
+            schedule.duration = schedule.duration.minus(subtask.getDuration());
+            schedule.withDuration--;
+        }
+        if (schedule.isEmpty()) {
+            scheduleByEpicId.remove(subtask.getEpicId());
+        }
+    }
+
+    public LocalDateTime startOf(int epicId) {
+        Schedule schedule = scheduleByEpicId.get(epicId);
+        return schedule == null || schedule.starts.isEmpty() ? null : schedule.starts.firstKey();
+    }
+
+    public LocalDateTime endOf(int epicId) {
+        Schedule schedule = scheduleByEpicId.get(epicId);
+        return schedule == null || schedule.ends.isEmpty() ? null : schedule.ends.lastKey();
+    }
+
+    /**
+     * Sum of subtask durations, null if no subtask has a duration.
+     */
+    public Duration durationOf(int epicId) {
+        Schedule schedule = scheduleByEpicId.get(epicId);
+        return schedule == null || schedule.withDuration == 0 ? null : schedule.duration;
+    }
+
+    public void forget(int epicId) {
+        scheduleByEpicId.remove(epicId);
+    }
+
+    public void clear() {
+        scheduleByEpicId.clear();
+    }
+
+    /**
+     * Recounts everything from the given subtasks.
+     * Returns true if the old schedules were already correct.
+     */
+    public boolean rebuild(Iterable<Subtask> subtasks) {
+        EpicSchedules fresh = new EpicSchedules();
+        for (Subtask subtask : subtasks) {
+            fresh.add(subtask);
+        }
+
+        boolean consistent = fresh.scheduleByEpicId.keySet().equals(scheduleByEpicId.keySet());
+        if (consistent) {
+            for (int epicId : scheduleByEpicId.keySet()) {
+                Schedule expected = fresh.scheduleByEpicId.get(epicId);
+                Schedule actual = scheduleByEpicId.get(epicId);
+                if (!expected.starts.equals(actual.starts) || !expected.ends.equals(actual.ends)
+                        || !expected.duration.equals(actual.duration) || expected.withDuration != actual.withDuration) {
+                    consistent = false;
+                    break;
+                }
+            }
+        }
+        scheduleByEpicId.clear();
+        scheduleByEpicId.putAll(fresh.scheduleByEpicId);
+        return consistent;
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> counts, LocalDateTime time, int epicId) {
+        Integer count = counts.get(time);
+        if (count == null) {
+            throw new IllegalStateException("Epic with id " + epicId + " has no subtask at " + time + " to remove");
+        }
+        if (count == 1) {
+            counts.remove(time);
+        } else {
+            counts.put(time, count - 1);
+        }
+    }
+}
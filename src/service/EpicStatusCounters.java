@@ -0,0 +1,108 @@
+package service;
+
+import model.Status;
+import model.Subtask;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps NEW / IN_PROGRESS / DONE counters of subtasks per epic,
+ * so the epic status can be derived without looking at every subtask.
+ * The manager must report every subtask change here.
+ * Counters of one epic must be changed by one thread at a time (ConcurrentTaskManager holds the epic lock),
+ * different epics can be changed in parallel.
+ */
+class EpicStatusCounters {
+
+    // Extra slot for subtasks without status, they count as "not NEW and not DONE"
+    private static final int UNSET = Status.values().length;
+
+    private final Map<Integer, int[]> countersByEpicId = new ConcurrentHashMap<>();
+
+    public void add(int epicId, Status status) {
+        countersByEpicId.computeIfAbsent(epicId, k -> new int[UNSET + 1])[slot(status)]++;
+    }
+
+    public void remove(int epicId, Status status) {
+        int[] counters = countersByEpicId.get(epicId);
+        if (counters == null || counters[slot(status)] == 0) {
+            throw new IllegalStateException("Epic with id " + epicId + " has no " + status + " subtasks to remove");
+        }
+        counters[slot(status)]--;
+    }
+
+    public void change(int epicId, Status oldStatus, Status newStatus) {
+        if (oldStatus != newStatus) {
+            remove(epicId, oldStatus);
+            add(epicId, newStatus);
+        }
+    }
+
+    public Status statusOf(int epicId) {
+        int[] counters = countersByEpicId.get(epicId);
+        if (counters == null) {
+            return Status.NEW;
+        }
+        int total = 0;
+        for (int counter : counters) {
+            total += counter;
+        }
+
+        if (counters[Status.NEW.ordinal()] == total) {
+            return Status.NEW;
+        }
+        if (counters[Status.DONE.ordinal()] == total) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    public void forget(int epicId) {
+        countersByEpicId.remove(epicId);
+    }
+
+    public void clear() {
+        countersByEpicId.clear();
+    }
+
+    /**
+     * Recounts everything from the given subtasks.
+     * Returns true if the old counters were already correct.
+     */
+    public boolean rebuild(Iterable<Subtask> subtasks) {
+        Map<Integer, int[]> fresh = new HashMap<>();
+        for (Subtask subtask : subtasks) {
+            fresh.computeIfAbsent(subtask.getEpicId(), k -> new int[UNSET + 1])[slot(subtask.getStatus())]++;
+        }
+
+        boolean consistent = sameCounters(fresh);
+        countersByEpicId.clear();
+        countersByEpicId.putAll(fresh);
+        return consistent;
+    }
+
+    private boolean sameCounters(Map<Integer, int[]> fresh) {
+        for (Map.Entry<Integer, int[]> entry : countersByEpicId.entrySet()) {
+            int[] expected = fresh.get(entry.getKey());
+            if (expected == null) {
+                expected = new int[UNSET + 1];
+            }
+            if (!Arrays.equals(expected, entry.getValue())) {
+                return false;
+            }
+        }
+        for (Integer epicId : fresh.keySet()) {
+            if (!countersByEpicId.containsKey(epicId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slot(Status status) {
+        return status == null ? UNSET : status.ordinal();
+    }
+}
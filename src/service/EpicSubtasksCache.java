@@ -0,0 +1,159 @@
+package service;
+
+import model.Subtask;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Read-through cache of getEpicSubtasks results, bounded by the total number of cached subtasks.
+ *
+ * The manager calls invalidate(epicId) after every write that changes the subtasks of an epic.
+ * Hits and invalidations don't lock. A loader that raced with an invalidation could put an old list
+ * back, so every epic id maps to a generation counter: a loaded list is put first and then dropped again
+ * if the generation moved while it was loading.
+ *
+ * Eviction is CLOCK, an approximation of LRU: a hit only marks the entry, and when the cache is over its
+ * weight the hand walks the insertion queue, gives marked entries a second chance and evicts the others.
+ */
+class EpicSubtasksCache {
+
+    private static final int GENERATION_STRIPES = 64;
+
+    private static final class Entry {
+        final int epicId;
+        final List<Subtask> subtasks;
+        final int weight;
+        volatile boolean referenced;
+
+        Entry(int epicId, List<Subtask> subtasks) {
+            this.epicId = epicId;
+            this.subtasks = subtasks;
+            // The entry itself costs something even for an empty epic
+            this.weight = subtasks.size() + 1;
+        }
+    }
+
+    private final long maxWeight;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong weight = new AtomicLong();
+
+    // guarded by itself, may still hold entries that were invalidated since
+    private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    EpicSubtasksCache(long maxWeight) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("Cache weight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Cached subtasks of the epic, loads and caches them on a miss. The returned list is read-only.
+     */
+    List<Subtask> get(int epicId, IntFunction<List<Subtask>> loader) {
+        Entry entry = entries.get(epicId);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.subtasks;
+        }
+        misses.increment();
+
+        int stripe = stripeOf(epicId);
+        long generation = generations.get(stripe);
+        Entry loaded = new Entry(epicId, Collections.unmodifiableList(loader.apply(epicId)));
+        if (loaded.weight > maxWeight) {
+            return loaded.subtasks;
+        }
+
+        if (entries.putIfAbsent(epicId, loaded) != null) {
+            // Another reader was faster, its list is as good as ours
+            return loaded.subtasks;
+        }
+        weight.addAndGet(loaded.weight);
+        if (generations.get(stripe) != generation) {
+            // Invalidated while loading, the list may be old
+            remove(loaded);
+            return loaded.subtasks;
+        }
+
+        synchronized (clock) {
+            clock.addLast(loaded);
+            evictIfNeeded();
+        }
+        return loaded.subtasks;
+    }
+
+    void invalidate(int epicId) {
+        generations.incrementAndGet(stripeOf(epicId));
+        Entry entry = entries.get(epicId);
+        if (entry != null && remove(entry)) {
+            invalidations.increment();
+        }
+    }
+
+    void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        for (Entry entry : entries.values()) {
+            if (remove(entry)) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(),
+                entries.size(), weight.get(), maxWeight);
+    }
+
+    // Must be called with the clock monitor held
+    private void evictIfNeeded() {
+        while (weight.get() > maxWeight && !clock.isEmpty()) {
+            Entry entry = clock.pollFirst();
+            if (entries.get(entry.epicId) != entry) {
+                // Invalidated already, just drop it from the queue
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                clock.addLast(entry);
+            } else if (remove(entry)) {
+                evictions.increment();
+            }
+        }
+
+        // Invalidated entries stay in the queue until the hand reaches them, don't let them pile up
+        if (clock.size() > 2 * entries.size() + 64) {
+            clock.removeIf(entry -> entries.get(entry.epicId) != entry);
+        }
+    }
+
+    // Weight is given back only by whoever actually removed the entry
+    private boolean remove(Entry entry) {
+        if (entries.remove(entry.epicId, entry)) {
+            weight.addAndGet(-entry.weight);
+            return true;
+        }
+        return false;
+    }
+
+    private static int stripeOf(int epicId) {
+        return (epicId * 0x9E3779B9 >>> 16) & (GENERATION_STRIPES - 1);
+    }
+}
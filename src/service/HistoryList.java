@@ -0,0 +1,202 @@
+package service;
+
+import model.Task;
+import util.IntIntMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Viewed tasks in view order, at most one entry per id. This is the storage of the history managers.
+ *
+ * Entries live in parallel arrays and are linked by slot index instead of by Node objects, an IntIntMap finds
+ * the slot of an id. Slots of removed entries go to a free list and are reused, so viewing a task that is
+ * already in history, or a new one once history stopped growing, allocates nothing.
+ * Tasks are the frozen snapshots that reads return, they are kept by reference (as cheap as keeping the id)
+ * and never copied.
+ *
+ * Every change bumps a version. toList() builds a read-only list once per version and hands out the same list
+ * until the next change, so polling an unchanged history costs nothing.
+ * Not thread-safe.
+ */
+final class HistoryList {
+
+    private static final int NONE = -1;
+
+    private Task[] tasks;
+    private int[] prev;
+    // also links the free list
+    private int[] next;
+    private final IntIntMap slotById = new IntIntMap();
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    // slots handed out at least once
+    private int used;
+    private int size;
+
+    private long version;
+    private List<Task> snapshot = Collections.emptyList();
+    private long snapshotVersion;
+
+    HistoryList() {
+        this(16);
+    }
+
+    HistoryList(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        tasks = new Task[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+    }
+
+    /**
+     * Adds the task at the end, an entry with the same id moves there and gets the new task.
+     */
+    void add(Task task) {
+        int id = task.getId();
+        int slot = slotById.get(id, NONE);
+        if (slot != NONE) {
+            if (slot == tail && tasks[slot] == task) {
+                // Viewed the same snapshot again, nothing changes
+                return;
+            }
+            version++;
+            tasks[slot] = task;
+            if (slot != tail) {
+                unlink(slot);
+                linkLast(slot);
+            }
+            return;
+        }
+        version++;
+        slot = allocateSlot();
+        tasks[slot] = task;
+        linkLast(slot);
+        slotById.put(id, slot);
+        size++;
+    }
+
+    boolean remove(int id) {
+        int slot = slotById.get(id, NONE);
+        if (slot == NONE) {
+            return false;
+        }
+        slotById.remove(id);
+        release(slot);
+        return true;
+    }
+
+    /**
+     * Removes every entry of exactly this class in one walk.
+     */
+    void removeAll(Class<? extends Task> type) {
+        int slot = head;
+        while (slot != NONE) {
+            int following = next[slot];
+            if (tasks[slot].getClass() == type) {
+                slotById.remove(tasks[slot].getId());
+                release(slot);
+            }
+            slot = following;
+        }
+    }
+
+    void removeOldest() {
+        if (head != NONE) {
+            remove(tasks[head].getId());
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Read-only list of all entries, oldest first. The same instance while nothing changes.
+     */
+    List<Task> toList() {
+        if (snapshotVersion != version) {
+            Task[] result = new Task[size];
+            int i = 0;
+            for (int slot = head; slot != NONE; slot = next[slot]) {
+                result[i++] = tasks[slot];
+            }
+            snapshot = Collections.unmodifiableList(Arrays.asList(result));
+            snapshotVersion = version;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Read-only list of the last limit entries, oldest first. Walks back from the newest entry
+     * and touches only the entries it returns.
+     */
+    List<Task> last(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        if (limit >= size) {
+            return toList();
+        }
+        Task[] result = new Task[limit];
+        int slot = tail;
+        for (int i = limit - 1; i >= 0; i--) {
+            result[i] = tasks[slot];
+            slot = prev[slot];
+        }
+        return Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    private int allocateSlot() {
+        if (free != NONE) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (used == tasks.length) {
+            int capacity = used * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return used++;
+    }
+
+    private void release(int slot) {
+        version++;
+        unlink(slot);
+        // Don't keep a removed task reachable
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NONE) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+}
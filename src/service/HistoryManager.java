@@ -10,5 +10,23 @@ public interface HistoryManager {
 
     void remove(int id);
 
+    /**
+     * Like remove() for every id, in one pass.
+     */
+    void removeAll(int[] ids);
+
+    /**
+     * Removes every entry of exactly this class, for example all subtasks with Subtask.class.
+     */
+    void removeAll(Class<? extends Task> type);
+
+    /**
+     * Viewed tasks, oldest first. The list is read-only, while history doesn't change the same list may be returned.
+     */
     List<Task> getHistory();
+
+    /**
+     * The last limit entries of getHistory(), oldest first, without building the whole history.
+     */
+    List<Task> getRecentHistory(int limit);
 }
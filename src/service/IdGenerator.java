@@ -4,4 +4,10 @@ public interface IdGenerator {
 
     int generateId();
 
+    // Makes sure ids that are already in use (for example, restored from disk) are never generated again
+    void reserve(int usedId);
+
+    // The largest id that was generated or reserved so far, 0 if none
+    int getLastId();
+
 }
@@ -1,11 +1,23 @@
 package service;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class IdGeneratorImpl implements IdGenerator {
 
-    private int id = 1;
+    private final AtomicInteger lastId = new AtomicInteger();
 
     @Override
     public int generateId() {
-        return id++;
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public void reserve(int usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+
+    @Override
+    public int getLastId() {
+        return lastId.get();
     }
 }
@@ -1,5 +1,7 @@
 package service;
 
+import event.TaskEventBus;
+import event.TaskEventType;
 import exception.TaskNotFoundException;
 import model.Epic;
 import model.Status;
@@ -8,16 +10,44 @@ import model.Task;
 import repository.EpicRepository;
 import repository.SubtaskRepository;
 import repository.TaskRepository;
-
+import repository.VersionClock;
+import repository.VersionedEpicRepository;
+import repository.VersionedSubtaskRepository;
+import repository.VersionedTaskRepository;
+import search.InvertedIndex;
+import util.Pages;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
 
+    private static final int STREAM_PAGE_SIZE = 256;
+    // Total number of subtasks in cached getEpicSubtasks lists
+    private static final long EPIC_SUBTASKS_CACHE_WEIGHT = 1 << 16;
+
     private final IdGenerator idGenerator;
-    private final TaskRepository taskRepository;
-    private final SubtaskRepository subtaskRepository;
-    private final EpicRepository epicRepository;
+    private final VersionClock versions = new VersionClock();
+    private final VersionedTaskRepository taskRepository;
+    private final VersionedSubtaskRepository subtaskRepository;
+    private final VersionedEpicRepository epicRepository;
     private final HistoryManager historyManager;
+    private final EpicStatusCounters epicStatusCounters = new EpicStatusCounters();
+    private final EpicSchedules epicSchedules = new EpicSchedules();
+    private final TaskSchedule schedule = new TaskSchedule();
+    private final InvertedIndex searchIndex = new InvertedIndex();
+    private final EpicSubtasksCache epicSubtasksCache = new EpicSubtasksCache(EPIC_SUBTASKS_CACHE_WEIGHT);
+    private volatile TaskEventBus eventBus;
 
     public InMemoryTaskManager(IdGenerator idGenerator,
                                TaskRepository taskRepository,
@@ -25,19 +55,33 @@ public class InMemoryTaskManager implements TaskManager {
                                EpicRepository epicRepository,
                                HistoryManager historyManager) {
         this.idGenerator = idGenerator;
-        this.taskRepository = taskRepository;
-        this.subtaskRepository = subtaskRepository;
-        this.epicRepository = epicRepository;
+        // Old versions are recorded only while a snapshot is open
+        this.taskRepository = new VersionedTaskRepository(taskRepository, versions);
+        this.subtaskRepository = new VersionedSubtaskRepository(subtaskRepository, versions);
+        this.epicRepository = new VersionedEpicRepository(epicRepository, versions);
         this.historyManager = historyManager;
     }
 
+    /**
+     * Every following create, update, delete and derived epic status change is published to the bus.
+     * Pass null to stop publishing.
+     */
+    public void setEventBus(TaskEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
     @Override
     public Epic createEpic(Epic epic) {
         Epic epicCopy = new Epic(epic.getTitle(), epic.getDescription());
         epicCopy.setId(idGenerator.generateId());
+        // Everything is written before the epic is saved: after that a subtask of it can be created (by a listener
+        // of EPIC_CREATED, say) under a lock this call doesn't hold, and a later write here would undo it.
+        // A new epic has no subtasks, so its status and schedule are already right.
+        indexForSearch(epicCopy);
         Epic createdEpic = epicRepository.saveEpic(epicCopy);
-        updateEpicStatus(createdEpic.getId());
-        return createdEpic;
+        publish(TaskEventType.EPIC_CREATED, createdEpic.getId(), createdEpic);
+        // The caller owns the returned object, reads hand out the shared snapshot
+        return createdEpic.copy();
     }
 
     @Override
@@ -45,56 +89,123 @@ public class InMemoryTaskManager implements TaskManager {
         return epicRepository.findAllEpics();
     }
 
+    @Override
+    public List<Epic> getEpicsAfter(int afterId, int limit) {
+        return epicRepository.findEpicsAfter(afterId, limit);
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        // Goes through getEpicsAfter, so subclasses that guard reads guard every page
+        return Pages.stream(this::getEpicsAfter, Epic::getId, STREAM_PAGE_SIZE);
+    }
+
     @Override
     public Epic getEpic(int id) {
         Epic epic = epicRepository.findEpicById(id);
         if (epic != null) {
-            Epic epicCopy = copyEpic(epic);
-            historyManager.add(epicCopy);
-            return epicCopy;
+            historyManager.add(epic);
         }
-        return null;
+        return epic;
     }
 
     @Override
     public void updateEpic(Epic epic) {
         epicRepository.updateEpic(epic);
-        updateEpicStatus(epic.getId());
+        publish(TaskEventType.EPIC_UPDATED, epic.getId(), epicRepository.findEpicById(epic.getId()));
+        updateEpicDerivedFields(epic.getId());
+        indexForSearch(epic);
+    }
+
+    @Override
+    public void updateEpicDetails(int id, String title, String description) {
+        Epic epic = epicRepository.findEpicById(id);
+        if (epic == null) {
+            throw new TaskNotFoundException("Epic with id " + id + " not found");
+        }
+        updateEpic(epic.withTitle(title).withDescription(description));
     }
 
-    private void updateEpicStatus(int id) {
+    // Status and schedule of an epic come from its subtasks
+    private void updateEpicDerivedFields(int id) {
         Epic epic = epicRepository.findEpicById(id);
         if (epic == null) {
             throw new TaskNotFoundException("Epic with id " + id + " not found");
         }
-        List<Subtask> subtasks = getEpicSubtasks(epic.getId());
 
-        Status newStatus;
-        if (subtasks.isEmpty()) {
-            newStatus = Status.NEW;
+        Epic updatedEpic = epic;
+        Status newStatus = epicStatusCounters.statusOf(id);
+        if (epic.getStatus() != newStatus) {
+            updatedEpic = updatedEpic.withStatusFromTaskManager(newStatus);
+        }
+        LocalDateTime startTime = epicSchedules.startOf(id);
+        Duration duration = epicSchedules.durationOf(id);
+        LocalDateTime endTime = epicSchedules.endOf(id);
+        if (!Objects.equals(epic.getStartTime(), startTime) || !Objects.equals(epic.getDuration(), duration)
+                || !Objects.equals(epic.getEndTime(), endTime)) {
+            updatedEpic = updatedEpic.withScheduleFromTaskManager(startTime, duration, endTime);
+        }
+        if (updatedEpic == epic) {
+            return;
+        }
+
+        epicRepository.updateEpic(updatedEpic);
+        if (epic.getStatus() != newStatus) {
+            publishStatusChange(epic, updatedEpic);
         } else {
-            boolean allNew = true;
-            boolean allDone = true;
-            for (Subtask subtask : subtasks) {
-                if (subtask.getStatus() != Status.NEW) {
-                    allNew = false;
-                }
-                if (subtask.getStatus() != Status.DONE) {
-                    allDone = false;
-                }
-            }
+            publish(TaskEventType.EPIC_UPDATED, id, updatedEpic);
+        }
+    }
 
-            if (allNew) {
-                newStatus = Status.NEW;
-            } else if (allDone) {
-                newStatus = Status.DONE;
-            } else {
-                newStatus = Status.IN_PROGRESS;
+    // Every subtask change goes through these two, so derived epic fields can be updated incrementally
+    private void countSubtask(Subtask subtask) {
+        epicStatusCounters.add(subtask.getEpicId(), subtask.getStatus());
+        epicSchedules.add(subtask);
+    }
+
+    private void uncountSubtask(Subtask subtask) {
+        epicStatusCounters.remove(subtask.getEpicId(), subtask.getStatus());
+        epicSchedules.remove(subtask);
+    }
+
+    private void publish(TaskEventType type, int id, Task task) {
+        TaskEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(type, id, task);
+        }
+    }
+
+    private void publishDeleted(TaskEventType type, int[] ids) {
+        TaskEventBus bus = eventBus;
+        if (bus != null) {
+            for (int id : ids) {
+                bus.publish(type, id, null);
             }
         }
+    }
 
-        epic.updateStatusFromTaskManager(newStatus);
-        epicRepository.updateEpic(epic);
+    private void publishStatusChange(Epic oldEpic, Epic newEpic) {
+        TaskEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(TaskEventType.EPIC_STATUS_CHANGED, newEpic.getId(), newEpic,
+                    oldEpic.getStatus(), newEpic.getStatus());
+        }
+    }
+
+    /**
+     * Recounts subtask statuses and schedules of every epic from the repository and fixes epics if needed.
+     * Returns true if the counters were already consistent with the stored subtasks.
+     */
+    public boolean checkEpicStatusConsistency() {
+        List<Subtask> subtasks = subtaskRepository.findAllSubtasks();
+        boolean consistent = epicStatusCounters.rebuild(subtasks);
+        consistent &= epicSchedules.rebuild(subtasks);
+        if (!consistent) {
+            for (Epic epic : epicRepository.findAllEpics()) {
+                updateEpicDerivedFields(epic.getId());
+            }
+        }
+        return consistent;
     }
 
     @Override
@@ -104,26 +215,36 @@ public class InMemoryTaskManager implements TaskManager {
             throw new TaskNotFoundException("Epic with id " + id + " not found");
         }
 
-        for (Integer subtaskId : epicToDelete.getSubtaskIds()) {
-            subtaskRepository.deleteSubtask(subtaskId);
-            historyManager.remove(subtaskId);
-        }
+        int[] subtaskIds = subtaskRepository.deleteSubtasksByEpicId(id);
+        historyManager.removeAll(subtaskIds);
+        searchIndex.removeAll(subtaskIds);
+        schedule.removeAll(subtaskIds);
+        publishDeleted(TaskEventType.SUBTASK_DELETED, subtaskIds);
 
         epicRepository.deleteEpic(id);
+        epicSubtasksCache.invalidate(id);
+        epicStatusCounters.forget(id);
+        epicSchedules.forget(id);
         historyManager.remove(id);
+        searchIndex.remove(id);
+        publish(TaskEventType.EPIC_DELETED, id, null);
     }
 
     @Override
     public void deleteAllEpics() {
-        for (Epic epic : getAllEpics()) {
-            historyManager.remove(epic.getId());
-        }
-        for (Subtask subtask : getAllSubtasks()) {
-            historyManager.remove(subtask.getId());
-        }
-
-        subtaskRepository.deleteAllSubtasks();
-        epicRepository.deleteAllEpics();
+        // One pass per structure, no lists of entities just to read their ids
+        int[] subtaskIds = subtaskRepository.deleteAllSubtasks();
+        int[] epicIds = epicRepository.deleteAllEpics();
+        historyManager.removeAll(Subtask.class);
+        historyManager.removeAll(Epic.class);
+        searchIndex.removeAll(subtaskIds);
+        searchIndex.removeAll(epicIds);
+        schedule.removeAll(subtaskIds);
+        epicSubtasksCache.invalidateAll();
+        epicStatusCounters.clear();
+        epicSchedules.clear();
+        publishDeleted(TaskEventType.SUBTASK_DELETED, subtaskIds);
+        publishDeleted(TaskEventType.EPIC_DELETED, epicIds);
     }
 
     @Override
@@ -137,18 +258,18 @@ public class InMemoryTaskManager implements TaskManager {
             throw new TaskNotFoundException("Epic with id " + subtask.getEpicId() + " not found");
         }
 
-        Subtask subtaskCopy = new Subtask(subtask.getTitle(), subtask.getDescription(), subtask.getEpicId());
-        if (subtask.getStatus() != null) {
-            subtaskCopy.setStatus(subtask.getStatus());
-        }
-        subtaskCopy.setId(idGenerator.generateId());
+        Subtask subtaskCopy = newSubtaskCopy(subtask);
+        schedule.put(subtaskCopy);
 
         Subtask createdSubtask = subtaskRepository.saveSubtask(subtaskCopy);
-        epic.addSubtaskId(subtaskCopy.getId());
-        epicRepository.updateEpic(epic);
-        updateEpicStatus(epic.getId());
-
-        return createdSubtask;
+        epicRepository.updateEpic(epic.withSubtaskId(createdSubtask.getId()));
+        epicSubtasksCache.invalidate(epic.getId());
+        countSubtask(createdSubtask);
+        publish(TaskEventType.SUBTASK_CREATED, createdSubtask.getId(), createdSubtask);
+        updateEpicDerivedFields(epic.getId());
+        indexForSearch(createdSubtask);
+
+        return createdSubtask.copy();
     }
 
     @Override
@@ -156,15 +277,24 @@ public class InMemoryTaskManager implements TaskManager {
         return subtaskRepository.findAllSubtasks();
     }
 
+    @Override
+    public List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        return subtaskRepository.findSubtasksAfter(afterId, limit);
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        // Goes through getSubtasksAfter, so subclasses that guard reads guard every page
+        return Pages.stream(this::getSubtasksAfter, Subtask::getId, STREAM_PAGE_SIZE);
+    }
+
     @Override
     public Subtask getSubtask(int id) {
         Subtask subtask = subtaskRepository.findSubtaskById(id);
         if (subtask != null) {
-            Subtask subtaskCopy = copySubtask(subtask);
-            historyManager.add(subtaskCopy);
-            return subtaskCopy;
+            historyManager.add(subtask);
         }
-        return null;
+        return subtask;
     }
 
     @Override
@@ -173,7 +303,14 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new TaskNotFoundException("Epic with id " + epicId + " not found");
         }
-        return subtaskRepository.findByEpicId(epicId);
+        return epicSubtasksCache.get(epicId, subtaskRepository::findByEpicId);
+    }
+
+    /**
+     * Hit rate, evictions and size of the getEpicSubtasks cache.
+     */
+    public CacheStats getEpicSubtasksCacheStats() {
+        return epicSubtasksCache.stats();
     }
 
     @Override
@@ -189,23 +326,33 @@ public class InMemoryTaskManager implements TaskManager {
 
         int oldEpicId = subtaskToUpdate.getEpicId();
         int newEpicId = subtask.getEpicId();
+        Epic newEpic = epicRepository.findEpicById(newEpicId);
+        if (newEpic == null) {
+            throw new TaskNotFoundException("Epic with id " + newEpicId + " not found");
+        }
+        // The caller keeps its object, counters must see exactly what is stored
+        subtask = subtask.freeze();
+        schedule.put(subtask);
 
+        uncountSubtask(subtaskToUpdate);
+        countSubtask(subtask);
         if (oldEpicId != newEpicId) {
             Epic oldEpic = epicRepository.findEpicById(oldEpicId);
-            Epic newEpic = epicRepository.findEpicById(newEpicId);
-            if (newEpic == null) {
-                throw new TaskNotFoundException("Epic with id " + newEpicId + " not found");
-            }
+            epicRepository.updateEpic(newEpic.withSubtaskId(subtask.getId()));
             if (oldEpic != null) {
-                oldEpic.removeSubtaskId(subtask.getId());
-                epicRepository.updateEpic(oldEpic);
-                updateEpicStatus(oldEpic.getId());
+                epicRepository.updateEpic(oldEpic.withoutSubtaskId(subtask.getId()));
             }
-            newEpic.addSubtaskId(subtask.getId());
-            epicRepository.updateEpic(newEpic);
         }
         subtaskRepository.updateSubtask(subtask);
-        updateEpicStatus(subtask.getEpicId());
+        // Cached lists hold the old subtask even if it stays in the same epic
+        epicSubtasksCache.invalidate(oldEpicId);
+        epicSubtasksCache.invalidate(newEpicId);
+        publish(TaskEventType.SUBTASK_UPDATED, subtask.getId(), subtaskRepository.findSubtaskById(subtask.getId()));
+        if (oldEpicId != newEpicId && epicRepository.findEpicById(oldEpicId) != null) {
+            updateEpicDerivedFields(oldEpicId);
+        }
+        updateEpicDerivedFields(subtask.getEpicId());
+        indexForSearch(subtask);
     }
 
     @Override
@@ -215,46 +362,237 @@ public class InMemoryTaskManager implements TaskManager {
             throw new TaskNotFoundException("Subtask with id " + id + " not found");
         }
         Epic epic = epicRepository.findEpicById(subtaskToDelete.getEpicId());
-        if (epic != null) {
-            epic.removeSubtaskId(id);
-            epicRepository.updateEpic(epic);
-            updateEpicStatus(epic.getId());
-        }
+        uncountSubtask(subtaskToDelete);
         subtaskRepository.deleteSubtask(id);
+        epicSubtasksCache.invalidate(subtaskToDelete.getEpicId());
         historyManager.remove(id);
+        searchIndex.remove(id);
+        schedule.remove(id);
+        publish(TaskEventType.SUBTASK_DELETED, id, null);
+        if (epic != null) {
+            epicRepository.updateEpic(epic.withoutSubtaskId(id));
+            updateEpicDerivedFields(epic.getId());
+        }
     }
 
     @Override
     public void deleteAllSubtask() {
-        for (Subtask subtask : getAllSubtasks()) {
-            historyManager.remove(subtask.getId());
+        int[] subtaskIds = subtaskRepository.deleteAllSubtasks();
+        historyManager.removeAll(Subtask.class);
+        searchIndex.removeAll(subtaskIds);
+        schedule.removeAll(subtaskIds);
+        epicSubtasksCache.invalidateAll();
+        epicStatusCounters.clear();
+        epicSchedules.clear();
+        publishDeleted(TaskEventType.SUBTASK_DELETED, subtaskIds);
+
+        for (Epic epic : epicRepository.findAllEpics()) {
+            if (epic.getSubtaskCount() == 0 && epic.getStatus() == Status.NEW
+                    && epic.getStartTime() == null && epic.getDuration() == null) {
+                // Nothing to reset, don't copy it
+                continue;
+            }
+            Epic updatedEpic = epic.withoutSubtasks();
+            epicRepository.updateEpic(updatedEpic);
+            if (epic.getStatus() != updatedEpic.getStatus()) {
+                publishStatusChange(epic, updatedEpic);
+            } else if (epic.getStartTime() != null || epic.getDuration() != null) {
+                publish(TaskEventType.EPIC_UPDATED, epic.getId(), updatedEpic);
+            }
         }
+    }
 
-        List<Epic> allEpics = epicRepository.findAllEpics();
+    @Override
+    public List<Subtask> createSubtasks(List<Subtask> subtasks) {
+        for (Subtask subtask : subtasks) {
+            if (subtask.getId() != 0 && subtask.getId() == subtask.getEpicId()) {
+                throw new IllegalArgumentException("Subtask cannot be its own epic");
+            }
+            requireEpic(subtask.getEpicId());
+        }
 
-        for (Epic epic : allEpics) {
-            Epic currentEpic = epicRepository.findEpicById(epic.getId());
-            if (currentEpic != null) {
-                currentEpic.setSubtaskIds(new java.util.ArrayList<>());
-                currentEpic.updateStatusFromTaskManager(Status.NEW);
-                epicRepository.updateEpic(currentEpic);
+        List<Subtask> subtaskCopies = new ArrayList<>(subtasks.size());
+        for (Subtask subtask : subtasks) {
+            subtaskCopies.add(newSubtaskCopy(subtask));
+        }
+        schedule.putAll(subtaskCopies);
+
+        EpicChanges epicChanges = new EpicChanges();
+        List<Subtask> createdSubtasks = new ArrayList<>(subtasks.size());
+        for (Subtask subtaskCopy : subtaskCopies) {
+            Subtask createdSubtask = subtaskRepository.saveSubtask(subtaskCopy);
+            epicChanges.added(createdSubtask.getEpicId(), createdSubtask.getId());
+            countSubtask(createdSubtask);
+            indexForSearch(createdSubtask);
+            publish(TaskEventType.SUBTASK_CREATED, createdSubtask.getId(), createdSubtask);
+            createdSubtasks.add(createdSubtask.copy());
+        }
+        applyEpicChanges(epicChanges);
+        return createdSubtasks;
+    }
+
+    @Override
+    public void updateSubtasks(List<Subtask> subtasks) {
+        for (Subtask subtask : subtasks) {
+            if (subtask.getId() == subtask.getEpicId()) {
+                throw new IllegalArgumentException("Subtask cannot be its own epic");
+            }
+            if (subtaskRepository.findSubtaskById(subtask.getId()) == null) {
+                throw new TaskNotFoundException("Subtask with id " + subtask.getId() + " not found");
             }
+            requireEpic(subtask.getEpicId());
         }
 
-        subtaskRepository.deleteAllSubtasks();
+        List<Subtask> frozenSubtasks = new ArrayList<>(subtasks.size());
+        for (Subtask subtask : subtasks) {
+            frozenSubtasks.add(subtask.freeze());
+        }
+        schedule.putAll(frozenSubtasks);
+
+        EpicChanges epicChanges = new EpicChanges();
+        for (Subtask subtask : frozenSubtasks) {
+            Subtask oldSubtask = subtaskRepository.findSubtaskById(subtask.getId());
+            int oldEpicId = oldSubtask.getEpicId();
+            int newEpicId = subtask.getEpicId();
+            uncountSubtask(oldSubtask);
+            countSubtask(subtask);
+            if (oldEpicId != newEpicId) {
+                epicChanges.removed(oldEpicId, subtask.getId());
+                epicChanges.added(newEpicId, subtask.getId());
+            } else {
+                epicChanges.touched(oldEpicId);
+            }
+            subtaskRepository.updateSubtask(subtask);
+            indexForSearch(subtask);
+            publish(TaskEventType.SUBTASK_UPDATED, subtask.getId(), subtaskRepository.findSubtaskById(subtask.getId()));
+        }
+        applyEpicChanges(epicChanges);
     }
 
     @Override
-    public Task createTask(Task task) {
-        Task taskCopy = new Task(task.getTitle(), task.getDescription());
-        if (task.getStatus() != null) {
-            taskCopy.setStatus(task.getStatus());
-        } else {
-            taskCopy.setStatus(Status.NEW);
+    public void deleteSubtasks(Collection<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        for (int id : uniqueIds) {
+            if (subtaskRepository.findSubtaskById(id) == null) {
+                throw new TaskNotFoundException("Subtask with id " + id + " not found");
+            }
+        }
+
+        EpicChanges epicChanges = new EpicChanges();
+        for (int id : uniqueIds) {
+            Subtask subtask = subtaskRepository.findSubtaskById(id);
+            uncountSubtask(subtask);
+            epicChanges.removed(subtask.getEpicId(), id);
+            subtaskRepository.deleteSubtask(id);
+            historyManager.remove(id);
+            searchIndex.remove(id);
+            schedule.remove(id);
+            publish(TaskEventType.SUBTASK_DELETED, id, null);
+        }
+        applyEpicChanges(epicChanges);
+    }
+
+    private void requireEpic(int epicId) {
+        if (epicRepository.findEpicById(epicId) == null) {
+            throw new TaskNotFoundException("Epic with id " + epicId + " not found");
+        }
+    }
+
+    // Writes collected subtask id changes into each epic with one update, then recalculates its status once
+    private void applyEpicChanges(EpicChanges epicChanges) {
+        for (Map.Entry<Integer, EpicChanges.Change> entry : epicChanges.byEpicId.entrySet()) {
+            // Every epic of a batch had a subtask created, updated, moved or deleted
+            epicSubtasksCache.invalidate(entry.getKey());
+            Epic epic = epicRepository.findEpicById(entry.getKey());
+            if (epic == null) {
+                continue;
+            }
+            EpicChanges.Change change = entry.getValue();
+            if (!change.removed.isEmpty() || !change.added.isEmpty()) {
+                epicRepository.updateEpic(epic.withSubtaskIdsChanged(change.removed, change.added));
+            }
+            updateEpicDerivedFields(epic.getId());
+        }
+    }
+
+    /**
+     * Subtask ids added to and removed from epics during a batch.
+     * Moving a subtask away and back within one batch cancels out.
+     */
+    private static class EpicChanges {
+        private static class Change {
+            final Set<Integer> removed = new HashSet<>();
+            final Set<Integer> added = new LinkedHashSet<>();
+        }
+
+        final Map<Integer, Change> byEpicId = new LinkedHashMap<>();
+
+        void added(int epicId, int subtaskId) {
+            Change change = touched(epicId);
+            if (!change.removed.remove(subtaskId)) {
+                change.added.add(subtaskId);
+            }
+        }
+
+        void removed(int epicId, int subtaskId) {
+            Change change = touched(epicId);
+            if (!change.added.remove(subtaskId)) {
+                change.removed.add(subtaskId);
+            }
+        }
+
+        Change touched(int epicId) {
+            return byEpicId.computeIfAbsent(epicId, k -> new Change());
+        }
+    }
+
+    @Override
+    public List<Task> createTasks(List<Task> tasks) {
+        List<Task> taskCopies = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            taskCopies.add(newTaskCopy(task));
         }
+        // All or nothing: an overlap anywhere in the batch rejects the whole batch
+        schedule.putAll(taskCopies);
+
+        List<Task> createdTasks = new ArrayList<>(tasks.size());
+        for (Task taskCopy : taskCopies) {
+            createdTasks.add(saveNewTask(taskCopy));
+        }
+        return createdTasks;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        Task taskCopy = newTaskCopy(task);
+        schedule.put(taskCopy);
+        return saveNewTask(taskCopy);
+    }
+
+    // Frozen copy with a new id, frozen so that repositories and the schedule share one instance
+    private Task newTaskCopy(Task task) {
+        Task taskCopy = new Task(task.getTitle(), task.getDescription(),
+                task.getStatus() != null ? task.getStatus() : Status.NEW,
+                task.getStartTime(), task.getDuration());
         taskCopy.setId(idGenerator.generateId());
+        return taskCopy.freeze();
+    }
 
-        return taskRepository.saveTask(taskCopy);
+    private Subtask newSubtaskCopy(Subtask subtask) {
+        Subtask subtaskCopy = new Subtask(subtask.getTitle(), subtask.getDescription(),
+                subtask.getStatus() != null ? subtask.getStatus() : Status.NEW, subtask.getEpicId(),
+                subtask.getStartTime(), subtask.getDuration());
+        subtaskCopy.setId(idGenerator.generateId());
+        return subtaskCopy.freeze();
+    }
+
+    // Not overridable, so batch creation in subclasses doesn't go through their createTask
+    private Task saveNewTask(Task taskCopy) {
+        // Indexed first for the same reason as in createEpic: once saved, updates of the task can run
+        indexForSearch(taskCopy);
+        Task createdTask = taskRepository.saveTask(taskCopy);
+        publish(TaskEventType.TASK_CREATED, createdTask.getId(), createdTask);
+        return createdTask.copy();
     }
 
     @Override
@@ -262,35 +600,59 @@ public class InMemoryTaskManager implements TaskManager {
         return taskRepository.findAllTasks();
     }
 
+    @Override
+    public List<Task> getTasksAfter(int afterId, int limit) {
+        return taskRepository.findTasksAfter(afterId, limit);
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        // Goes through getTasksAfter, so subclasses that guard reads guard every page
+        return Pages.stream(this::getTasksAfter, Task::getId, STREAM_PAGE_SIZE);
+    }
+
     @Override
     public Task getTask(int id) {
         Task task = taskRepository.findTaskById(id);
         if (task != null) {
-            Task taskCopy = copyTask(task);
-            historyManager.add(taskCopy);
-            return taskCopy;
+            historyManager.add(task);
         }
-        return null;
+        return task;
     }
 
     @Override
     public void updateTask(Task task) {
+        if (taskRepository.findTaskById(task.getId()) == null) {
+            throw new TaskNotFoundException(task.getId());
+        }
+        task = task.freeze();
+        schedule.put(task);
         taskRepository.updateTask(task);
+        indexForSearch(task);
+        publish(TaskEventType.TASK_UPDATED, task.getId(), taskRepository.findTaskById(task.getId()));
     }
 
     @Override
     public void deleteTask(int id) {
+        // Deleting a missing task is allowed, but must not produce an event
+        boolean exists = taskRepository.findTaskById(id) != null;
         taskRepository.deleteTask(id);
-        historyManager.remove(id);
+        if (exists) {
+            // The id can belong to an epic or a subtask, those must stay in history and search
+            historyManager.remove(id);
+            searchIndex.remove(id);
+            schedule.remove(id);
+            publish(TaskEventType.TASK_DELETED, id, null);
+        }
     }
 
     @Override
     public void deleteAllTasks() {
-        for (Task task : getAllTasks()) {
-            historyManager.remove(task.getId());
-        }
-
-        taskRepository.deleteAllTasks();
+        int[] taskIds = taskRepository.deleteAllTasks();
+        historyManager.removeAll(Task.class);
+        searchIndex.removeAll(taskIds);
+        schedule.removeAll(taskIds);
+        publishDeleted(TaskEventType.TASK_DELETED, taskIds);
     }
 
     @Override
@@ -298,15 +660,121 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    private Task copyTask(Task original) {
-        return original.copy();
+    @Override
+    public List<Task> getRecentHistory(int limit) {
+        return historyManager.getRecentHistory(limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return schedule.ordered();
+    }
+
+    /**
+     * Puts everything stored in the repositories into the prioritized view from scratch.
+     * Needed when repositories were filled directly, e.g. when state is restored from disk.
+     */
+    public void rebuildSchedule() {
+        schedule.clear();
+        schedule.putAll(taskRepository.findAllTasks());
+        schedule.putAll(subtaskRepository.findAllSubtasks());
+    }
+
+    @Override
+    public BoardSnapshot openSnapshot() {
+        return new BoardSnapshot(this, versions.openSnapshot());
+    }
+
+    /**
+     * Subclasses that let writes run at the same time as openSnapshot() wrap every write operation
+     * in beginWrite() / endWrite(), so a snapshot never sees half of it.
+     */
+    protected void beginWrite() {
+        versions.beginWrite();
+    }
+
+    protected void endWrite() {
+        versions.endWrite();
+    }
+
+    // Reads for BoardSnapshot, overridden by subclasses that guard their repositories with a lock
+
+    Task findTaskAt(int id, long version) {
+        return taskRepository.findTaskAt(id, version);
+    }
+
+    Subtask findSubtaskAt(int id, long version) {
+        return subtaskRepository.findSubtaskAt(id, version);
+    }
+
+    Epic findEpicAt(int id, long version) {
+        return epicRepository.findEpicAt(id, version);
     }
 
-    private Epic copyEpic(Epic original) {
-        return original.copy();
+    List<Task> findAllTasksAt(long version) {
+        return taskRepository.findAllTasksAt(version);
     }
 
-    private Subtask copySubtask(Subtask original) {
-        return original.copy();
+    List<Subtask> findAllSubtasksAt(long version) {
+        return subtaskRepository.findAllSubtasksAt(version);
     }
+
+    List<Epic> findAllEpicsAt(long version) {
+        return epicRepository.findAllEpicsAt(version);
+    }
+
+    void closeSnapshot(long version) {
+        versions.closeSnapshot(version);
+        // The reader pays for cleaning up, not the writers
+        taskRepository.pruneVersions();
+        subtaskRepository.pruneVersions();
+        epicRepository.pruneVersions();
+    }
+
+    // Records with old versions kept for open snapshots
+    int retainedVersionCount() {
+        return taskRepository.retainedVersionCount() + subtaskRepository.retainedVersionCount()
+                + epicRepository.retainedVersionCount();
+    }
+
+    @Override
+    public List<Task> search(String query, int offset, int limit) {
+        int[] ids = searchIndex.search(query, offset, limit);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = findAnyById(id);
+            // Can be missing if it is being deleted right now
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indexes everything stored in the repositories from scratch.
+     * Needed when repositories were filled directly, e.g. when state is restored from disk.
+     */
+    public void rebuildSearchIndex() {
+        searchIndex.clear();
+        taskRepository.findAllTasks().forEach(this::indexForSearch);
+        epicRepository.findAllEpics().forEach(this::indexForSearch);
+        subtaskRepository.findAllSubtasks().forEach(this::indexForSearch);
+    }
+
+    private void indexForSearch(Task task) {
+        searchIndex.put(task.getId(), task.getTitle(), task.getDescription());
+    }
+
+    private Task findAnyById(int id) {
+        Task task = taskRepository.findTaskById(id);
+        if (task == null) {
+            task = epicRepository.findEpicById(id);
+        }
+        if (task == null) {
+            task = subtaskRepository.findSubtaskById(id);
+        }
+        return task;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package service;
+
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.Task;
+
+import java.util.List;
+
+/**
+ * HistoryManager decorator that records calls, errors and latency, works like InstrumentedTaskManager.
+ */
+public class InstrumentedHistoryManager implements HistoryManager {
+
+    public static final String COMPONENT = "history_manager";
+
+    private final HistoryManager delegate;
+    private final OperationMetrics addMetrics;
+    private final OperationMetrics removeMetrics;
+    private final OperationMetrics removeAllMetrics;
+    private final OperationMetrics getHistoryMetrics;
+    private final OperationMetrics getRecentHistoryMetrics;
+
+    public InstrumentedHistoryManager(HistoryManager delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.addMetrics = registry.operation(COMPONENT, "add");
+        this.removeMetrics = registry.operation(COMPONENT, "remove");
+        this.removeAllMetrics = registry.operation(COMPONENT, "removeAll");
+        this.getHistoryMetrics = registry.operation(COMPONENT, "getHistory");
+        this.getRecentHistoryMetrics = registry.operation(COMPONENT, "getRecentHistory");
+    }
+
+    @Override
+    public void add(Task task) {
+        long start = addMetrics.start();
+        try {
+            delegate.add(task);
+        } catch (RuntimeException e) {
+            addMetrics.recordError(e);
+            throw e;
+        } finally {
+            addMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        long start = removeMetrics.start();
+        try {
+            delegate.remove(id);
+        } catch (RuntimeException e) {
+            removeMetrics.recordError(e);
+            throw e;
+        } finally {
+            removeMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void removeAll(int[] ids) {
+        long start = removeAllMetrics.start();
+        try {
+            delegate.removeAll(ids);
+        } catch (RuntimeException e) {
+            removeAllMetrics.recordError(e);
+            throw e;
+        } finally {
+            removeAllMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void removeAll(Class<? extends Task> type) {
+        long start = removeAllMetrics.start();
+        try {
+            delegate.removeAll(type);
+        } catch (RuntimeException e) {
+            removeAllMetrics.recordError(e);
+            throw e;
+        } finally {
+            removeAllMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = getHistoryMetrics.start();
+        try {
+            return delegate.getHistory();
+        } catch (RuntimeException e) {
+            getHistoryMetrics.recordError(e);
+            throw e;
+        } finally {
+            getHistoryMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int limit) {
+        long start = getRecentHistoryMetrics.start();
+        try {
+            return delegate.getRecentHistory(limit);
+        } catch (RuntimeException e) {
+            getRecentHistoryMetrics.recordError(e);
+            throw e;
+        } finally {
+            getRecentHistoryMetrics.stop(start);
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package service;
+
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * TaskManager decorator that records calls, errors and latency of every method into a MetricsRegistry.
+ *
+ * Each method has its own OperationMetrics resolved in the constructor, so recording is a counter increment
+ * and, for the sampled calls, two nanoTime() reads and a histogram update, all without locks.
+ * Failed calls are counted as calls and as errors by exception.
+ * Stream methods measure only creating the stream, not consuming it.
+ */
+public class InstrumentedTaskManager implements TaskManager {
+
+    public static final String COMPONENT = "task_manager";
+
+    private final TaskManager delegate;
+    private final OperationMetrics createTaskMetrics;
+    private final OperationMetrics getAllTasksMetrics;
+    private final OperationMetrics getTasksAfterMetrics;
+    private final OperationMetrics streamTasksMetrics;
+    private final OperationMetrics getTaskMetrics;
+    private final OperationMetrics updateTaskMetrics;
+    private final OperationMetrics deleteTaskMetrics;
+    private final OperationMetrics deleteAllTasksMetrics;
+    private final OperationMetrics createTasksMetrics;
+    private final OperationMetrics createSubtaskMetrics;
+    private final OperationMetrics getAllSubtasksMetrics;
+    private final OperationMetrics getSubtasksAfterMetrics;
+    private final OperationMetrics streamSubtasksMetrics;
+    private final OperationMetrics getSubtaskMetrics;
+    private final OperationMetrics getEpicSubtasksMetrics;
+    private final OperationMetrics updateSubtaskMetrics;
+    private final OperationMetrics deleteSubtaskMetrics;
+    private final OperationMetrics deleteAllSubtaskMetrics;
+    private final OperationMetrics createSubtasksMetrics;
+    private final OperationMetrics updateSubtasksMetrics;
+    private final OperationMetrics deleteSubtasksMetrics;
+    private final OperationMetrics createEpicMetrics;
+    private final OperationMetrics getAllEpicsMetrics;
+    private final OperationMetrics getEpicsAfterMetrics;
+    private final OperationMetrics streamEpicsMetrics;
+    private final OperationMetrics getEpicMetrics;
+    private final OperationMetrics updateEpicMetrics;
+    private final OperationMetrics updateEpicDetailsMetrics;
+    private final OperationMetrics deleteEpicMetrics;
+    private final OperationMetrics deleteAllEpicsMetrics;
+    private final OperationMetrics getHistoryMetrics;
+    private final OperationMetrics getRecentHistoryMetrics;
+    private final OperationMetrics getPrioritizedTasksMetrics;
+    private final OperationMetrics openSnapshotMetrics;
+    private final OperationMetrics searchMetrics;
+
+    public InstrumentedTaskManager(TaskManager delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.createTaskMetrics = registry.operation(COMPONENT, "createTask");
+        this.getAllTasksMetrics = registry.operation(COMPONENT, "getAllTasks");
+        this.getTasksAfterMetrics = registry.operation(COMPONENT, "getTasksAfter");
+        this.streamTasksMetrics = registry.operation(COMPONENT, "streamTasks");
+        this.getTaskMetrics = registry.operation(COMPONENT, "getTask");
+        this.updateTaskMetrics = registry.operation(COMPONENT, "updateTask");
+        this.deleteTaskMetrics = registry.operation(COMPONENT, "deleteTask");
+        this.deleteAllTasksMetrics = registry.operation(COMPONENT, "deleteAllTasks");
+        this.createTasksMetrics = registry.operation(COMPONENT, "createTasks");
+        this.createSubtaskMetrics = registry.operation(COMPONENT, "createSubtask");
+        this.getAllSubtasksMetrics = registry.operation(COMPONENT, "getAllSubtasks");
+        this.getSubtasksAfterMetrics = registry.operation(COMPONENT, "getSubtasksAfter");
+        this.streamSubtasksMetrics = registry.operation(COMPONENT, "streamSubtasks");
+        this.getSubtaskMetrics = registry.operation(COMPONENT, "getSubtask");
+        this.getEpicSubtasksMetrics = registry.operation(COMPONENT, "getEpicSubtasks");
+        this.updateSubtaskMetrics = registry.operation(COMPONENT, "updateSubtask");
+        this.deleteSubtaskMetrics = registry.operation(COMPONENT, "deleteSubtask");
+        this.deleteAllSubtaskMetrics = registry.operation(COMPONENT, "deleteAllSubtask");
+        this.createSubtasksMetrics = registry.operation(COMPONENT, "createSubtasks");
+        this.updateSubtasksMetrics = registry.operation(COMPONENT, "updateSubtasks");
+        this.deleteSubtasksMetrics = registry.operation(COMPONENT, "deleteSubtasks");
+        this.createEpicMetrics = registry.operation(COMPONENT, "createEpic");
+        this.getAllEpicsMetrics = registry.operation(COMPONENT, "getAllEpics");
+        this.getEpicsAfterMetrics = registry.operation(COMPONENT, "getEpicsAfter");
+        this.streamEpicsMetrics = registry.operation(COMPONENT, "streamEpics");
+        this.getEpicMetrics = registry.operation(COMPONENT, "getEpic");
+        this.updateEpicMetrics = registry.operation(COMPONENT, "updateEpic");
+        this.updateEpicDetailsMetrics = registry.operation(COMPONENT, "updateEpicDetails");
+        this.deleteEpicMetrics = registry.operation(COMPONENT, "deleteEpic");
+        this.deleteAllEpicsMetrics = registry.operation(COMPONENT, "deleteAllEpics");
+        this.getHistoryMetrics = registry.operation(COMPONENT, "getHistory");
+        this.getRecentHistoryMetrics = registry.operation(COMPONENT, "getRecentHistory");
+        this.getPrioritizedTasksMetrics = registry.operation(COMPONENT, "getPrioritizedTasks");
+        this.openSnapshotMetrics = registry.operation(COMPONENT, "openSnapshot");
+        this.searchMetrics = registry.operation(COMPONENT, "search");
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        long start = createTaskMetrics.start();
+        try {
+            return delegate.createTask(task);
+        } catch (RuntimeException e) {
+            createTaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            createTaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        long start = getAllTasksMetrics.start();
+        try {
+            return delegate.getAllTasks();
+        } catch (RuntimeException e) {
+            getAllTasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            getAllTasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksAfter(int afterId, int limit) {
+        long start = getTasksAfterMetrics.start();
+        try {
+            return delegate.getTasksAfter(afterId, limit);
+        } catch (RuntimeException e) {
+            getTasksAfterMetrics.recordError(e);
+            throw e;
+        } finally {
+            getTasksAfterMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        long start = streamTasksMetrics.start();
+        try {
+            return delegate.streamTasks();
+        } catch (RuntimeException e) {
+            streamTasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            streamTasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        long start = getTaskMetrics.start();
+        try {
+            return delegate.getTask(id);
+        } catch (RuntimeException e) {
+            getTaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            getTaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        long start = updateTaskMetrics.start();
+        try {
+            delegate.updateTask(task);
+        } catch (RuntimeException e) {
+            updateTaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            updateTaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        long start = deleteTaskMetrics.start();
+        try {
+            delegate.deleteTask(id);
+        } catch (RuntimeException e) {
+            deleteTaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            deleteTaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        long start = deleteAllTasksMetrics.start();
+        try {
+            delegate.deleteAllTasks();
+        } catch (RuntimeException e) {
+            deleteAllTasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            deleteAllTasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> createTasks(List<Task> tasks) {
+        long start = createTasksMetrics.start();
+        try {
+            return delegate.createTasks(tasks);
+        } catch (RuntimeException e) {
+            createTasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            createTasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        long start = createSubtaskMetrics.start();
+        try {
+            return delegate.createSubtask(subtask);
+        } catch (RuntimeException e) {
+            createSubtaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            createSubtaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        long start = getAllSubtasksMetrics.start();
+        try {
+            return delegate.getAllSubtasks();
+        } catch (RuntimeException e) {
+            getAllSubtasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            getAllSubtasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        long start = getSubtasksAfterMetrics.start();
+        try {
+            return delegate.getSubtasksAfter(afterId, limit);
+        } catch (RuntimeException e) {
+            getSubtasksAfterMetrics.recordError(e);
+            throw e;
+        } finally {
+            getSubtasksAfterMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        long start = streamSubtasksMetrics.start();
+        try {
+            return delegate.streamSubtasks();
+        } catch (RuntimeException e) {
+            streamSubtasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            streamSubtasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        long start = getSubtaskMetrics.start();
+        try {
+            return delegate.getSubtask(id);
+        } catch (RuntimeException e) {
+            getSubtaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            getSubtaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        long start = getEpicSubtasksMetrics.start();
+        try {
+            return delegate.getEpicSubtasks(epicId);
+        } catch (RuntimeException e) {
+            getEpicSubtasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            getEpicSubtasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        long start = updateSubtaskMetrics.start();
+        try {
+            delegate.updateSubtask(subtask);
+        } catch (RuntimeException e) {
+            updateSubtaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            updateSubtaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        long start = deleteSubtaskMetrics.start();
+        try {
+            delegate.deleteSubtask(id);
+        } catch (RuntimeException e) {
+            deleteSubtaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            deleteSubtaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtask() {
+        long start = deleteAllSubtaskMetrics.start();
+        try {
+            delegate.deleteAllSubtask();
+        } catch (RuntimeException e) {
+            deleteAllSubtaskMetrics.recordError(e);
+            throw e;
+        } finally {
+            deleteAllSubtaskMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Subtask> createSubtasks(List<Subtask> subtasks) {
+        long start = createSubtasksMetrics.start();
+        try {
+            return delegate.createSubtasks(subtasks);
+        } catch (RuntimeException e) {
+            createSubtasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            createSubtasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void updateSubtasks(List<Subtask> subtasks) {
+        long start = updateSubtasksMetrics.start();
+        try {
+            delegate.updateSubtasks(subtasks);
+        } catch (RuntimeException e) {
+            updateSubtasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            updateSubtasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void deleteSubtasks(Collection<Integer> ids) {
+        long start = deleteSubtasksMetrics.start();
+        try {
+            delegate.deleteSubtasks(ids);
+        } catch (RuntimeException e) {
+            deleteSubtasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            deleteSubtasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        long start = createEpicMetrics.start();
+        try {
+            return delegate.createEpic(epic);
+        } catch (RuntimeException e) {
+            createEpicMetrics.recordError(e);
+            throw e;
+        } finally {
+            createEpicMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        long start = getAllEpicsMetrics.start();
+        try {
+            return delegate.getAllEpics();
+        } catch (RuntimeException e) {
+            getAllEpicsMetrics.recordError(e);
+            throw e;
+        } finally {
+            getAllEpicsMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsAfter(int afterId, int limit) {
+        long start = getEpicsAfterMetrics.start();
+        try {
+            return delegate.getEpicsAfter(afterId, limit);
+        } catch (RuntimeException e) {
+            getEpicsAfterMetrics.recordError(e);
+            throw e;
+        } finally {
+            getEpicsAfterMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        long start = streamEpicsMetrics.start();
+        try {
+            return delegate.streamEpics();
+        } catch (RuntimeException e) {
+            streamEpicsMetrics.recordError(e);
+            throw e;
+        } finally {
+            streamEpicsMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        long start = getEpicMetrics.start();
+        try {
+            return delegate.getEpic(id);
+        } catch (RuntimeException e) {
+            getEpicMetrics.recordError(e);
+            throw e;
+        } finally {
+            getEpicMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long start = updateEpicMetrics.start();
+        try {
+            delegate.updateEpic(epic);
+        } catch (RuntimeException e) {
+            updateEpicMetrics.recordError(e);
+            throw e;
+        } finally {
+            updateEpicMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void updateEpicDetails(int id, String title, String description) {
+        long start = updateEpicDetailsMetrics.start();
+        try {
+            delegate.updateEpicDetails(id, title, description);
+        } catch (RuntimeException e) {
+            updateEpicDetailsMetrics.recordError(e);
+            throw e;
+        } finally {
+            updateEpicDetailsMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        long start = deleteEpicMetrics.start();
+        try {
+            delegate.deleteEpic(id);
+        } catch (RuntimeException e) {
+            deleteEpicMetrics.recordError(e);
+            throw e;
+        } finally {
+            deleteEpicMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        long start = deleteAllEpicsMetrics.start();
+        try {
+            delegate.deleteAllEpics();
+        } catch (RuntimeException e) {
+            deleteAllEpicsMetrics.recordError(e);
+            throw e;
+        } finally {
+            deleteAllEpicsMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = getHistoryMetrics.start();
+        try {
+            return delegate.getHistory();
+        } catch (RuntimeException e) {
+            getHistoryMetrics.recordError(e);
+            throw e;
+        } finally {
+            getHistoryMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int limit) {
+        long start = getRecentHistoryMetrics.start();
+        try {
+            return delegate.getRecentHistory(limit);
+        } catch (RuntimeException e) {
+            getRecentHistoryMetrics.recordError(e);
+            throw e;
+        } finally {
+            getRecentHistoryMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long start = getPrioritizedTasksMetrics.start();
+        try {
+            return delegate.getPrioritizedTasks();
+        } catch (RuntimeException e) {
+            getPrioritizedTasksMetrics.recordError(e);
+            throw e;
+        } finally {
+            getPrioritizedTasksMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public BoardSnapshot openSnapshot() {
+        long start = openSnapshotMetrics.start();
+        try {
+            return delegate.openSnapshot();
+        } catch (RuntimeException e) {
+            openSnapshotMetrics.recordError(e);
+            throw e;
+        } finally {
+            openSnapshotMetrics.stop(start);
+        }
+    }
+
+    @Override
+    public List<Task> search(String query, int offset, int limit) {
+        long start = searchMetrics.start();
+        try {
+            return delegate.search(query, offset, limit);
+        } catch (RuntimeException e) {
+            searchMetrics.recordError(e);
+            throw e;
+        } finally {
+            searchMetrics.stop(start);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package service;
 
+import metrics.MetricsRegistry;
+import persistence.SyncPolicy;
 import repository.EpicRepositoryImpl;
 import repository.SubtaskRepositoryImpl;
 import repository.TaskRepositoryImpl;
 
+import java.nio.file.Path;
+
 public class Managers {
 
     public static TaskManager getDefault() {
@@ -16,7 +20,44 @@ public class Managers {
         );
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static WalTaskManager getDurable(Path dataDir) {
+        return getDurable(dataDir, SyncPolicy.everyWrite());
+    }
+
+    public static WalTaskManager getDurable(Path dataDir, SyncPolicy syncPolicy) {
+        return new WalTaskManager(dataDir, syncPolicy);
+    }
+
+    /**
+     * Default manager that records its calls and the calls to its history in the registry.
+     */
+    public static TaskManager getInstrumented(MetricsRegistry registry) {
+        return instrument(new InMemoryTaskManager(
+                new IdGeneratorImpl(),
+                new TaskRepositoryImpl(),
+                new SubtaskRepositoryImpl(),
+                new EpicRepositoryImpl(),
+                instrument(getDefaultHistory(), registry)
+        ), registry);
+    }
+
+    public static TaskManager instrument(TaskManager taskManager, MetricsRegistry registry) {
+        return new InstrumentedTaskManager(taskManager, registry);
+    }
+
+    public static HistoryManager instrument(HistoryManager historyManager, MetricsRegistry registry) {
+        return new InstrumentedHistoryManager(historyManager, registry);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getConcurrentHistory(int capacity) {
+        return new ConcurrentHistoryManager(capacity);
+    }
 }
@@ -4,8 +4,15 @@ import model.Epic;
 import model.Subtask;
 import model.Task;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Reads (get*, getAll*, getEpicSubtasks, getHistory) return shared read-only snapshots, see Task.freeze().
+ * To change a task, make a copy() or use the with* methods and pass the result to update*.
+ * create* returns a mutable copy owned by the caller.
+ */
 public interface TaskManager {
 
     // Task
@@ -13,6 +20,17 @@ public interface TaskManager {
 
     List<Task> getAllTasks();
 
+    /**
+     * Up to limit tasks with id greater than afterId, in id order. Pass 0 to get the first page
+     * and the id of the last returned task to get the next one.
+     */
+    List<Task> getTasksAfter(int afterId, int limit);
+
+    /**
+     * All tasks in id order, loaded page by page while the stream is consumed.
+     */
+    Stream<Task> streamTasks();
+
     Task getTask(int id);
 
     void updateTask(Task task);
@@ -21,13 +39,33 @@ public interface TaskManager {
 
     void deleteAllTasks();
 
+    /**
+     * Creates all tasks at once, returns them with ids in the same order.
+     */
+    List<Task> createTasks(List<Task> tasks);
+
     // Subtask
     Subtask createSubtask(Subtask subtask);
 
     List<Subtask> getAllSubtasks();
 
+    /**
+     * Up to limit subtasks with id greater than afterId, in id order. Pass 0 to get the first page
+     * and the id of the last returned subtask to get the next one.
+     */
+    List<Subtask> getSubtasksAfter(int afterId, int limit);
+
+    /**
+     * All subtasks in id order, loaded page by page while the stream is consumed.
+     */
+    Stream<Subtask> streamSubtasks();
+
     Subtask getSubtask(int id);
 
+    /**
+     * Read-only list of the epic's subtasks. Repeated calls are served from a cache
+     * until a subtask of the epic is created, updated, moved or deleted.
+     */
     List<Subtask> getEpicSubtasks(int epicId);
 
     void updateSubtask(Subtask subtask);
@@ -36,18 +74,69 @@ public interface TaskManager {
 
     void deleteAllSubtask();
 
+    // Batch changes: everything is validated first, so a failing batch changes nothing.
+    // Every affected epic is updated and its status recalculated once per batch, not once per subtask.
+    List<Subtask> createSubtasks(List<Subtask> subtasks);
+
+    void updateSubtasks(List<Subtask> subtasks);
+
+    void deleteSubtasks(Collection<Integer> ids);
+
     // Epic
     Epic createEpic(Epic epic);
 
     List<Epic> getAllEpics();
 
+    /**
+     * Up to limit epics with id greater than afterId, in id order. Pass 0 to get the first page
+     * and the id of the last returned epic to get the next one.
+     */
+    List<Epic> getEpicsAfter(int afterId, int limit);
+
+    /**
+     * All epics in id order, loaded page by page while the stream is consumed.
+     */
+    Stream<Epic> streamEpics();
+
     Epic getEpic(int id);
 
     void updateEpic(Epic epic);
 
+    /**
+     * Changes only the title and description of a stored epic, in one step with reading it:
+     * subtasks, status and schedule stay as they are at that moment.
+     */
+    void updateEpicDetails(int id, String title, String description);
+
     void deleteEpic(int id);
 
     void deleteAllEpics();
 
     List<Task> getHistory();
+
+    /**
+     * The last limit entries of getHistory(), oldest first.
+     */
+    List<Task> getRecentHistory(int limit);
+
+    /**
+     * Tasks and subtasks that have a start time, ordered by start time (then id).
+     * Epics are not included, their times are derived from subtasks.
+     * Creating or updating a task or subtask that overlaps another one throws TaskOverlapException.
+     */
+    List<Task> getPrioritizedTasks();
+
+    /**
+     * Point-in-time view of all tasks, subtasks and epics for long reads like reports.
+     * Writes keep going while the snapshot is read, it just doesn't see them.
+     * Old versions are kept until the snapshot is closed, so use try-with-resources.
+     */
+    BoardSnapshot openSnapshot();
+
+    /**
+     * Finds tasks, subtasks and epics whose title or description contain all words of the query
+     * (case-insensitive). Results are ranked by how often the words occur, then by id.
+     * Returns at most limit results, skipping the first offset ones. Found tasks are not added to history.
+     */
+    List<Task> search(String query, int offset, int limit);
 }
@@ -0,0 +1,143 @@
+package service;
+
+import exception.TaskOverlapException;
+import model.Task;
+import util.IntObjectMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tasks and subtasks that have a start time, ordered by start time, and the check that they don't overlap.
+ *
+ * Intervals [start, end) with a positive duration are kept in a balanced tree by start time. put() never lets
+ * two of them overlap, so they are disjoint and their ends are ordered like their starts. That's why a new
+ * interval only has to be compared with its two neighbours in the tree: O(log n) instead of a scan over all tasks.
+ * Tasks without duration take no time, they appear in the ordered view but never overlap anything.
+ *
+ * All methods are synchronized, so a check and the insert after it are atomic also in ConcurrentTaskManager.
+ */
+class TaskSchedule {
+
+    private static final Comparator<Task> BY_START_TIME =
+            Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId);
+
+    // Only intervals with a positive duration, start times are unique because they never overlap
+    private final TreeMap<LocalDateTime, Task> busy = new TreeMap<>();
+    private final TreeSet<Task> ordered = new TreeSet<>(BY_START_TIME);
+    private final IntObjectMap<Task> scheduledById = new IntObjectMap<>();
+
+    /**
+     * Adds the task or replaces its previous version (same id). A task without start time is only removed.
+     * Throws TaskOverlapException and keeps the previous version if the task overlaps another one.
+     */
+    public synchronized void put(Task task) {
+        Task previous = scheduledById.get(task.getId());
+        removeEntry(previous);
+        if (task.getStartTime() == null) {
+            return;
+        }
+        Task conflict = findOverlap(task);
+        if (conflict != null) {
+            addEntry(previous);
+            throw new TaskOverlapException(describe(task) + " overlaps " + describe(conflict));
+        }
+        addEntry(task);
+    }
+
+    /**
+     * Like put() for every task, but all or nothing: on overlap every task gets its previous version back.
+     */
+    public synchronized void putAll(Collection<? extends Task> tasks) {
+        Map<Integer, Task> previousById = new LinkedHashMap<>();
+        try {
+            for (Task task : tasks) {
+                previousById.putIfAbsent(task.getId(), scheduledById.get(task.getId()));
+                put(task);
+            }
+        } catch (TaskOverlapException e) {
+            for (int id : previousById.keySet()) {
+                removeEntry(scheduledById.get(id));
+            }
+            for (Task previous : previousById.values()) {
+                addEntry(previous);
+            }
+            throw e;
+        }
+    }
+
+    public synchronized void remove(int id) {
+        removeEntry(scheduledById.get(id));
+    }
+
+    public synchronized void removeAll(int[] ids) {
+        for (int id : ids) {
+            removeEntry(scheduledById.get(id));
+        }
+    }
+
+    public synchronized void clear() {
+        busy.clear();
+        ordered.clear();
+        scheduledById.clear();
+    }
+
+    public synchronized List<Task> ordered() {
+        return new ArrayList<>(ordered);
+    }
+
+    private Task findOverlap(Task task) {
+        if (!takesTime(task)) {
+            return null;
+        }
+        LocalDateTime start = task.getStartTime();
+        // The latest interval starting at or before ours has the latest end among them
+        Map.Entry<LocalDateTime, Task> before = busy.floorEntry(start);
+        if (before != null && before.getValue().getEndTime().isAfter(start)) {
+            return before.getValue();
+        }
+        Map.Entry<LocalDateTime, Task> after = busy.higherEntry(start);
+        if (after != null && after.getKey().isBefore(task.getEndTime())) {
+            return after.getValue();
+        }
+        return null;
+    }
+
+    private void addEntry(Task task) {
+        if (task == null) {
+            return;
+        }
+        scheduledById.put(task.getId(), task);
+        ordered.add(task);
+        if (takesTime(task)) {
+            busy.put(task.getStartTime(), task);
+        }
+    }
+
+    private void removeEntry(Task task) {
+        if (task == null) {
+            return;
+        }
+        scheduledById.remove(task.getId());
+        ordered.remove(task);
+        if (takesTime(task)) {
+            busy.remove(task.getStartTime());
+        }
+    }
+
+    private static boolean takesTime(Task task) {
+        return task.getDuration() != null && !task.getDuration().isZero();
+    }
+
+    private static String describe(Task task) {
+        return task.getClass().getSimpleName() + " " + task.getId()
+                + " [" + task.getStartTime() + " - " + task.getEndTime() + ")";
+    }
+}
@@ -0,0 +1,737 @@
+package service;
+
+import exception.ManagerSaveException;
+import exception.TaskNotFoundException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import persistence.Snapshot;
+import persistence.SyncPolicy;
+import persistence.WalEntry;
+import persistence.WriteAheadLog;
+import repository.EpicRepository;
+import repository.EpicRepositoryImpl;
+import repository.SubtaskRepository;
+import repository.SubtaskRepositoryImpl;
+import repository.TaskRepository;
+import repository.TaskRepositoryImpl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TaskManager that survives restarts: every successful change is appended to a write-ahead log,
+ * and the state is restored from the data directory when the manager is created.
+ *
+ * Changes are applied in memory under the manager lock, but the log commit (fsync) happens after the lock
+ * is released, so threads that write at the same time share one fsync.
+ * Once the log has stopped after a failed write, the manager is read-only: every write is rejected under
+ * the lock before it changes anything, so memory never gets ahead of what a restart would restore.
+ * Only writes that were already applied when the failure happened get an exception for a change they made.
+ *
+ * The log is split into numbered segments. A snapshot of the whole state is written in the background
+ * every snapshotInterval entries (or on takeSnapshot()), after that the segments it covers are deleted.
+ * The automatic snapshot starts after the write that made it due is committed, its failures are reported
+ * to the uncaught exception handler and never fail that write.
+ * Startup loads the snapshot and replays only the segments written after it.
+ */
+public class WalTaskManager extends InMemoryTaskManager implements AutoCloseable {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dataDir;
+    private final int snapshotInterval;
+    private final IdGenerator idGenerator;
+    private final TaskRepository taskRepository;
+    private final SubtaskRepository subtaskRepository;
+    private final EpicRepository epicRepository;
+    private final HistoryManager historyManager;
+    private final WriteAheadLog log;
+    private final ExecutorService snapshotWriter;
+
+    // guarded by this
+    private long currentSegment;
+    // written under this, read without it after commits
+    private volatile int entriesSinceSnapshot;
+    private CompletableFuture<Void> pendingSnapshot = CompletableFuture.completedFuture(null);
+
+    public WalTaskManager(Path dataDir, SyncPolicy syncPolicy) {
+        this(dataDir, syncPolicy, DEFAULT_SNAPSHOT_INTERVAL,
+                new IdGeneratorImpl(),
+                new TaskRepositoryImpl(),
+                new SubtaskRepositoryImpl(),
+                new EpicRepositoryImpl(),
+                Managers.getDefaultHistory());
+    }
+
+    public WalTaskManager(Path dataDir,
+                          SyncPolicy syncPolicy,
+                          int snapshotInterval,
+                          IdGenerator idGenerator,
+                          TaskRepository taskRepository,
+                          SubtaskRepository subtaskRepository,
+                          EpicRepository epicRepository,
+                          HistoryManager historyManager) {
+        super(idGenerator, taskRepository, subtaskRepository, epicRepository, historyManager);
+        this.dataDir = dataDir;
+        this.snapshotInterval = snapshotInterval;
+        this.idGenerator = idGenerator;
+        this.taskRepository = taskRepository;
+        this.subtaskRepository = subtaskRepository;
+        this.epicRepository = epicRepository;
+        this.historyManager = historyManager;
+
+        try {
+            Files.createDirectories(dataDir);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to create data directory " + dataDir, e);
+        }
+
+        Replayer replayer = new Replayer();
+        Path snapshotFile = dataDir.resolve(SNAPSHOT_FILE);
+        Snapshot snapshot = Files.exists(snapshotFile) ? Snapshot.readFrom(snapshotFile) : null;
+        long firstSegment = 1;
+        if (snapshot != null) {
+            snapshot.getTasks().forEach(replayer::putTask);
+            snapshot.getEpics().forEach(replayer::putEpic);
+            snapshot.getSubtasks().forEach(replayer::putSubtask);
+            idGenerator.reserve(snapshot.getLastId());
+            firstSegment = snapshot.getNextSegment();
+        }
+
+        // Segments older than the snapshot are left after a crash between writing the snapshot and deleting them
+        deleteSegmentsBefore(firstSegment);
+        List<Long> segments = listSegments();
+        currentSegment = segments.isEmpty() ? firstSegment : segments.get(segments.size() - 1);
+        for (long segment : segments) {
+            if (segment != currentSegment) {
+                WriteAheadLog.replay(segmentFile(segment), entry -> WalEntry.replay(entry, replayer));
+            }
+        }
+        this.log = WriteAheadLog.open(segmentFile(currentSegment), syncPolicy,
+                entry -> WalEntry.replay(entry, replayer));
+
+        if (snapshot != null) {
+            restoreHistory(snapshot.getHistoryIds());
+        }
+        checkEpicStatusConsistency();
+        rebuildSearchIndex();
+        rebuildSchedule();
+
+        this.snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        long sequence;
+        Task createdTask;
+        synchronized (this) {
+            log.ensureWritable();
+            createdTask = super.createTask(task);
+            sequence = append(new WalEntry().putTask(createdTask));
+        }
+        commit(sequence);
+        return createdTask;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            super.updateTask(task);
+            sequence = append(new WalEntry().putTask(taskRepository.findTaskById(task.getId())));
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            super.deleteTask(id);
+            sequence = append(new WalEntry().deleteTask(id));
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public List<Task> createTasks(List<Task> tasks) {
+        long sequence;
+        List<Task> createdTasks;
+        synchronized (this) {
+            log.ensureWritable();
+            createdTasks = super.createTasks(tasks);
+
+            WalEntry entry = new WalEntry();
+            for (Task createdTask : createdTasks) {
+                entry.putTask(createdTask);
+            }
+            sequence = append(entry);
+        }
+        commit(sequence);
+        return createdTasks;
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            super.deleteAllTasks();
+            sequence = append(new WalEntry().clearTasks());
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        long sequence;
+        Subtask createdSubtask;
+        synchronized (this) {
+            log.ensureWritable();
+            createdSubtask = super.createSubtask(subtask);
+            sequence = append(new WalEntry()
+                    .putSubtask(createdSubtask)
+                    .putEpic(epicRepository.findEpicById(createdSubtask.getEpicId())));
+        }
+        commit(sequence);
+        return createdSubtask;
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            Subtask oldSubtask = subtaskRepository.findSubtaskById(subtask.getId());
+            super.updateSubtask(subtask);
+
+            WalEntry entry = new WalEntry()
+                    .putSubtask(subtaskRepository.findSubtaskById(subtask.getId()))
+                    .putEpic(epicRepository.findEpicById(subtask.getEpicId()));
+            Epic oldEpic = epicRepository.findEpicById(oldSubtask.getEpicId());
+            if (oldSubtask.getEpicId() != subtask.getEpicId() && oldEpic != null) {
+                entry.putEpic(oldEpic);
+            }
+            sequence = append(entry);
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            Subtask oldSubtask = subtaskRepository.findSubtaskById(id);
+            super.deleteSubtask(id);
+
+            WalEntry entry = new WalEntry().deleteSubtask(id);
+            Epic epic = epicRepository.findEpicById(oldSubtask.getEpicId());
+            if (epic != null) {
+                entry.putEpic(epic);
+            }
+            sequence = append(entry);
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void deleteAllSubtask() {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            super.deleteAllSubtask();
+
+            WalEntry entry = new WalEntry().clearSubtasks();
+            for (Epic epic : epicRepository.findAllEpics()) {
+                entry.putEpic(epic);
+            }
+            sequence = append(entry);
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public List<Subtask> createSubtasks(List<Subtask> subtasks) {
+        long sequence;
+        List<Subtask> createdSubtasks;
+        synchronized (this) {
+            log.ensureWritable();
+            createdSubtasks = super.createSubtasks(subtasks);
+
+            WalEntry entry = new WalEntry();
+            Set<Integer> epicIds = new LinkedHashSet<>();
+            for (Subtask createdSubtask : createdSubtasks) {
+                entry.putSubtask(createdSubtask);
+                epicIds.add(createdSubtask.getEpicId());
+            }
+            sequence = append(putEpics(entry, epicIds));
+        }
+        commit(sequence);
+        return createdSubtasks;
+    }
+
+    @Override
+    public void updateSubtasks(List<Subtask> subtasks) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            Set<Integer> epicIds = new LinkedHashSet<>();
+            for (Subtask subtask : subtasks) {
+                Subtask oldSubtask = subtaskRepository.findSubtaskById(subtask.getId());
+                if (oldSubtask != null) {
+                    epicIds.add(oldSubtask.getEpicId());
+                }
+                epicIds.add(subtask.getEpicId());
+            }
+            super.updateSubtasks(subtasks);
+
+            WalEntry entry = new WalEntry();
+            Set<Integer> subtaskIds = new LinkedHashSet<>();
+            for (Subtask subtask : subtasks) {
+                if (subtaskIds.add(subtask.getId())) {
+                    entry.putSubtask(subtaskRepository.findSubtaskById(subtask.getId()));
+                }
+            }
+            sequence = append(putEpics(entry, epicIds));
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void deleteSubtasks(Collection<Integer> ids) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            Set<Integer> epicIds = new LinkedHashSet<>();
+            for (int id : ids) {
+                Subtask oldSubtask = subtaskRepository.findSubtaskById(id);
+                if (oldSubtask != null) {
+                    epicIds.add(oldSubtask.getEpicId());
+                }
+            }
+            super.deleteSubtasks(ids);
+
+            WalEntry entry = new WalEntry();
+            for (int id : new LinkedHashSet<>(ids)) {
+                entry.deleteSubtask(id);
+            }
+            sequence = append(putEpics(entry, epicIds));
+        }
+        commit(sequence);
+    }
+
+    // Must be called with the manager lock held
+    private WalEntry putEpics(WalEntry entry, Set<Integer> epicIds) {
+        for (int epicId : epicIds) {
+            Epic epic = epicRepository.findEpicById(epicId);
+            if (epic != null) {
+                entry.putEpic(epic);
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        long sequence;
+        Epic createdEpic;
+        synchronized (this) {
+            log.ensureWritable();
+            createdEpic = super.createEpic(epic);
+            sequence = append(new WalEntry().putEpic(epicRepository.findEpicById(createdEpic.getId())));
+        }
+        commit(sequence);
+        return createdEpic;
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            super.updateEpic(epic);
+            sequence = append(new WalEntry().putEpic(epicRepository.findEpicById(epic.getId())));
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void updateEpicDetails(int id, String title, String description) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            Epic epic = epicRepository.findEpicById(id);
+            if (epic == null) {
+                throw new TaskNotFoundException("Epic with id " + id + " not found");
+            }
+            super.updateEpic(epic.withTitle(title).withDescription(description));
+            sequence = append(new WalEntry().putEpic(epicRepository.findEpicById(id)));
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            Epic epic = epicRepository.findEpicById(id);
+            super.deleteEpic(id);
+
+            WalEntry entry = new WalEntry();
+            for (PrimitiveIterator.OfInt it = epic.subtaskIdIterator(); it.hasNext(); ) {
+                entry.deleteSubtask(it.nextInt());
+            }
+            sequence = append(entry.deleteEpic(id));
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        long sequence;
+        synchronized (this) {
+            log.ensureWritable();
+            super.deleteAllEpics();
+            sequence = append(new WalEntry().clearSubtasks().clearEpics());
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return super.getAllTasks();
+    }
+
+    @Override
+    public synchronized List<Task> getTasksAfter(int afterId, int limit) {
+        return super.getTasksAfter(afterId, limit);
+    }
+
+    @Override
+    public synchronized Task getTask(int id) {
+        return super.getTask(id);
+    }
+
+    @Override
+    public synchronized List<Subtask> getAllSubtasks() {
+        return super.getAllSubtasks();
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksAfter(int afterId, int limit) {
+        return super.getSubtasksAfter(afterId, limit);
+    }
+
+    @Override
+    public synchronized Subtask getSubtask(int id) {
+        return super.getSubtask(id);
+    }
+
+    @Override
+    public synchronized List<Subtask> getEpicSubtasks(int epicId) {
+        return super.getEpicSubtasks(epicId);
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return super.getAllEpics();
+    }
+
+    @Override
+    public synchronized List<Epic> getEpicsAfter(int afterId, int limit) {
+        return super.getEpicsAfter(afterId, limit);
+    }
+
+    @Override
+    public synchronized Epic getEpic(int id) {
+        return super.getEpic(id);
+    }
+
+    @Override
+    public synchronized List<Task> search(String query, int offset, int limit) {
+        return super.search(query, offset, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getRecentHistory(int limit) {
+        return super.getRecentHistory(limit);
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public synchronized BoardSnapshot openSnapshot() {
+        // Writes hold the same lock, so no write is half done here
+        return super.openSnapshot();
+    }
+
+    @Override
+    synchronized Task findTaskAt(int id, long version) {
+        return super.findTaskAt(id, version);
+    }
+
+    @Override
+    synchronized Subtask findSubtaskAt(int id, long version) {
+        return super.findSubtaskAt(id, version);
+    }
+
+    @Override
+    synchronized Epic findEpicAt(int id, long version) {
+        return super.findEpicAt(id, version);
+    }
+
+    @Override
+    synchronized List<Task> findAllTasksAt(long version) {
+        return super.findAllTasksAt(version);
+    }
+
+    @Override
+    synchronized List<Subtask> findAllSubtasksAt(long version) {
+        return super.findAllSubtasksAt(version);
+    }
+
+    @Override
+    synchronized List<Epic> findAllEpicsAt(long version) {
+        return super.findAllEpicsAt(version);
+    }
+
+    @Override
+    public synchronized boolean checkEpicStatusConsistency() {
+        return super.checkEpicStatusConsistency();
+    }
+
+    /**
+     * Makes everything written so far durable, whatever the sync policy is.
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    /**
+     * Captures the current state and writes it to the snapshot file in the background.
+     * If a snapshot is already being written, returns that one instead of starting another.
+     */
+    public synchronized CompletableFuture<Void> takeSnapshot() {
+        if (!pendingSnapshot.isDone()) {
+            return pendingSnapshot;
+        }
+
+        long nextSegment = currentSegment + 1;
+        Snapshot snapshot = new Snapshot(nextSegment,
+                idGenerator.getLastId(),
+                taskRepository.findAllTasks(),
+                epicRepository.findAllEpics(),
+                subtaskRepository.findAllSubtasks(),
+                super.getHistory().stream().mapToInt(Task::getId).toArray());
+        log.roll(segmentFile(nextSegment));
+        currentSegment = nextSegment;
+        entriesSinceSnapshot = 0;
+
+        pendingSnapshot = CompletableFuture.runAsync(() -> {
+            snapshot.writeTo(dataDir.resolve(SNAPSHOT_FILE));
+            deleteSegmentsBefore(nextSegment);
+        }, snapshotWriter);
+        return pendingSnapshot;
+    }
+
+    @Override
+    public void close() {
+        CompletableFuture<Void> snapshot;
+        synchronized (this) {
+            snapshot = pendingSnapshot;
+        }
+        try {
+            snapshot.join();
+        } catch (CompletionException e) {
+            // The log still has everything the failed snapshot was supposed to cover
+        }
+        snapshotWriter.shutdown();
+        log.close();
+    }
+
+    // Must be called under the manager lock
+    private long append(WalEntry entry) {
+        long sequence = log.append(entry.toByteArray());
+        entriesSinceSnapshot++;
+        return sequence;
+    }
+
+    // Must be called without the manager lock, after the change is applied and appended
+    private void commit(long sequence) {
+        log.commit(sequence);
+        snapshotIfDue();
+    }
+
+    // The change is already applied and logged, so a failed snapshot is reported but doesn't fail the write
+    private void snapshotIfDue() {
+        if (entriesSinceSnapshot < snapshotInterval) {
+            return;
+        }
+        CompletableFuture<Void> started;
+        try {
+            synchronized (this) {
+                if (entriesSinceSnapshot < snapshotInterval || !pendingSnapshot.isDone()) {
+                    return;
+                }
+                started = takeSnapshot();
+            }
+        } catch (RuntimeException e) {
+            reportSnapshotFailure(e);
+            return;
+        }
+        started.whenComplete((ignored, e) -> {
+            if (e != null) {
+                reportSnapshotFailure(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+    }
+
+    private static void reportSnapshotFailure(Throwable e) {
+        Thread current = Thread.currentThread();
+        current.getUncaughtExceptionHandler().uncaughtException(current,
+                new ManagerSaveException("Background snapshot failed, the log still has everything", e));
+    }
+
+    private void restoreHistory(int[] historyIds) {
+        for (int id : historyIds) {
+            Task task = taskRepository.findTaskById(id);
+            if (task == null) {
+                task = epicRepository.findEpicById(id);
+            }
+            if (task == null) {
+                task = subtaskRepository.findSubtaskById(id);
+            }
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
+    }
+
+    private Path segmentFile(long segment) {
+        return dataDir.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Failed to list log segments in " + dataDir, e);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private void deleteSegmentsBefore(long segment) {
+        for (long oldSegment : listSegments()) {
+            if (oldSegment < segment) {
+                try {
+                    Files.delete(segmentFile(oldSegment));
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Failed to delete log segment " + oldSegment, e);
+                }
+            }
+        }
+    }
+
+    // Applies log records directly to the repositories, the manager logic already ran when they were written
+    private class Replayer implements WalEntry.Visitor {
+
+        @Override
+        public void putTask(Task task) {
+            idGenerator.reserve(task.getId());
+            if (taskRepository.findTaskById(task.getId()) != null) {
+                taskRepository.updateTask(task);
+            } else {
+                taskRepository.saveTask(task);
+            }
+        }
+
+        @Override
+        public void putSubtask(Subtask subtask) {
+            idGenerator.reserve(subtask.getId());
+            if (subtaskRepository.findSubtaskById(subtask.getId()) != null) {
+                subtaskRepository.updateSubtask(subtask);
+            } else {
+                subtaskRepository.saveSubtask(subtask);
+            }
+        }
+
+        @Override
+        public void putEpic(Epic epic) {
+            idGenerator.reserve(epic.getId());
+            if (epicRepository.findEpicById(epic.getId()) != null) {
+                epicRepository.updateEpic(epic);
+            } else {
+                epicRepository.saveEpic(epic);
+            }
+        }
+
+        @Override
+        public void deleteTask(int id) {
+            taskRepository.deleteTask(id);
+        }
+
+        @Override
+        public void deleteSubtask(int id) {
+            subtaskRepository.deleteSubtask(id);
+        }
+
+        @Override
+        public void deleteEpic(int id) {
+            epicRepository.deleteEpic(id);
+        }
+
+        @Override
+        public void clearTasks() {
+            taskRepository.deleteAllTasks();
+        }
+
+        @Override
+        public void clearSubtasks() {
+            subtaskRepository.deleteAllSubtasks();
+        }
+
+        @Override
+        public void clearEpics() {
+            epicRepository.deleteAllEpics();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int to int without boxing, the primitive sibling of IntObjectMap
+ * (open addressing with linear probing and backward shift deletion).
+ * Not thread-safe.
+ */
+public class IntIntMap {
+
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final int MIN_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int threshold;
+    private int mask;
+
+    public IntIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntIntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Copy of another map, without rehashing.
+     */
+    public IntIntMap(IntIntMap other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        used = other.used.clone();
+        size = other.size;
+        threshold = other.threshold;
+        mask = other.mask;
+    }
+
+    /**
+     * Returns defaultValue if there is no such key.
+     */
+    public int get(int key, int defaultValue) {
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > threshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    public boolean remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+        deleteSlot(slot);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Visits entries in table order. The map must not be changed from the consumer.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < used.length; slot++) {
+            if (used[slot]) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int findSlot(int key) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,298 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of primitive ints that keeps insertion order, a replacement for LinkedHashSet<Integer> without boxing.
+ *
+ * Values sit in one array in the order they were added. A removed value leaves a hole that iteration skips,
+ * the array is compacted once there are more holes than values, so add, remove and contains are O(1) amortized.
+ * Small sets are searched linearly, an IntIntMap from value to position is only built once the set grows.
+ * Not thread-safe, but a set that is no longer changed can be read from many threads.
+ */
+public class IntOrderedSet {
+
+    // Up to this size a linear scan is faster than a hash lookup and saves the index
+    private static final int INDEX_THRESHOLD = 8;
+
+    private int[] elements;
+    // null while there are no holes, otherwise as long as elements
+    private boolean[] removed;
+    // used positions, holes included
+    private int end;
+    private int size;
+    // value -> position, null while the set is small
+    private IntIntMap positions;
+    private List<Integer> view;
+
+    public IntOrderedSet() {
+        this(4);
+    }
+
+    public IntOrderedSet(int expectedSize) {
+        elements = new int[Math.max(1, expectedSize)];
+    }
+
+    /**
+     * Copy of another set, without its holes.
+     */
+    public IntOrderedSet(IntOrderedSet other) {
+        elements = new int[Math.max(1, other.size)];
+        if (other.end == other.size) {
+            System.arraycopy(other.elements, 0, elements, 0, other.size);
+            end = other.size;
+            size = other.size;
+            positions = other.positions != null ? new IntIntMap(other.positions) : null;
+        } else {
+            for (int i = 0; i < other.end; i++) {
+                if (!other.isHole(i)) {
+                    append(other.elements[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the value at the end. Returns false if it is already in the set, its position doesn't change then.
+     */
+    public boolean add(int value) {
+        if (indexOf(value) >= 0) {
+            return false;
+        }
+        append(value);
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int position = indexOf(value);
+        if (position < 0) {
+            return false;
+        }
+        if (positions != null) {
+            positions.remove(value);
+        }
+        size--;
+        if (position == end - 1) {
+            end--;
+            // Holes at the end are just unused space
+            while (end > 0 && isHole(end - 1)) {
+                removed[--end] = false;
+            }
+        } else {
+            if (removed == null) {
+                removed = new boolean[elements.length];
+            }
+            removed[position] = true;
+            if (end - size > size) {
+                compact();
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        end = 0;
+        size = 0;
+        removed = null;
+        positions = null;
+    }
+
+    /**
+     * Value at the index in insertion order. O(1) unless values were removed from the middle since the last compaction.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        if (end == size) {
+            return elements[index];
+        }
+        int seen = 0;
+        for (int i = 0; ; i++) {
+            if (!isHole(i) && seen++ == index) {
+                return elements[i];
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (!isHole(i)) {
+                result[count++] = elements[i];
+            }
+        }
+        return result;
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < end; i++) {
+            if (!isHole(i)) {
+                consumer.accept(elements[i]);
+            }
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = skipHoles(0);
+
+            @Override
+            public boolean hasNext() {
+                return index < end;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = elements[index];
+                index = skipHoles(index + 1);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Read-only List view in insertion order, it follows later changes of the set.
+     */
+    public List<Integer> asList() {
+        List<Integer> result = view;
+        if (result == null) {
+            result = new View();
+            view = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < end; i++) {
+            if (!isHole(i)) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(elements[i]);
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    private void append(int value) {
+        if (end == elements.length) {
+            elements = Arrays.copyOf(elements, end * 2);
+            if (removed != null) {
+                removed = Arrays.copyOf(removed, end * 2);
+            }
+        }
+        elements[end] = value;
+        if (positions != null) {
+            positions.put(value, end);
+        }
+        end++;
+        size++;
+        if (positions == null && size > INDEX_THRESHOLD) {
+            positions = new IntIntMap(size * 2);
+            for (int i = 0; i < end; i++) {
+                if (!isHole(i)) {
+                    positions.put(elements[i], i);
+                }
+            }
+        }
+    }
+
+    private int indexOf(int value) {
+        if (positions != null) {
+            return positions.get(value, -1);
+        }
+        for (int i = 0; i < end; i++) {
+            if (elements[i] == value && !isHole(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void compact() {
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (!isHole(i)) {
+                if (count != i) {
+                    elements[count] = elements[i];
+                    if (positions != null) {
+                        positions.put(elements[count], count);
+                    }
+                }
+                count++;
+            }
+        }
+        end = count;
+        removed = null;
+    }
+
+    private boolean isHole(int position) {
+        return removed != null && removed[position];
+    }
+
+    private int skipHoles(int position) {
+        while (position < end && isHole(position)) {
+            position++;
+        }
+        return position;
+    }
+
+    private final class View extends AbstractList<Integer> {
+
+        @Override
+        public Integer get(int index) {
+            return IntOrderedSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && IntOrderedSet.this.contains((Integer) o);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            PrimitiveIterator.OfInt values = IntOrderedSet.this.iterator();
+            return new Iterator<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    return values.hasNext();
+                }
+
+                @Override
+                public Integer next() {
+                    return values.nextInt();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package util;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns a cursor-paginated lookup into a lazy Stream: pages are loaded one at a time while the stream
+ * is consumed, so only one page is held in memory however many elements there are.
+ */
+public final class Pages {
+
+    public interface PageLoader<T> {
+        List<T> load(int afterId, int limit);
+    }
+
+    private Pages() {
+    }
+
+    public static <T> Stream<T> stream(PageLoader<T> loader, ToIntFunction<T> idOf, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        Iterator<T> iterator = new Iterator<>() {
+            private List<T> page;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                if (page == null) {
+                    page = loader.load(0, pageSize);
+                }
+                if (position < page.size()) {
+                    return true;
+                }
+                // A short page is the last one
+                if (page.size() < pageSize) {
+                    return false;
+                }
+                page = loader.load(idOf.applyAsInt(page.get(page.size() - 1)), pageSize);
+                position = 0;
+                return !page.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(position++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+}
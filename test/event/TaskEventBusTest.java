@@ -0,0 +1,137 @@
+package event;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+import service.InMemoryTaskManager;
+import service.Managers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEventBusTest {
+
+    @Test
+    void testManagerPublishesChangesAndDerivedEpicStatus() throws InterruptedException {
+        TaskEventBus bus = new TaskEventBus(16, WaitStrategy.blocking());
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        bus.subscribe((event, sequence, endOfBatch) -> {
+            String entry = event.getType() + ":" + event.getId();
+            if (event.getType() == TaskEventType.EPIC_STATUS_CHANGED) {
+                entry += ":" + event.getOldStatus().name() + "->" + event.getNewStatus().name();
+                assertEquals(event.getNewStatus(), event.getTask().getStatus());
+            }
+            received.add(entry);
+            if (event.getType() == TaskEventType.EPIC_DELETED) {
+                done.countDown();
+            }
+        });
+
+        InMemoryTaskManager taskManager = (InMemoryTaskManager) Managers.getDefault();
+        taskManager.setEventBus(bus);
+        Task task = taskManager.createTask(new Task("Task", "Description"));
+        task.setStatus(Status.DONE);
+        taskManager.updateTask(task);
+        taskManager.deleteTask(task.getId());
+        taskManager.deleteTask(task.getId());
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", Status.DONE, epic.getId()));
+        taskManager.deleteEpic(epic.getId());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(
+                "TASK_CREATED:" + task.getId(),
+                "TASK_UPDATED:" + task.getId(),
+                "TASK_DELETED:" + task.getId(),
+                "EPIC_CREATED:" + epic.getId(),
+                "SUBTASK_CREATED:" + subtask.getId(),
+                "EPIC_STATUS_CHANGED:" + epic.getId() + ":NEW->DONE",
+                "SUBTASK_DELETED:" + subtask.getId(),
+                "EPIC_DELETED:" + epic.getId()), received);
+        bus.close();
+    }
+
+    @Test
+    void testSlowSubscriberGetsEveryEventFromManyPublishers() throws InterruptedException {
+        // Tiny buffer, so publishers have to wait for the subscriber most of the time
+        TaskEventBus bus = new TaskEventBus(4, WaitStrategy.yielding());
+        int publishers = 4;
+        int eventsPerPublisher = 2000;
+        int[] lastIdByPublisher = new int[publishers];
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        long[] lastSequence = {-1};
+        int[] batches = {0};
+        TaskEventBus.Subscription subscription = bus.subscribe((event, sequence, endOfBatch) -> {
+            if (sequence != lastSequence[0] + 1) {
+                errors.add("Sequence " + sequence + " after " + lastSequence[0]);
+            }
+            lastSequence[0] = sequence;
+            int publisher = event.getId() / eventsPerPublisher;
+            int id = event.getId() % eventsPerPublisher;
+            if (id != lastIdByPublisher[publisher]) {
+                errors.add("Publisher " + publisher + " event " + id + " after " + lastIdByPublisher[publisher]);
+            }
+            lastIdByPublisher[publisher] = id + 1;
+            if (endOfBatch) {
+                batches[0]++;
+            }
+            if (sequence % 500 == 0) {
+                Thread.yield();
+            }
+        }, 3);
+
+        Thread[] threads = new Thread[publishers];
+        for (int p = 0; p < publishers; p++) {
+            int offset = p * eventsPerPublisher;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < eventsPerPublisher; i++) {
+                    bus.publish(TaskEventType.TASK_UPDATED, offset + i, null);
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        subscription.close();
+
+        assertEquals(List.of(), errors);
+        assertEquals(publishers * eventsPerPublisher - 1, subscription.getSequence());
+        for (int last : lastIdByPublisher) {
+            assertEquals(eventsPerPublisher, last);
+        }
+        assertTrue(batches[0] >= publishers * eventsPerPublisher / 3, "Batches must not exceed maxBatchSize");
+    }
+
+    @Test
+    void testListenerErrorDoesNotBlockPublishers() throws InterruptedException {
+        TaskEventBus bus = new TaskEventBus(4, WaitStrategy.yielding());
+        bus.subscribe((event, sequence, endOfBatch) -> {
+            throw new AssertionError("Broken listener");
+        });
+
+        // Many more events than the buffer holds, a dead subscriber would stop the publisher on the first wrap
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                bus.publish(TaskEventType.TASK_CREATED, i, null);
+            }
+        });
+        publisher.start();
+        publisher.join(10_000);
+        assertFalse(publisher.isAlive(), "Publisher should not wait for a dead subscriber");
+        bus.close();
+    }
+
+    @Test
+    void testBufferSizeMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TaskEventBus(6, WaitStrategy.busySpin()));
+    }
+}
@@ -0,0 +1,171 @@
+package http;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+
+    private TaskManager taskManager;
+    private HttpTaskServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        taskManager = Managers.getConcurrent();
+        server = new HttpTaskServer(taskManager, 0, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testCreateGetUpdateAndDeleteTask() throws Exception {
+        HttpResponse<String> created = post("/tasks", "{\"title\":\"Task\",\"description\":\"With \\\"quotes\\\"\"}");
+        assertEquals(201, created.statusCode());
+        Task task = taskManager.getAllTasks().get(0);
+        assertEquals("With \"quotes\"", task.getDescription());
+        assertTrue(created.body().contains("\"id\":" + task.getId()));
+
+        String update = "{\"id\":" + task.getId() + ",\"title\":\"Task\",\"description\":\"\",\"status\":\"DONE\"}";
+        assertEquals(204, post("/tasks", update).statusCode());
+        assertEquals(Status.DONE, taskManager.getAllTasks().get(0).getStatus());
+
+        HttpResponse<String> found = get("/tasks/" + task.getId());
+        assertEquals(200, found.statusCode());
+        assertTrue(found.body().contains("\"status\":\"DONE\""));
+        assertTrue(get("/history").body().contains("\"id\":" + task.getId()), "GET by id should count as a view");
+
+        assertEquals(204, send(HttpRequest.newBuilder(uri("/tasks/" + task.getId())).DELETE()).statusCode());
+        assertEquals(404, get("/tasks/" + task.getId()).statusCode());
+    }
+
+    @Test
+    void testEpicWithSubtasks() throws Exception {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        String subtask = "{\"title\":\"Subtask\",\"description\":\"\",\"status\":\"DONE\",\"epicId\":" + epic.getId() + "}";
+        assertEquals(201, post("/subtasks", subtask).statusCode());
+
+        HttpResponse<String> epicSubtasks = get("/epics/" + epic.getId() + "/subtasks");
+        assertEquals(200, epicSubtasks.statusCode());
+        Subtask stored = taskManager.getAllSubtasks().get(0);
+        assertTrue(epicSubtasks.body().contains("\"epicId\":" + epic.getId()));
+
+        // Renaming an epic must keep its subtasks and derived status
+        assertEquals(204, post("/epics", "{\"id\":" + epic.getId() + ",\"title\":\"Renamed\"}").statusCode());
+        Epic renamed = taskManager.getAllEpics().get(0);
+        assertEquals("Renamed", renamed.getTitle());
+        assertEquals(Status.DONE, renamed.getStatus());
+        assertEquals(stored.getId(), (int) renamed.getSubtaskIds().get(0));
+
+        assertEquals(404, get("/epics/999/subtasks").statusCode());
+        assertEquals(400, post("/subtasks", "{\"title\":").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/history")).DELETE()).statusCode());
+
+        taskManager.getEpic(epic.getId());
+        taskManager.getSubtask(stored.getId());
+        HttpResponse<String> recent = get("/history?limit=1");
+        assertEquals(200, recent.statusCode());
+        assertTrue(recent.body().contains("\"id\":" + stored.getId()));
+        assertFalse(recent.body().contains("\"id\":" + epic.getId() + ","), "Only the last view should be returned");
+        assertEquals(400, get("/history?limit=0").statusCode());
+        assertEquals(400, get("/history?limit=many").statusCode());
+    }
+
+    @Test
+    void testLargeResponsesAreGzipped() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            taskManager.createTask(new Task("Task " + i, "Description"));
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri("/tasks")).header("Accept-Encoding", "gzip").GET().build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new java.io.ByteArrayInputStream(response.body()))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(body.startsWith("[{") && body.endsWith("}]"));
+        assertTrue(body.contains("\"title\":\"Task 99\""));
+    }
+
+    @Test
+    void testBulkCreateFromArray() throws Exception {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 2500; i++) {
+            body.append(i > 0 ? "," : "").append("{\"title\":\"Subtask ").append(i)
+                    .append("\",\"status\":\"DONE\",\"epicId\":").append(epic.getId()).append('}');
+        }
+        body.append(']');
+
+        HttpResponse<String> response = post("/subtasks", body.toString());
+        assertEquals(201, response.statusCode());
+        assertEquals(2500, taskManager.getAllSubtasks().size());
+        assertEquals(Status.DONE, taskManager.getAllEpics().get(0).getStatus());
+        assertTrue(response.body().contains("\"title\":\"Subtask 2499\""));
+    }
+
+    @Test
+    void testMalformedBulkCreateChangesNothing() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1500; i++) {
+            body.append(i > 0 ? "," : "").append(i == 1200 ? "{\"title\":" : "{\"title\":\"Task " + i + "\"}");
+        }
+        body.append(']');
+
+        HttpResponse<String> response = post("/tasks", body.toString());
+        assertEquals(400, response.statusCode());
+        assertTrue(taskManager.getAllTasks().isEmpty(), "Nothing should be created from a malformed array");
+    }
+
+    @Test
+    void testOverlapIsNotAcceptableAndPrioritizedIsOrdered() throws Exception {
+        assertEquals(201, post("/tasks",
+                "{\"title\":\"Late\",\"startTime\":\"2024-05-01T12:00:00\",\"duration\":60}").statusCode());
+        assertEquals(201, post("/tasks",
+                "{\"title\":\"Early\",\"startTime\":\"2024-05-01T10:00:00\",\"duration\":60}").statusCode());
+        assertEquals(406, post("/tasks",
+                "{\"title\":\"Overlap\",\"startTime\":\"2024-05-01T10:30:00\",\"duration\":60}").statusCode());
+
+        String body = get("/prioritized").body();
+        assertTrue(body.indexOf("Early") >= 0 && body.indexOf("Early") < body.indexOf("Late"), body);
+        assertFalse(body.contains("Overlap"));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
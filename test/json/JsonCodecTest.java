@@ -0,0 +1,156 @@
+package json;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCodecTest {
+
+    @Test
+    void testWriterOutputIsPlainJson() throws IOException {
+        Task task = new Task("Title", "Line\n\"quoted\" \\ \u0001", Status.IN_PROGRESS);
+        task.setId(-7);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(out);
+        writer.writeTask(task);
+        writer.flush();
+
+        assertEquals("{\"id\":-7,\"title\":\"Title\",\"description\":\"Line\\n\\\"quoted\\\" \\\\ \\u0001\","
+                + "\"status\":\"IN_PROGRESS\"}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRoundTripThroughSmallBuffers() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        Task task = new Task("Доделать проект", "до 21го числа \uD83D\uDE80", Status.DONE);
+        task.setId(Integer.MAX_VALUE);
+        tasks.add(task);
+        Subtask subtask = new Subtask("Приглашения", null, Status.NEW, 2);
+        subtask.setId(3);
+        tasks.add(subtask);
+        ArrayList<Integer> subtaskIds = new ArrayList<>(List.of(3, 40, 500));
+        Epic epic = new Epic(2, "День рождения", "", subtaskIds);
+        epic.updateStatusFromTaskManager(Status.IN_PROGRESS);
+        tasks.add(epic);
+
+        // Tiny buffers, so every value crosses a buffer boundary somewhere
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(64).reset(Channels.newChannel(out));
+        writer.writeTasks(tasks.iterator());
+        writer.flush();
+        assertEquals(out.size(), writer.written());
+
+        List<Task> read = new ArrayList<>();
+        JsonReader reader = new JsonReader(new ByteArrayInputStream(out.toByteArray()), 3);
+        reader.readTasks(read::add);
+        reader.endDocument();
+
+        assertEquals(3, read.size());
+        assertEquals(Task.class, read.get(0).getClass());
+        assertEquals(task.getDescription(), read.get(0).getDescription());
+        assertEquals(Integer.MAX_VALUE, read.get(0).getId());
+        assertEquals(Status.DONE, read.get(0).getStatus());
+        Subtask readSubtask = (Subtask) read.get(1);
+        assertEquals(2, readSubtask.getEpicId());
+        assertNull(readSubtask.getDescription());
+        Epic readEpic = (Epic) read.get(2);
+        assertEquals(subtaskIds, readEpic.getSubtaskIds());
+        assertEquals(Status.IN_PROGRESS, readEpic.getStatus());
+        assertEquals("День рождения", readEpic.getTitle());
+    }
+
+    @Test
+    void testBoardDumpCanBeReadBack() throws IOException {
+        TaskManager taskManager = Managers.getDefault();
+        taskManager.createTask(new Task("Task", "Description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        for (int i = 0; i < 1000; i++) {
+            taskManager.createSubtask(new Subtask("Subtask " + i, "Description", Status.DONE, epic.getId()));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(out);
+        writer.writeBoard(taskManager);
+        writer.flush();
+
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        new JsonReader(new ByteArrayInputStream(out.toByteArray())).readBoard(tasks::add, epics::add, subtasks::add);
+
+        assertEquals(taskManager.getAllTasks(), tasks);
+        assertEquals(1, epics.size());
+        assertEquals(1000, epics.get(0).getSubtaskIds().size());
+        assertEquals(Status.DONE, epics.get(0).getStatus());
+        assertEquals(1000, subtasks.size());
+        assertEquals("Subtask 999", subtasks.get(999).getTitle());
+    }
+
+    @Test
+    void testReaderSkipsUnknownFieldsAndRejectsBrokenInput() throws IOException {
+        String json = " { \"extra\" : {\"nested\": [1, \"]\", {}]}, \"title\":\"T\", \"score\": -1.5e3, \"ok\": true } ";
+        Task task = new JsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).readTask();
+        assertEquals("T", task.getTitle());
+        assertEquals(Status.NEW, task.getStatus());
+
+        assertThrows(IllegalArgumentException.class, () -> read("{\"title\":\"T\""));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"status\":\"LATER\"}"));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"id\":99999999999}"));
+    }
+
+    private static Task read(String json) throws IOException {
+        return new JsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).readAny();
+    }
+
+    @Test
+    void testScheduleRoundTrip() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 5, 7, 120_000_000);
+        Task task = new Task("Task", "Description", Status.NEW, start, Duration.ofMinutes(90));
+        task.setId(1);
+        Epic epic = new Epic("Epic", "Description");
+        epic.setId(2);
+        epic.updateScheduleFromTaskManager(start, Duration.ofMinutes(30), start.plusHours(2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter();
+        writer.reset(out);
+        writer.writeTask(task);
+        writer.flush();
+        assertEquals("{\"id\":1,\"title\":\"Task\",\"description\":\"Description\",\"status\":\"NEW\","
+                        + "\"startTime\":\"2024-05-01T09:05:07.120000000\",\"duration\":90}",
+                out.toString(StandardCharsets.UTF_8));
+
+        out.reset();
+        writer.reset(out);
+        writer.writeTask(epic);
+        writer.flush();
+        Epic readEpic = new JsonReader(new ByteArrayInputStream(out.toByteArray())).readEpic();
+        assertEquals(start, readEpic.getStartTime());
+        assertEquals(start.plusHours(2), readEpic.getEndTime());
+        assertEquals(Duration.ofMinutes(30), readEpic.getDuration());
+
+        Task readTask = new JsonReader(new ByteArrayInputStream(
+                "{\"title\":\"T\",\"startTime\":\"2024-05-01T10:00\",\"duration\":15}".getBytes(StandardCharsets.UTF_8)))
+                .readTask();
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0), readTask.getStartTime());
+        assertEquals(Duration.ofMinutes(15), readTask.getDuration());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader(new ByteArrayInputStream(
+                "{\"startTime\":\"yesterday\"}".getBytes(StandardCharsets.UTF_8))).readTask());
+    }
+}
@@ -0,0 +1,46 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverAllValuesWithBoundedError() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 100, 1_000, 123_456, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowerBoundOf(bucket) <= value, "Lower bound of " + value);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value, "Upper bound of " + value);
+            long width = LatencyHistogram.upperBoundOf(bucket) - LatencyHistogram.lowerBoundOf(bucket);
+            assertTrue(width <= value / 8, "Bucket of " + value + " is too wide: " + width);
+        }
+        // Buckets follow each other without gaps
+        for (int bucket = 0; bucket < LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++) {
+            assertEquals(LatencyHistogram.upperBoundOf(bucket) + 1, LatencyHistogram.lowerBoundOf(bucket + 1));
+        }
+    }
+
+    @Test
+    void testQuantilesCountSumAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().getValueAtQuantile(0.99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1001, snapshot.getCount());
+        assertEquals(500_500_000L, snapshot.getSum());
+        assertEquals(1_000_000, snapshot.getMax());
+
+        long median = snapshot.getValueAtQuantile(0.5);
+        assertTrue(median >= 500_000 && median <= 500_000 * 9 / 8, "Median was " + median);
+        long p99 = snapshot.getValueAtQuantile(0.99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 was " + p99);
+        assertEquals(1_000_000, snapshot.getValueAtQuantile(1));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtQuantile(1.5));
+    }
+}
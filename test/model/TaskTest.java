@@ -46,4 +46,39 @@ class TaskTest {
         assertEquals(task, subtask, "Task and Subtask with same id should be equal");
         assertEquals(epic, subtask, "Epic and Subtask with same id should be equal");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFrozenTaskIsReadOnlyAndWithCreatesNewSnapshot() {
+        Task task = new Task("Task", "Description");
+        task.setId(1);
+        Task frozen = task.freeze();
+
+        assertNotSame(task, frozen, "Mutable task should be copied when frozen");
+        assertSame(frozen, frozen.freeze(), "Frozen task should not be copied again");
+        assertThrows(UnsupportedOperationException.class, () -> frozen.setTitle("Changed"));
+
+        Task renamed = frozen.withTitle("Changed");
+        assertTrue(renamed.isFrozen());
+        assertEquals("Changed", renamed.getTitle());
+        assertEquals("Task", frozen.getTitle(), "Original snapshot should not change");
+        assertFalse(frozen.copy().isFrozen(), "Copy should be mutable again");
+    }
+
+    @Test
+    void testFrozenEpicSubtaskIds() {
+        Epic epic = new Epic("Epic", "Description");
+        epic.setId(1);
+        Epic frozen = epic.freeze();
+
+        Epic withSubtask = frozen.withSubtaskId(2).withStatusFromTaskManager(Status.DONE);
+        assertEquals(1, withSubtask.getSubtaskIdsView().size());
+        assertEquals(Status.DONE, withSubtask.getStatus());
+        assertTrue(frozen.getSubtaskIdsView().isEmpty(), "Original snapshot should not change");
+        assertThrows(UnsupportedOperationException.class, () -> withSubtask.getSubtaskIdsView().add(3));
+        assertThrows(UnsupportedOperationException.class, () -> withSubtask.addSubtaskId(3));
+
+        Epic cleared = withSubtask.withoutSubtaskId(2);
+        assertTrue(cleared.getSubtaskIdsView().isEmpty());
+        assertEquals(Status.NEW, withSubtask.withoutSubtasks().getStatus());
+    }
+}
@@ -0,0 +1,193 @@
+package persistence;
+
+import exception.ManagerSaveException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLogStopsAfterFailedWrite() throws IOException {
+        Path file = tempDir.resolve("log");
+        FailingChannel channel = new FailingChannel(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        WriteAheadLog log = new WriteAheadLog(channel, SyncPolicy.everyWrite());
+
+        log.commit(log.append(bytes("first")));
+
+        // Half of the next entry reaches the disk, then the disk goes away
+        channel.failAfterBytes = 6;
+        long torn = log.append(bytes("second"));
+        assertThrows(ManagerSaveException.class, () -> log.commit(torn));
+
+        // The disk is back, but the log must not acknowledge anything after the torn entry
+        channel.failAfterBytes = Long.MAX_VALUE;
+        assertThrows(ManagerSaveException.class, () -> log.append(bytes("third")));
+        assertThrows(ManagerSaveException.class, () -> log.commit(torn));
+        assertThrows(ManagerSaveException.class, log::flush);
+        assertEquals(1, log.getDurableSequence());
+        log.close();
+
+        List<String> replayed = new ArrayList<>();
+        WriteAheadLog.open(file, SyncPolicy.everyWrite(),
+                entry -> replayed.add(new String(entry, StandardCharsets.UTF_8))).close();
+        assertEquals(List.of("first"), replayed, "Only the acknowledged entry should survive");
+    }
+
+    @Test
+    void testFailedFsyncStopsTheLog() throws IOException {
+        Path file = tempDir.resolve("log");
+        FailingChannel channel = new FailingChannel(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        WriteAheadLog log = new WriteAheadLog(channel, SyncPolicy.batched(2));
+
+        log.commit(log.append(bytes("first")));
+        channel.failForce = true;
+        long sequence = log.append(bytes("second"));
+        assertThrows(ManagerSaveException.class, () -> log.commit(sequence));
+
+        channel.failForce = false;
+        assertThrows(ManagerSaveException.class, () -> log.append(bytes("third")));
+        assertEquals(0, log.getDurableSequence());
+        log.close();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Passes everything to a real channel, fails writes past a byte budget or every fsync on demand
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        volatile long failAfterBytes = Long.MAX_VALUE;
+        volatile boolean failForce;
+
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failAfterBytes <= 0) {
+                throw new IOException("Disk is gone");
+            }
+            if (src.remaining() > failAfterBytes) {
+                ByteBuffer part = src.duplicate();
+                part.limit(part.position() + (int) failAfterBytes);
+                int written = delegate.write(part);
+                src.position(src.position() + written);
+                failAfterBytes = 0;
+                return written;
+            }
+            int written = delegate.write(src);
+            if (failAfterBytes != Long.MAX_VALUE) {
+                failAfterBytes -= written;
+            }
+            return written;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failForce) {
+                throw new IOException("Fsync failed");
+            }
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
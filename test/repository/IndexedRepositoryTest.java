@@ -0,0 +1,88 @@
+package repository;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedRepositoryTest {
+
+    private static final String[] WORDS = {"Groceries", "GROCERIES", "groceries", "Invites", "", null};
+
+    @Test
+    void testIndexedLookupsMatchScanAfterChanges() {
+        TaskRepository indexed = new TaskRepositoryImpl();
+        TaskRepository scanned = new TaskRepositoryImpl(EnumSet.noneOf(IndexedField.class));
+        Random random = new Random(7);
+
+        for (int i = 0; i < 2_000; i++) {
+            int id = random.nextInt(50) + 1;
+            boolean exists = scanned.findTaskById(id) != null;
+            int action = random.nextInt(4);
+            if (action == 0 && exists) {
+                indexed.deleteTask(id);
+                scanned.deleteTask(id);
+            } else if (action == 1 && random.nextInt(50) == 0) {
+                indexed.deleteAllTasks();
+                scanned.deleteAllTasks();
+            } else {
+                Task task = new Task(randomWord(random), randomWord(random));
+                task.setId(id);
+                if (exists) {
+                    indexed.updateTask(task);
+                    scanned.updateTask(task);
+                } else {
+                    indexed.saveTask(task);
+                    scanned.saveTask(task);
+                }
+            }
+        }
+
+        for (String word : WORDS) {
+            assertEquals(ids(scanned.findTaskByTitle(word)), ids(indexed.findTaskByTitle(word)), "title " + word);
+            assertEquals(ids(scanned.findTaskByDescription(word)), ids(indexed.findTaskByDescription(word)),
+                    "description " + word);
+        }
+    }
+
+    @Test
+    void testIndexFollowsUpdatesInConcurrentRepositories() {
+        EpicRepository epics = new ConcurrentEpicRepositoryImpl(EnumSet.of(IndexedField.TITLE));
+        Epic epic = new Epic("Move", "Description");
+        epic.setId(1);
+        epics.saveEpic(epic);
+        epics.updateEpic(epics.findEpicById(1).withTitle("Relocation"));
+
+        assertTrue(epics.findEpicByTitle("move").isEmpty(), "Old title should be removed from the index");
+        assertEquals(1, epics.findEpicByTitle("RELOCATION").size());
+        assertEquals(1, epics.findEpicByDescription("description").size(), "Not indexed field should still be found");
+
+        SubtaskRepository subtasks = new ConcurrentSubtaskRepositoryImpl();
+        Subtask subtask = new Subtask("Pack", "Boxes", 1);
+        subtask.setId(2);
+        subtasks.saveSubtask(subtask);
+        subtasks.deleteSubtask(2);
+        assertTrue(subtasks.findSubtaskByTitle("pack").isEmpty(), "Deleted subtask should be removed from the index");
+    }
+
+    private static String randomWord(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        ids.sort(Comparator.naturalOrder());
+        return ids;
+    }
+}
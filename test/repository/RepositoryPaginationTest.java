@@ -0,0 +1,42 @@
+package repository;
+
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryPaginationTest {
+
+    @Test
+    void testPagesComeInIdOrderInBothRepositories() {
+        for (TaskRepository repository : List.of(new TaskRepositoryImpl(), new ConcurrentTaskRepositoryImpl())) {
+            // Saved out of order, with gaps after deletion
+            for (int id : new int[]{7, 3, 12, 1, 9, 4}) {
+                Task task = new Task("Task " + id, "Description");
+                task.setId(id);
+                repository.saveTask(task);
+            }
+            repository.deleteTask(9);
+
+            List<Integer> ids = new ArrayList<>();
+            int cursor = 0;
+            List<Task> page;
+            do {
+                page = repository.findTasksAfter(cursor, 2);
+                assertTrue(page.size() <= 2);
+                for (Task task : page) {
+                    ids.add(task.getId());
+                    cursor = task.getId();
+                }
+            } while (!page.isEmpty());
+
+            assertEquals(List.of(1, 3, 4, 7, 12), ids, repository.getClass().getSimpleName());
+            assertEquals(ids, repository.findAllTasks().stream().map(Task::getId).toList(),
+                    "findAll should use the same order");
+            assertThrows(IllegalArgumentException.class, () -> repository.findTasksAfter(0, 0));
+        }
+    }
+}
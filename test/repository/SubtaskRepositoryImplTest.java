@@ -0,0 +1,73 @@
+package repository;
+
+import model.Subtask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubtaskRepositoryImplTest {
+
+    private static final int EPICS = 4;
+
+    @Test
+    void testEpicSubtasksKeepOrderAfterMovesAndDeletes() {
+        SubtaskRepository repository = new SubtaskRepositoryImpl();
+        // Subtasks of an epic in the order they joined it
+        Map<Integer, Set<Integer>> expected = new HashMap<>();
+        Map<Integer, Integer> epicOf = new HashMap<>();
+        Random random = new Random(22);
+
+        for (int i = 0; i < 5_000; i++) {
+            int id = random.nextInt(200) + 1;
+            int epicId = random.nextInt(EPICS) + 1;
+            Integer oldEpicId = epicOf.get(id);
+            Subtask subtask = new Subtask("Subtask " + id, "Description", epicId);
+            subtask.setId(id);
+            if (oldEpicId != null && random.nextInt(3) == 0) {
+                repository.deleteSubtask(id);
+                expected.get(oldEpicId).remove(id);
+                epicOf.remove(id);
+            } else if (oldEpicId != null) {
+                repository.updateSubtask(subtask);
+                if (oldEpicId != epicId) {
+                    expected.get(oldEpicId).remove(id);
+                    expected.computeIfAbsent(epicId, k -> new LinkedHashSet<>()).add(id);
+                }
+                epicOf.put(id, epicId);
+            } else {
+                repository.saveSubtask(subtask);
+                expected.computeIfAbsent(epicId, k -> new LinkedHashSet<>()).add(id);
+                epicOf.put(id, epicId);
+            }
+        }
+
+        for (int epicId = 1; epicId <= EPICS; epicId++) {
+            List<Integer> actual = new ArrayList<>();
+            for (Subtask subtask : repository.findByEpicId(epicId)) {
+                assertEquals(epicId, subtask.getEpicId());
+                actual.add(subtask.getId());
+            }
+            assertEquals(new ArrayList<>(expected.getOrDefault(epicId, Set.of())), actual, "epic " + epicId);
+        }
+        assertTrue(repository.findByEpicId(EPICS + 1).isEmpty());
+
+        int[] deleted = repository.deleteSubtasksByEpicId(1);
+        assertEquals(new ArrayList<>(expected.get(1)), Arrays.stream(deleted).boxed().toList());
+        assertTrue(repository.findByEpicId(1).isEmpty());
+        for (int id : deleted) {
+            assertNull(repository.findSubtaskById(id));
+        }
+        int remaining = repository.findAllSubtasks().size();
+        assertEquals(remaining, repository.deleteAllSubtasks().length);
+        assertTrue(repository.findAllSubtasks().isEmpty());
+    }
+}
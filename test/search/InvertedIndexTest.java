@@ -0,0 +1,68 @@
+package search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    @Test
+    void testTokenizerSplitsAndFoldsCase() {
+        assertEquals(List.of("buy", "milk", "2", "bottles", "молоко"),
+                Tokenizer.tokenize("Buy MILK: 2 bottles, молоко!"));
+        assertTrue(Tokenizer.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void testAllWordsMustMatchAndResultsAreRankedByFrequency() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, "Buy milk", "milk and bread");
+        index.put(2, "Buy bread", null);
+        index.put(3, "Milk", "milk milk, buy");
+        index.put(4, "Something else", "");
+
+        assertArrayEquals(new int[]{3, 1}, index.search("milk BUY", 0, 10), "Document 3 has more milk");
+        assertArrayEquals(new int[]{1, 2, 3}, index.search("buy", 0, 10), "Equal scores should be ordered by id");
+        assertArrayEquals(new int[0], index.search("milk cheese", 0, 10), "Every word must be present");
+        assertArrayEquals(new int[0], index.search("  ,, ", 0, 10));
+    }
+
+    @Test
+    void testPagination() {
+        InvertedIndex index = new InvertedIndex();
+        for (int id = 1; id <= 100; id++) {
+            // Document id has the word repeated (id % 10 + 1) times
+            index.put(id, "word ".repeat(id % 10 + 1));
+        }
+
+        int[] first = index.search("word", 0, 15);
+        int[] second = index.search("word", 15, 15);
+        int[] all = index.search("word", 0, 100);
+        assertEquals(15, first.length);
+        assertArrayEquals(Arrays.copyOfRange(all, 0, 15), first);
+        assertArrayEquals(Arrays.copyOfRange(all, 15, 30), second);
+        assertEquals(9, all[0], "Best match should go first");
+        assertEquals(0, index.search("word", 100, 10).length, "Page after the end should be empty");
+    }
+
+    @Test
+    void testReplaceAndRemoveUpdateIndex() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, "Old title");
+        index.put(1, "New title");
+        index.put(2, "Other title");
+
+        assertEquals(0, index.search("old", 0, 10).length, "Replaced text should not be found");
+        assertArrayEquals(new int[]{1}, index.search("new", 0, 10));
+
+        index.remove(1);
+        assertArrayEquals(new int[]{2}, index.search("title", 0, 10));
+        assertEquals(1, index.size());
+
+        index.clear();
+        assertEquals(0, index.search("title", 0, 10).length);
+    }
+}
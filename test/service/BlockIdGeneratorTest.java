@@ -0,0 +1,78 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockIdGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testIdsAreUniqueAcrossThreads() throws InterruptedException {
+        IdGenerator generator = new BlockIdGenerator(null, 16, 0, 1);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    assertTrue(ids.add(generator.generateId()), "Id generated twice");
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40_000, ids.size());
+        for (int id : ids) {
+            assertTrue(id > 0 && id <= generator.getLastId());
+        }
+    }
+
+    @Test
+    void testIdsAreNotReusedAfterRestart() {
+        Path stateFile = tempDir.resolve("ids.bin");
+        Set<Integer> before = new HashSet<>();
+        BlockIdGenerator generator = new BlockIdGenerator(stateFile, 8, 0, 1);
+        for (int i = 0; i < 1_000; i++) {
+            before.add(generator.generateId());
+        }
+
+        // Nothing is closed or flushed, like after a crash
+        BlockIdGenerator restarted = new BlockIdGenerator(stateFile, 8, 0, 1);
+        int maxBefore = before.stream().max(Integer::compare).orElseThrow();
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(restarted.generateId() > maxBefore, "Id from before the restart was handed out again");
+        }
+    }
+
+    @Test
+    void testPartitionsDontOverlapAndReserveSkipsUsedIds() {
+        List<BlockIdGenerator> partitions = List.of(
+                new BlockIdGenerator(null, 4, 0, 3),
+                new BlockIdGenerator(null, 4, 1, 3),
+                new BlockIdGenerator(null, 4, 2, 3));
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            for (int p = 0; p < partitions.size(); p++) {
+                int id = partitions.get(p).generateId();
+                assertEquals(p, (id - 1) % 3, "Id should belong to its partition");
+                assertTrue(ids.add(id));
+            }
+        }
+
+        BlockIdGenerator generator = partitions.get(1);
+        generator.reserve(10_000);
+        assertTrue(generator.generateId() > 10_000, "Reserved ids should be skipped");
+    }
+}
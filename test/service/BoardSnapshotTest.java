@@ -0,0 +1,140 @@
+package service;
+
+import exception.TaskNotFoundException;
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardSnapshotTest {
+
+    @Test
+    void testSnapshotDoesNotSeeLaterChanges() {
+        InMemoryTaskManager taskManager = (InMemoryTaskManager) Managers.getDefault();
+        Task task = taskManager.createTask(new Task("Task", "Description"));
+        Task deleted = taskManager.createTask(new Task("Deleted", "Description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+
+        try (BoardSnapshot snapshot = taskManager.openSnapshot()) {
+            task.setTitle("Changed");
+            taskManager.updateTask(task);
+            taskManager.deleteTask(deleted.getId());
+            taskManager.createTask(new Task("Created", "Description"));
+            subtask.setStatus(Status.DONE);
+            taskManager.updateSubtask(subtask);
+            taskManager.createSubtask(new Subtask("Second", "Description", epic.getId()));
+
+            assertEquals("Task", snapshot.getTask(task.getId()).getTitle());
+            List<Task> tasks = snapshot.getAllTasks();
+            assertEquals(2, tasks.size(), "Deleted task should be there, created one should not");
+            assertEquals(task.getId(), tasks.get(0).getId());
+            assertEquals(deleted.getId(), tasks.get(1).getId());
+
+            assertEquals(Status.NEW, snapshot.getEpic(epic.getId()).getStatus());
+            assertEquals(Status.NEW, snapshot.getSubtask(subtask.getId()).getStatus());
+            assertEquals(1, snapshot.getEpicSubtasks(epic.getId()).size());
+            assertEquals(Status.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus());
+
+            taskManager.deleteAllEpics();
+            assertEquals(1, snapshot.getAllEpics().size());
+            assertEquals(1, snapshot.getAllSubtasks().size());
+            assertThrows(TaskNotFoundException.class, () -> snapshot.getEpicSubtasks(12345));
+            assertTrue(taskManager.retainedVersionCount() > 0);
+        }
+        assertEquals(0, taskManager.retainedVersionCount(), "Old versions should be dropped on close");
+    }
+
+    @Test
+    void testOldVersionsAreKeptOnlyForOpenSnapshots() {
+        InMemoryTaskManager taskManager = (InMemoryTaskManager) Managers.getDefault();
+        Task task = taskManager.createTask(new Task("Version 0", "Description"));
+        taskManager.updateTask(task);
+        assertEquals(0, taskManager.retainedVersionCount(), "Nothing should be recorded without snapshots");
+
+        BoardSnapshot first = taskManager.openSnapshot();
+        task.setTitle("Version 1");
+        taskManager.updateTask(task);
+        BoardSnapshot second = taskManager.openSnapshot();
+        task.setTitle("Version 2");
+        taskManager.updateTask(task);
+
+        assertEquals("Version 0", first.getTask(task.getId()).getTitle());
+        assertEquals("Version 1", second.getTask(task.getId()).getTitle());
+        first.close();
+        first.close();
+        assertThrows(IllegalStateException.class, () -> first.getTask(task.getId()));
+        assertEquals("Version 1", second.getTask(task.getId()).getTitle());
+        second.close();
+        assertEquals(0, taskManager.retainedVersionCount());
+    }
+
+    @Test
+    void testSnapshotsAreConsistentWhileWritersRun() throws InterruptedException {
+        ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            epics.add(taskManager.createEpic(new Epic("Epic " + i, "Description")));
+        }
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            subtasks.add(taskManager.createSubtask(new Subtask("Subtask", "Description", epics.get(i % 4).getId())));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] writers = new Thread[2];
+        for (int t = 0; t < writers.length; t++) {
+            int seed = t;
+            writers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                while (running.get()) {
+                    // Each writer owns every other subtask, so two writers never update the same one
+                    Subtask subtask = subtasks.get(random.nextInt(subtasks.size() / 2) * 2 + seed).copy();
+                    subtask.setEpicId(epics.get(random.nextInt(epics.size())).getId());
+                    subtask.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+                    taskManager.updateSubtask(subtask);
+                }
+            });
+            writers[t].start();
+        }
+
+        try {
+            for (int round = 0; round < 200; round++) {
+                try (BoardSnapshot snapshot = taskManager.openSnapshot()) {
+                    Map<Integer, Integer> epicOfSubtask = new HashMap<>();
+                    for (Subtask subtask : snapshot.getAllSubtasks()) {
+                        epicOfSubtask.put(subtask.getId(), subtask.getEpicId());
+                    }
+                    assertEquals(40, epicOfSubtask.size());
+                    int listed = 0;
+                    for (Epic epic : snapshot.getAllEpics()) {
+                        for (Integer subtaskId : epic.getSubtaskIdsView()) {
+                            assertEquals(epic.getId(), (int) epicOfSubtask.get(subtaskId),
+                                    "Epic and subtask should come from the same moment");
+                            listed++;
+                        }
+                    }
+                    assertEquals(40, listed, "Every subtask should be in exactly one epic");
+                }
+            }
+        } finally {
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        // A write that started recording just before the last close may have left a version behind
+        taskManager.openSnapshot().close();
+        assertEquals(0, taskManager.retainedVersionCount());
+    }
+}
@@ -0,0 +1,95 @@
+package service;
+
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+
+    @Test
+    void testDuplicateMovesToEndAndRemove() {
+        HistoryManager historyManager = new ConcurrentHistoryManager();
+        historyManager.add(createTask(1));
+        historyManager.add(createTask(2));
+        historyManager.add(createTask(3));
+        historyManager.add(createTask(1));
+        historyManager.remove(3);
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(2, history.get(0).getId());
+        assertEquals(1, history.get(1).getId(), "Repeated view should move the task to the end");
+    }
+
+    @Test
+    void testOldestEntriesAreEvicted() {
+        HistoryManager historyManager = Managers.getConcurrentHistory(3);
+        for (int id = 1; id <= 5; id++) {
+            historyManager.add(createTask(id));
+        }
+        historyManager.add(createTask(3));
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(3, history.size(), "History should not grow over capacity");
+        assertEquals(4, history.get(0).getId());
+        assertEquals(5, history.get(1).getId());
+        assertEquals(3, history.get(2).getId());
+    }
+
+    @Test
+    void testAddsFromManyThreadsAreNotLost() throws InterruptedException {
+        HistoryManager historyManager = new ConcurrentHistoryManager(ConcurrentHistoryManager.UNLIMITED, 8);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t * 1000;
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    historyManager.add(createTask(offset + i));
+                    // Every task is viewed twice, it must still be in history once
+                    historyManager.add(createTask(offset + i));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<Task> history = historyManager.getHistory();
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : history) {
+            assertTrue(ids.add(task.getId()), "Task " + task.getId() + " is in history twice");
+        }
+        assertEquals(4000, ids.size());
+    }
+
+    @Test
+    void testShortLivedThreadsKeepViewOrder() throws InterruptedException {
+        // A thread per view, like a server with a thread per request: threads share buffers and the order holds
+        HistoryManager historyManager = new ConcurrentHistoryManager(ConcurrentHistoryManager.UNLIMITED, 4);
+        for (int id = 1; id <= 500; id++) {
+            int viewed = id % 100 + 1;
+            Thread thread = new Thread(() -> historyManager.add(createTask(viewed)));
+            thread.start();
+            thread.join();
+        }
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(100, history.size());
+        for (int i = 0; i < 100; i++) {
+            // The last round viewed 2..100 and then 1
+            assertEquals(i == 99 ? 1 : i + 2, history.get(i).getId());
+        }
+    }
+
+    private static Task createTask(int id) {
+        Task task = new Task("Task " + id, "Description");
+        task.setId(id);
+        return task;
+    }
+}
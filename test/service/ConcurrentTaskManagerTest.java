@@ -0,0 +1,243 @@
+package service;
+
+import event.TaskEventBus;
+import event.TaskEventType;
+import event.WaitStrategy;
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+import repository.ConcurrentEpicRepositoryImpl;
+import repository.ConcurrentSubtaskRepositoryImpl;
+import repository.ConcurrentTaskRepositoryImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+
+    @Test
+    void testParallelSubtaskChangesKeepEpicsConsistent() throws Exception {
+        ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            epics.add(taskManager.createEpic(new Epic("Epic " + i, "Description")));
+        }
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                List<Subtask> own = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    Epic epic = epics.get(random.nextInt(epics.size()));
+                    if (own.isEmpty() || random.nextInt(3) == 0) {
+                        own.add(taskManager.createSubtask(new Subtask("Subtask", "Description", epic.getId())));
+                    } else {
+                        // Move between epics in both directions to provoke lock ordering problems
+                        Subtask subtask = own.get(random.nextInt(own.size()));
+                        subtask.setEpicId(epic.getId());
+                        subtask.setStatus(Status.values()[random.nextInt(Status.values().length)]);
+                        taskManager.updateSubtask(subtask);
+                    }
+                    taskManager.getAllSubtasks();
+                }
+                Subtask deleted = own.remove(0);
+                taskManager.deleteSubtask(deleted.getId());
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(taskManager.checkEpicStatusConsistency(), "Status counters should match stored subtasks");
+
+        int subtaskCount = 0;
+        for (Epic epic : taskManager.getAllEpics()) {
+            List<Subtask> subtasks = taskManager.getEpicSubtasks(epic.getId());
+            assertEquals(subtasks.size(), epic.getSubtaskIds().size(), "Epic should list exactly its subtasks");
+            for (Subtask subtask : subtasks) {
+                assertEquals(epic.getId(), subtask.getEpicId());
+                assertTrue(epic.getSubtaskIds().contains(subtask.getId()));
+            }
+            subtaskCount += subtasks.size();
+        }
+        assertEquals(taskManager.getAllSubtasks().size(), subtaskCount);
+    }
+
+    @Test
+    void testDeleteAllDoesNotLeaveHalfCreatedTasksBehind() throws Exception {
+        ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    // Every task gets its own slot, so a slot left in the schedule can't hide behind another task
+                    LocalDateTime slot = start.plusMinutes((long) (i * threads + thread) * 10);
+                    taskManager.createTask(new Task("Task", "Description", Status.NEW, slot, Duration.ofMinutes(5)));
+                    taskManager.createEpic(new Epic("Epic", "Description"));
+                }
+                return null;
+            }));
+        }
+        Future<?> deleter = executor.submit(() -> {
+            while (running.get()) {
+                taskManager.deleteAllTasks();
+                taskManager.deleteAllEpics();
+            }
+            return null;
+        });
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        running.set(false);
+        deleter.get();
+        executor.shutdown();
+
+        taskManager.deleteAllTasks();
+        taskManager.deleteAllEpics();
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        assertTrue(taskManager.getAllEpics().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Deleted tasks should free their slots");
+        assertTrue(taskManager.search("task", 0, 10).isEmpty());
+        taskManager.createTask(new Task("Task", "Description", Status.NEW, start, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void testRenamingEpicDoesNotLoseConcurrentSubtasks() throws Exception {
+        ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> creator = executor.submit(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                taskManager.createSubtask(new Subtask("Subtask " + i, "Description", Status.DONE, epic.getId()));
+            }
+            return null;
+        });
+        Future<?> renamer = executor.submit(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                taskManager.updateEpicDetails(epic.getId(), "Epic " + i, "Description " + i);
+            }
+            return null;
+        });
+        creator.get();
+        renamer.get();
+        executor.shutdown();
+
+        Epic stored = taskManager.getEpic(epic.getId());
+        assertEquals("Epic 1999", stored.getTitle());
+        assertEquals(2_000, stored.getSubtaskIds().size(), "Renames must not drop subtasks");
+        assertEquals(Status.DONE, stored.getStatus());
+    }
+
+    @Test
+    void testSubtaskCreatedByEpicCreatedListenerIsKept() throws Exception {
+        CountDownLatch subtaskCreated = new CountDownLatch(1);
+        Thread[] creatingThread = new Thread[1];
+        // Holds createEpic right after any epic read it does once the epic is saved,
+        // so a listener can change the epic before createEpic writes back what it has read
+        ConcurrentEpicRepositoryImpl epicRepository = new ConcurrentEpicRepositoryImpl() {
+            @Override
+            public Epic findEpicById(int id) {
+                Epic epic = super.findEpicById(id);
+                if (Thread.currentThread() == creatingThread[0]) {
+                    try {
+                        subtaskCreated.await(2, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return epic;
+            }
+        };
+        // Ids far from thread ids and many stripes, so createEpic doesn't happen to hold the new epic's stripe
+        IdGenerator idGenerator = new IdGeneratorImpl();
+        idGenerator.reserve(100_000);
+        ConcurrentTaskManager taskManager = new ConcurrentTaskManager(idGenerator,
+                new ConcurrentTaskRepositoryImpl(), new ConcurrentSubtaskRepositoryImpl(), epicRepository,
+                new ConcurrentHistoryManager(), 1024);
+        TaskEventBus bus = new TaskEventBus(16, WaitStrategy.blocking());
+        bus.subscribe((event, sequence, endOfBatch) -> {
+            if (event.getType() == TaskEventType.EPIC_CREATED) {
+                taskManager.createSubtask(new Subtask("Subtask", "Description", Status.DONE, event.getId()));
+                subtaskCreated.countDown();
+            }
+        });
+        taskManager.setEventBus(bus);
+
+        creatingThread[0] = Thread.currentThread();
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        creatingThread[0] = null;
+        assertTrue(subtaskCreated.await(5, TimeUnit.SECONDS));
+        bus.close();
+
+        Epic stored = taskManager.getEpic(epic.getId());
+        assertEquals(1, stored.getSubtaskIds().size(), "Subtask created by the listener should stay in its epic");
+        assertEquals(1, taskManager.getEpicSubtasks(epic.getId()).size());
+        assertEquals(Status.DONE, stored.getStatus());
+        assertTrue(taskManager.checkEpicStatusConsistency());
+    }
+
+    @Test
+    void testIdsStayDenseWithShortLivedThreads() throws InterruptedException {
+        ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            // Like request threads: each creates one task and goes away
+            threads[t] = new Thread(() -> taskManager.createTask(new Task("Task", "Description")));
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : taskManager.getAllTasks()) {
+            ids.add(task.getId());
+        }
+        ids.sort(null);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), ids);
+    }
+
+    @Test
+    void testConcurrentManagerBehavesLikeDefault() {
+        TaskManager taskManager = Managers.getConcurrent();
+        Epic epic1 = taskManager.createEpic(new Epic("Epic 1", "Description"));
+        Epic epic2 = taskManager.createEpic(new Epic("Epic 2", "Description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", Status.DONE, epic1.getId()));
+
+        subtask.setEpicId(epic2.getId());
+        taskManager.updateSubtask(subtask);
+
+        assertEquals(Status.NEW, taskManager.getEpic(epic1.getId()).getStatus());
+        assertEquals(Status.DONE, taskManager.getEpic(epic2.getId()).getStatus());
+
+        taskManager.deleteEpic(epic2.getId());
+        assertTrue(taskManager.getAllSubtasks().isEmpty());
+        assertEquals(1, taskManager.getHistory().size());
+    }
+}
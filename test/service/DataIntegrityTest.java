@@ -75,9 +75,12 @@ class DataIntegrityTest {
         assertEquals(originalDescription, retrievedTask.getDescription(), "Description should not be affected by external modification");
         assertEquals(originalStatus, retrievedTask.getStatus(), "Status should not be affected by external modification");
 
-        retrievedTask.setTitle("Another Modified Title");
-        retrievedTask.setDescription("Another Modified Description");
-        retrievedTask.setStatus(Status.IN_PROGRESS);
+        assertThrows(UnsupportedOperationException.class, () -> retrievedTask.setTitle("Another Modified Title"),
+                "Retrieved task is a shared read-only snapshot");
+        Task modifiedCopy = retrievedTask.copy();
+        modifiedCopy.setTitle("Another Modified Title");
+        modifiedCopy.setDescription("Another Modified Description");
+        modifiedCopy.setStatus(Status.IN_PROGRESS);
 
         Task thirdRetrieve = taskManager.getTask(taskId);
         assertEquals(originalTitle, thirdRetrieve.getTitle(), "Title should still not be affected");
@@ -0,0 +1,91 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpicSubtasksCacheTest {
+
+    @Test
+    void testManagerInvalidatesExactlyTheChangedEpics() {
+        InMemoryTaskManager taskManager = (InMemoryTaskManager) Managers.getDefault();
+        Epic epic1 = taskManager.createEpic(new Epic("Epic 1", "Description"));
+        Epic epic2 = taskManager.createEpic(new Epic("Epic 2", "Description"));
+        Epic epic3 = taskManager.createEpic(new Epic("Epic 3", "Description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", epic1.getId()));
+
+        List<Subtask> cached = taskManager.getEpicSubtasks(epic1.getId());
+        assertSame(cached, taskManager.getEpicSubtasks(epic1.getId()), "Second call should be a hit");
+        taskManager.getEpicSubtasks(epic3.getId());
+        assertThrows(UnsupportedOperationException.class, () -> cached.add(subtask));
+
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+        assertEquals(Status.DONE, taskManager.getEpicSubtasks(epic1.getId()).get(0).getStatus(),
+                "Update inside the same epic should be seen");
+
+        subtask.setEpicId(epic2.getId());
+        taskManager.updateSubtask(subtask);
+        assertTrue(taskManager.getEpicSubtasks(epic1.getId()).isEmpty());
+        assertEquals(1, taskManager.getEpicSubtasks(epic2.getId()).size());
+
+        taskManager.createSubtasks(List.of(new Subtask("Batch", "Description", epic2.getId())));
+        assertEquals(2, taskManager.getEpicSubtasks(epic2.getId()).size());
+        taskManager.deleteSubtask(subtask.getId());
+        assertEquals(1, taskManager.getEpicSubtasks(epic2.getId()).size());
+
+        CacheStats before = taskManager.getEpicSubtasksCacheStats();
+        taskManager.getEpicSubtasks(epic3.getId());
+        CacheStats after = taskManager.getEpicSubtasksCacheStats();
+        assertEquals(before.getHits() + 1, after.getHits(), "Untouched epic should stay cached");
+
+        taskManager.deleteAllSubtask();
+        assertTrue(taskManager.getEpicSubtasks(epic2.getId()).isEmpty());
+        assertEquals(4, after.getInvalidations(), "Only cached epics count as invalidated");
+        assertTrue(after.getHitRate() > 0 && after.getHitRate() < 1);
+    }
+
+    @Test
+    void testEvictionKeepsWeightBoundedAndPrefersRecentlyUsed() {
+        EpicSubtasksCache cache = new EpicSubtasksCache(30);
+        int[] loads = new int[10];
+        for (int epicId = 0; epicId < 10; epicId++) {
+            int id = epicId;
+            cache.get(epicId, ignored -> {
+                loads[id]++;
+                return subtasks(id, 4);
+            });
+            // Epic 0 is read all the time
+            cache.get(0, ignored -> {
+                loads[0]++;
+                return subtasks(0, 4);
+            });
+        }
+
+        CacheStats stats = cache.stats();
+        assertTrue(stats.getWeight() <= 30, "Weight was " + stats.getWeight());
+        assertTrue(stats.getEvictions() > 0);
+        assertEquals(1, loads[0], "Hot entry should survive eviction");
+
+        List<Subtask> huge = cache.get(100, ignored -> subtasks(100, 50));
+        assertEquals(50, huge.size());
+        assertTrue(cache.stats().getWeight() <= 30, "Lists over the limit are not cached");
+        assertThrows(IllegalArgumentException.class, () -> new EpicSubtasksCache(0));
+    }
+
+    private static List<Subtask> subtasks(int epicId, int count) {
+        List<Subtask> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Subtask subtask = new Subtask("Subtask", "Description", epicId);
+            subtask.setId(epicId * 1000 + i + 1);
+            result.add(subtask.freeze());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package service;
+
+import model.Epic;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryListTest {
+
+    @Test
+    void testMatchesLinkedHashMapWhileSlotsAreReused() {
+        HistoryList history = new HistoryList(1);
+        Map<Integer, Task> expected = new LinkedHashMap<>();
+        Random random = new Random(24);
+
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(40) + 1;
+            int action = random.nextInt(10);
+            if (action < 6) {
+                Task task = id % 2 == 0 ? new Task("Task " + i, "") : new Epic("Epic " + i, "");
+                task.setId(id);
+                history.add(task);
+                expected.remove(id);
+                expected.put(id, task);
+            } else if (action < 9) {
+                assertEquals(expected.remove(id) != null, history.remove(id));
+            } else if (!expected.isEmpty()) {
+                history.removeOldest();
+                expected.remove(expected.keySet().iterator().next());
+            }
+            assertEquals(expected.size(), history.size());
+        }
+        assertSameTasks(expected, history);
+
+        history.removeAll(Epic.class);
+        expected.values().removeIf(task -> task instanceof Epic);
+        assertSameTasks(expected, history);
+    }
+
+    // Same ids in the same order and the latest viewed instance of each
+    private static void assertSameTasks(Map<Integer, Task> expected, HistoryList history) {
+        ArrayList<Task> actual = new ArrayList<>(history.toList());
+        ArrayList<Task> wanted = new ArrayList<>(expected.values());
+        assertEquals(wanted.size(), actual.size());
+        for (int i = 0; i < wanted.size(); i++) {
+            assertSame(wanted.get(i), actual.get(i));
+        }
+    }
+}
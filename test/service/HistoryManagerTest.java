@@ -175,4 +175,81 @@ class HistoryManagerTest {
         assertEquals(task3, history.get(1));
         assertEquals(task2, history.get(2));
     }
+
+    @Test
+    void testBulkRemoveByIdsAndByType() {
+        for (HistoryManager manager : List.of(new InMemoryHistoryManager(), new ConcurrentHistoryManager())) {
+            Task task = new Task("Task", "Description");
+            task.setId(1);
+            Epic epic = new Epic("Epic", "Description");
+            epic.setId(2);
+            Subtask subtask1 = new Subtask("Subtask 1", "Description", 2);
+            subtask1.setId(3);
+            Subtask subtask2 = new Subtask("Subtask 2", "Description", 2);
+            subtask2.setId(4);
+            manager.add(subtask1);
+            manager.add(task);
+            manager.add(epic);
+            manager.add(subtask2);
+
+            manager.removeAll(Subtask.class);
+            assertEquals(List.of(task, epic), manager.getHistory(), "Only subtasks should be removed");
+
+            manager.removeAll(new int[]{2, 42});
+            assertEquals(List.of(task), manager.getHistory());
+            manager.removeAll(Task.class);
+            assertTrue(manager.getHistory().isEmpty(), "Task.class should match plain tasks only");
+        }
+    }
+
+    @Test
+    void testDeleteAllClearsOnlyItsTypeFromHistory() {
+        Task task = taskManager.createTask(new Task("Task", "Description"));
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        Epic emptyEpic = taskManager.createEpic(new Epic("Empty", "Description"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        taskManager.getTask(task.getId());
+        taskManager.getEpic(epic.getId());
+        taskManager.getSubtask(subtask.getId());
+
+        Epic emptyBefore = taskManager.getEpic(emptyEpic.getId());
+        taskManager.deleteAllSubtask();
+        assertEquals(List.of(task.getId(), epic.getId(), emptyEpic.getId()),
+                taskManager.getHistory().stream().map(Task::getId).toList());
+        assertTrue(taskManager.getEpic(epic.getId()).getSubtaskIdsView().isEmpty());
+        assertSame(emptyBefore, taskManager.getEpic(emptyEpic.getId()), "An epic without subtasks should not be copied");
+
+        taskManager.deleteAllEpics();
+        assertEquals(List.of(task), taskManager.getHistory());
+        taskManager.deleteAllTasks();
+        assertTrue(taskManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void testHistoryIsCachedUntilItChanges() {
+        for (HistoryManager manager : List.of(new InMemoryHistoryManager(), new ConcurrentHistoryManager())) {
+            Task[] tasks = new Task[5];
+            for (int i = 0; i < tasks.length; i++) {
+                Task task = new Task("Task " + i, "Description");
+                task.setId(i + 1);
+                tasks[i] = task.freeze();
+                manager.add(tasks[i]);
+            }
+
+            List<Task> history = manager.getHistory();
+            assertSame(history, manager.getHistory(), "Unchanged history should not be rebuilt");
+            manager.add(tasks[4]);
+            assertSame(history, manager.getHistory(), "Viewing the newest task again changes nothing");
+            assertThrows(UnsupportedOperationException.class, () -> history.remove(0));
+
+            manager.add(tasks[0]);
+            List<Task> changed = manager.getHistory();
+            assertNotSame(history, changed);
+            assertEquals(List.of(tasks[1], tasks[2], tasks[3], tasks[4], tasks[0]), changed);
+
+            assertEquals(List.of(tasks[4], tasks[0]), manager.getRecentHistory(2));
+            assertEquals(changed, manager.getRecentHistory(100));
+            assertThrows(IllegalArgumentException.class, () -> manager.getRecentHistory(0));
+        }
+    }
 }
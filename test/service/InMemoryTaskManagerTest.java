@@ -1,12 +1,21 @@
 package service;
 
+import exception.TaskNotFoundException;
+import exception.TaskOverlapException;
 import model.Epic;
 import model.Status;
 import model.Subtask;
 import model.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import repository.EpicRepositoryImpl;
+import repository.SubtaskRepository;
+import repository.SubtaskRepositoryImpl;
+import repository.TaskRepositoryImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -177,11 +186,261 @@ class InMemoryTaskManagerTest {
         assertEquals("Updated Description", taskInHistory.getDescription(), "Task description in history should match the last viewed state");
         assertEquals(Status.IN_PROGRESS, taskInHistory.getStatus(), "Task status in history should match the last viewed state");
 
-        firstView.setTitle("Should not affect manager");
-        secondView.setDescription("Should not affect manager");
+        assertThrows(UnsupportedOperationException.class, () -> firstView.setTitle("Should not affect manager"));
+        assertThrows(UnsupportedOperationException.class, () -> secondView.setDescription("Should not affect manager"));
+        assertEquals("Original Title", firstView.getTitle(), "Old snapshot should keep the state it was read in");
+        secondView.withDescription("Should not affect manager");
 
         Task freshCopy = taskManager.getTask(originalTask.getId());
         assertEquals("Updated Title", freshCopy.getTitle(), "Manager data should not be affected by external changes");
         assertEquals("Updated Description", freshCopy.getDescription(), "Manager data should not be affected by external changes");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testEpicStatusesAfterSubtaskMovedBetweenEpics() {
+        Epic epic1 = taskManager.createEpic(new Epic("Epic 1", "Description"));
+        Epic epic2 = taskManager.createEpic(new Epic("Epic 2", "Description"));
+        Subtask done = taskManager.createSubtask(new Subtask("Done", "Description", Status.DONE, epic1.getId()));
+        taskManager.createSubtask(new Subtask("New", "Description", epic1.getId()));
+
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(epic1.getId()).getStatus());
+
+        done.setEpicId(epic2.getId());
+        taskManager.updateSubtask(done);
+
+        assertEquals(Status.NEW, taskManager.getEpic(epic1.getId()).getStatus(), "Old epic should be recalculated without moved subtask");
+        assertEquals(Status.DONE, taskManager.getEpic(epic2.getId()).getStatus(), "New epic should be recalculated with moved subtask");
+
+        taskManager.deleteSubtask(done.getId());
+        assertEquals(Status.NEW, taskManager.getEpic(epic2.getId()).getStatus(), "Epic without subtasks should be NEW");
+    }
+
+    @Test
+    void testEpicStatusConsistencyCheck() {
+        InMemoryTaskManager manager = (InMemoryTaskManager) taskManager;
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        manager.deleteAllSubtask();
+        manager.createSubtask(new Subtask("Subtask", "Description", Status.IN_PROGRESS, epic.getId()));
+
+        assertTrue(manager.checkEpicStatusConsistency(), "Counters should match stored subtasks");
+        assertEquals(Status.IN_PROGRESS, manager.getEpic(epic.getId()).getStatus());
+    }
+
+    @Test
+    void testEpicStatusConsistencyCheckRepairsDriftedCounters() {
+        SubtaskRepository subtaskRepository = new SubtaskRepositoryImpl();
+        InMemoryTaskManager manager = new InMemoryTaskManager(new IdGeneratorImpl(), new TaskRepositoryImpl(),
+                subtaskRepository, new EpicRepositoryImpl(), Managers.getDefaultHistory());
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", Status.IN_PROGRESS, epic.getId()));
+
+        // Behind the manager's back, so its counters still say IN_PROGRESS
+        Subtask done = subtask.copy();
+        done.setStatus(Status.DONE);
+        subtaskRepository.updateSubtask(done);
+        assertEquals(Status.IN_PROGRESS, manager.getEpic(epic.getId()).getStatus());
+
+        assertFalse(manager.checkEpicStatusConsistency(), "Drifted counters should be reported");
+        assertEquals(Status.DONE, manager.getEpic(epic.getId()).getStatus(), "Epic status should be repaired");
+        assertTrue(manager.checkEpicStatusConsistency(), "Counters should match after the repair");
+    }
+
+    @Test
+    void testSearchFollowsChanges() {
+        Epic epic = taskManager.createEpic(new Epic("Move flat", "Find a new flat"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("Pack boxes", "Books and flat things", epic.getId()));
+        Task other = taskManager.createTask(new Task("Buy boxes", "Cardboard"));
+
+        List<Task> found = taskManager.search("FLAT", 0, 10);
+        assertEquals(2, found.size());
+        assertEquals(epic.getId(), found.get(0).getId(), "Epic mentions the word twice");
+        assertEquals(subtask.getId(), found.get(1).getId());
+
+        other.setTitle("Buy tape");
+        taskManager.updateTask(other);
+        assertEquals(1, taskManager.search("boxes", 0, 10).size(), "Old title should not be found");
+
+        // Not a task id, nothing to delete
+        taskManager.getEpic(epic.getId());
+        taskManager.deleteTask(epic.getId());
+        assertEquals(2, taskManager.search("flat", 0, 10).size(), "deleteTask must not unindex an epic");
+        assertEquals(epic.getId(), taskManager.getHistory().get(0).getId(), "deleteTask must not forget an epic view");
+
+        taskManager.deleteEpic(epic.getId());
+        assertTrue(taskManager.search("flat", 0, 10).isEmpty(), "Deleted epic and its subtasks should not be found");
+        assertTrue(taskManager.search("boxes", 0, 10).isEmpty());
+    }
+
+    @Test
+    void testSubtasksStreamAndPages() {
+        Epic epic = taskManager.createEpic(new Epic("Big epic", "Description"));
+        List<Integer> created = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            created.add(taskManager.createSubtask(new Subtask("Subtask " + i, "Description", epic.getId())).getId());
+        }
+        taskManager.deleteSubtask(created.remove(300));
+
+        assertEquals(created, taskManager.streamSubtasks().map(Subtask::getId).toList(),
+                "Stream should go over every page in id order");
+
+        List<Subtask> page = taskManager.getSubtasksAfter(created.get(9), 5);
+        assertEquals(created.subList(10, 15), page.stream().map(Subtask::getId).toList());
+        assertEquals(1, taskManager.streamEpics().count());
+        assertEquals(0, taskManager.streamTasks().count() - taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void testBatchSubtaskChanges() {
+        Epic epic1 = taskManager.createEpic(new Epic("Epic 1", "Description"));
+        Epic epic2 = taskManager.createEpic(new Epic("Epic 2", "Description"));
+        List<Subtask> created = taskManager.createSubtasks(List.of(
+                new Subtask("First", "Description", Status.DONE, epic1.getId()),
+                new Subtask("Second", "Description", Status.DONE, epic1.getId()),
+                new Subtask("Third", "Description", epic2.getId())));
+
+        assertEquals(3, created.size());
+        assertEquals(List.of(created.get(0).getId(), created.get(1).getId()),
+                taskManager.getEpic(epic1.getId()).getSubtaskIds());
+        assertEquals(Status.DONE, taskManager.getEpic(epic1.getId()).getStatus());
+
+        // Move to the other epic and back within one batch, and move the third one for real
+        Subtask first = created.get(0);
+        Subtask firstMoved = first.copy();
+        firstMoved.setEpicId(epic2.getId());
+        Subtask third = created.get(2);
+        third.setEpicId(epic1.getId());
+        third.setStatus(Status.DONE);
+        taskManager.updateSubtasks(List.of(firstMoved, first, third));
+
+        assertEquals(List.of(first.getId(), created.get(1).getId(), third.getId()),
+                taskManager.getEpic(epic1.getId()).getSubtaskIds());
+        assertTrue(taskManager.getEpic(epic2.getId()).getSubtaskIds().isEmpty());
+        assertEquals(Status.DONE, taskManager.getEpic(epic1.getId()).getStatus());
+
+        taskManager.deleteSubtasks(List.of(first.getId(), third.getId(), first.getId()));
+        assertEquals(List.of(created.get(1).getId()), taskManager.getEpic(epic1.getId()).getSubtaskIds());
+        assertTrue(((InMemoryTaskManager) taskManager).checkEpicStatusConsistency());
+    }
+
+    @Test
+    void testFailedBatchChangesNothing() {
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        int subtaskCount = taskManager.getAllSubtasks().size();
+
+        assertThrows(TaskNotFoundException.class, () -> taskManager.createSubtasks(List.of(
+                new Subtask("Valid", "Description", epic.getId()),
+                new Subtask("Invalid", "Description", 12345))));
+        assertEquals(subtaskCount, taskManager.getAllSubtasks().size(), "Valid subtask should not be created");
+
+        Subtask subtask = taskManager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        assertThrows(TaskNotFoundException.class,
+                () -> taskManager.deleteSubtasks(List.of(subtask.getId(), 12345)));
+        assertNotNull(taskManager.getSubtask(subtask.getId()), "Existing subtask should not be deleted");
+    }
+
+    @Test
+    void testOverlappingTasksAreRejected() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Task first = taskManager.createTask(new Task("First", "Description", Status.NEW, start, Duration.ofMinutes(60)));
+
+        assertThrows(TaskOverlapException.class, () -> taskManager.createTask(
+                new Task("Inside", "Description", Status.NEW, start.plusMinutes(30), Duration.ofMinutes(10))));
+        assertThrows(TaskOverlapException.class, () -> taskManager.createTask(
+                new Task("Around", "Description", Status.NEW, start.minusMinutes(30), Duration.ofMinutes(120))));
+        assertEquals(1, taskManager.getAllTasks().size(), "Rejected tasks should not be stored");
+
+        // Touching intervals don't overlap
+        Task next = taskManager.createTask(
+                new Task("Next", "Description", Status.NEW, start.plusMinutes(60), Duration.ofMinutes(30)));
+
+        // A task doesn't overlap its own old interval
+        first.setDuration(Duration.ofMinutes(50));
+        taskManager.updateTask(first);
+        first.setDuration(Duration.ofMinutes(61));
+        assertThrows(TaskOverlapException.class, () -> taskManager.updateTask(first));
+        assertEquals(Duration.ofMinutes(50), taskManager.getTask(first.getId()).getDuration());
+
+        taskManager.deleteTask(next.getId());
+        taskManager.updateTask(first);
+        assertEquals(Duration.ofMinutes(61), taskManager.getTask(first.getId()).getDuration());
+    }
+
+    @Test
+    void testPrioritizedTasksAreOrderedByStartTime() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        Task late = taskManager.createTask(
+                new Task("Late", "Description", Status.NEW, start.plusHours(5), Duration.ofMinutes(30)));
+        Subtask early = taskManager.createSubtask(
+                new Subtask("Early", "Description", Status.NEW, epic.getId(), start, Duration.ofMinutes(30)));
+        Task middle = taskManager.createTask(
+                new Task("Middle", "Description", Status.NEW, start.plusHours(2), null));
+        taskManager.createTask(new Task("Unscheduled", "Description"));
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(3, prioritized.size(), "Tasks without start time should not be prioritized");
+        assertEquals(early.getId(), prioritized.get(0).getId());
+        assertEquals(middle.getId(), prioritized.get(1).getId());
+        assertEquals(late.getId(), prioritized.get(2).getId());
+
+        late.setStartTime(start.minusHours(1));
+        taskManager.updateTask(late);
+        taskManager.deleteEpic(epic.getId());
+        prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(2, prioritized.size());
+        assertEquals(late.getId(), prioritized.get(0).getId());
+    }
+
+    @Test
+    void testEpicScheduleFollowsSubtasks() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Epic epic1 = taskManager.createEpic(new Epic("Epic 1", "Description"));
+        Epic epic2 = taskManager.createEpic(new Epic("Epic 2", "Description"));
+        assertNull(taskManager.getEpic(epic1.getId()).getStartTime());
+
+        Subtask first = taskManager.createSubtask(
+                new Subtask("First", "Description", Status.NEW, epic1.getId(), start, Duration.ofMinutes(30)));
+        Subtask second = taskManager.createSubtask(new Subtask("Second", "Description", Status.NEW, epic1.getId(),
+                start.plusHours(2), Duration.ofMinutes(60)));
+
+        Epic epic = taskManager.getEpic(epic1.getId());
+        assertEquals(start, epic.getStartTime());
+        assertEquals(start.plusHours(3), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration(), "Epic duration is the sum of subtask durations");
+
+        second.setEpicId(epic2.getId());
+        taskManager.updateSubtask(second);
+        epic = taskManager.getEpic(epic1.getId());
+        assertEquals(start.plusMinutes(30), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+        assertEquals(start.plusHours(2), taskManager.getEpic(epic2.getId()).getStartTime());
+
+        taskManager.deleteSubtask(first.getId());
+        epic = taskManager.getEpic(epic1.getId());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertNull(epic.getDuration());
+        assertThrows(UnsupportedOperationException.class, () -> epic2.setStartTime(start));
+    }
+
+    @Test
+    void testOverlappingBatchIsRejectedAsAWhole() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+
+        assertThrows(TaskOverlapException.class, () -> taskManager.createSubtasks(List.of(
+                new Subtask("First", "Description", Status.NEW, epic.getId(), start, Duration.ofMinutes(30)),
+                new Subtask("Second", "Description", Status.NEW, epic.getId(), start.plusMinutes(10),
+                        Duration.ofMinutes(30)))));
+        assertTrue(taskManager.getAllSubtasks().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Rolled back intervals should be released");
+
+        taskManager.createSubtask(
+                new Subtask("Second", "Description", Status.NEW, epic.getId(), start.plusMinutes(10),
+                        Duration.ofMinutes(30)));
+        assertEquals(start.plusMinutes(40), taskManager.getEpic(epic.getId()).getEndTime());
+    }
+}
@@ -0,0 +1,79 @@
+package service;
+
+import exception.TaskNotFoundException;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.Epic;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedTaskManagerTest {
+
+    @Test
+    void testCallsErrorsAndLatenciesAreRecorded() {
+        // Time every call, so the histograms are exact
+        MetricsRegistry registry = new MetricsRegistry(1);
+        TaskManager taskManager = Managers.getInstrumented(registry);
+
+        Task task = taskManager.createTask(new Task("Task", "Description"));
+        taskManager.getTask(task.getId());
+        taskManager.getTask(task.getId());
+        assertThrows(TaskNotFoundException.class, () -> taskManager.getEpicSubtasks(12345));
+
+        OperationMetrics getTask = registry.operation(InstrumentedTaskManager.COMPONENT, "getTask");
+        assertEquals(2, getTask.getCalls());
+        assertEquals(2, getTask.latencySnapshot().getCount());
+        assertTrue(getTask.errorCounts().isEmpty());
+
+        OperationMetrics getEpicSubtasks = registry.operation(InstrumentedTaskManager.COMPONENT, "getEpicSubtasks");
+        assertEquals(1, getEpicSubtasks.getCalls(), "Failed calls are calls too");
+        assertEquals(1, (long) getEpicSubtasks.errorCounts().get("TaskNotFoundException"));
+
+        OperationMetrics historyAdd = registry.operation(InstrumentedHistoryManager.COMPONENT, "add");
+        assertEquals(2, historyAdd.getCalls(), "History calls of the manager are recorded");
+    }
+
+    @Test
+    void testSampledCallsAreAllCounted() {
+        MetricsRegistry registry = new MetricsRegistry(16);
+        HistoryManager historyManager = Managers.instrument(Managers.getDefaultHistory(), registry);
+        Task task = new Task("Task", "Description");
+        task.setId(1);
+        for (int i = 0; i < 10_000; i++) {
+            historyManager.add(task);
+        }
+
+        OperationMetrics add = registry.operation(InstrumentedHistoryManager.COMPONENT, "add");
+        assertEquals(10_000, add.getCalls());
+        long timed = add.latencySnapshot().getCount();
+        assertTrue(timed > 300 && timed < 1000, "About one call in 16 should be timed, was " + timed);
+    }
+
+    @Test
+    void testTextExport() {
+        MetricsRegistry registry = new MetricsRegistry();
+        TaskManager taskManager = Managers.instrument(Managers.getDefault(), registry);
+        Epic epic = taskManager.createEpic(new Epic("Epic", "Description"));
+        taskManager.getEpic(epic.getId());
+        assertThrows(TaskNotFoundException.class, () -> taskManager.deleteEpic(12345));
+
+        String text = registry.toText();
+        List<String> lines = text.lines().toList();
+        assertTrue(lines.contains("# TYPE task_manager_calls_total counter"));
+        assertTrue(lines.contains("task_manager_calls_total{operation=\"getEpic\"} 1"));
+        assertTrue(lines.contains("task_manager_calls_total{operation=\"getTask\"} 0"),
+                "Every method is listed from the start");
+        assertTrue(lines.contains(
+                "task_manager_errors_total{operation=\"deleteEpic\",exception=\"TaskNotFoundException\"} 1"));
+        assertTrue(lines.contains("task_manager_latency_seconds_count{operation=\"createEpic\"} 1"));
+        assertTrue(text.contains("task_manager_latency_seconds{operation=\"getEpic\",quantile=\"0.99\"} "));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsRegistry(3));
+        for (String line : lines) {
+            assertTrue(line.startsWith("# ") || line.matches("[a-z_]+\\{[^}]*} [0-9.]+"), "Bad line: " + line);
+        }
+    }
+}
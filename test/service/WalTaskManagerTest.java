@@ -0,0 +1,260 @@
+package service;
+
+import exception.ManagerSaveException;
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.SyncPolicy;
+import repository.EpicRepositoryImpl;
+import repository.SubtaskRepositoryImpl;
+import repository.TaskRepositoryImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalTaskManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testStateIsRestoredAfterRestart() {
+        Path dataDir = tempDir.resolve("data");
+        Task task;
+        Epic epic;
+        Subtask subtask;
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            task = manager.createTask(new Task("Task", "Description"));
+            epic = manager.createEpic(new Epic("Epic", "Description"));
+            subtask = manager.createSubtask(new Subtask("Subtask", "Description", epic.getId()));
+            Subtask deleted = manager.createSubtask(new Subtask("Deleted", "Description", epic.getId()));
+
+            subtask.setStatus(Status.DONE);
+            manager.updateSubtask(subtask);
+            manager.deleteSubtask(deleted.getId());
+        }
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertEquals("Task", manager.getTask(task.getId()).getTitle());
+            assertEquals(Status.DONE, manager.getSubtask(subtask.getId()).getStatus());
+
+            Epic restoredEpic = manager.getEpic(epic.getId());
+            assertEquals(Status.DONE, restoredEpic.getStatus(), "Epic status should be restored");
+            assertEquals(1, restoredEpic.getSubtaskIds().size(), "Deleted subtask should not come back");
+            assertEquals(1, manager.search("subtask", 0, 10).size(), "Search index should be rebuilt");
+
+            Task newTask = manager.createTask(new Task("New task", "Description"));
+            assertTrue(newTask.getId() > subtask.getId(), "Ids should not be reused after restart");
+        }
+    }
+
+    @Test
+    void testSubtaskMoveAndCascadeDeletionAreRestored() {
+        Path dataDir = tempDir.resolve("data");
+        Epic epic1;
+        Epic epic2;
+        try (WalTaskManager manager = Managers.getDurable(dataDir, SyncPolicy.batched(16))) {
+            epic1 = manager.createEpic(new Epic("Epic 1", "Description"));
+            epic2 = manager.createEpic(new Epic("Epic 2", "Description"));
+            Subtask subtask = manager.createSubtask(new Subtask("Subtask", "Description", Status.IN_PROGRESS, epic1.getId()));
+            manager.createSubtask(new Subtask("Other", "Description", epic1.getId()));
+
+            subtask.setEpicId(epic2.getId());
+            manager.updateSubtask(subtask);
+            manager.deleteEpic(epic1.getId());
+        }
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertTrue(manager.getAllEpics().stream().noneMatch(epic -> epic.getId() == epic1.getId()));
+            assertEquals(1, manager.getAllSubtasks().size(), "Only moved subtask should survive the epic deletion");
+            assertEquals(Status.IN_PROGRESS, manager.getEpic(epic2.getId()).getStatus());
+        }
+    }
+
+    @Test
+    void testTornEntryAtTheEndIsIgnored() throws IOException {
+        Path dataDir = tempDir.resolve("data");
+        try (WalTaskManager manager = Managers.getDurable(dataDir, SyncPolicy.periodic(10))) {
+            manager.createTask(new Task("Task 1", "Description"));
+            manager.createTask(new Task("Task 2", "Description"));
+        }
+
+        // Half-written entry, like after a crash in the middle of a write
+        Files.write(dataDir.resolve("wal-1.log"), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertEquals(2, manager.getAllTasks().size());
+            manager.createTask(new Task("Task 3", "Description"));
+        }
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertEquals(3, manager.getAllTasks().size(), "Log should stay readable after the torn entry was cut off");
+        }
+    }
+
+    @Test
+    void testStateIsRestoredFromSnapshotAndNewerSegments() throws IOException {
+        Path dataDir = tempDir.resolve("data");
+        Task task;
+        Epic epic;
+        Subtask subtask;
+        int deletedId;
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            task = manager.createTask(new Task("Task", "Description"));
+            epic = manager.createEpic(new Epic("Epic", "Description"));
+            subtask = manager.createSubtask(new Subtask("Subtask", "Description", Status.DONE, epic.getId()));
+            manager.getSubtask(subtask.getId());
+            manager.getTask(task.getId());
+            Task deleted = manager.createTask(new Task("Deleted", "Description"));
+            deletedId = deleted.getId();
+            manager.deleteTask(deletedId);
+
+            manager.takeSnapshot().join();
+            assertFalse(Files.exists(dataDir.resolve("wal-1.log")), "Segments covered by the snapshot should be deleted");
+
+            manager.createSubtask(new Subtask("After snapshot", "Description", epic.getId()));
+        }
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertEquals(1, manager.getAllTasks().size());
+            assertEquals(2, manager.getEpicSubtasks(epic.getId()).size(), "Changes after the snapshot should be replayed");
+            assertEquals(Status.IN_PROGRESS, manager.getAllEpics().get(0).getStatus());
+
+            List<Task> history = manager.getHistory();
+            assertEquals(2, history.size(), "History order should come from the snapshot");
+            assertEquals(subtask.getId(), history.get(0).getId());
+            assertEquals(task.getId(), history.get(1).getId());
+
+            assertTrue(manager.createTask(new Task("New", "Description")).getId() > deletedId,
+                    "Ids of deleted tasks should not be reused");
+        }
+    }
+
+    @Test
+    void testBatchesAreRestored() {
+        Path dataDir = tempDir.resolve("data");
+        Epic epic;
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            epic = manager.createEpic(new Epic("Epic", "Description"));
+            List<Subtask> created = manager.createSubtasks(List.of(
+                    new Subtask("First", "Description", Status.DONE, epic.getId()),
+                    new Subtask("Second", "Description", epic.getId())));
+            manager.createTasks(List.of(new Task("Task 1", "Description"), new Task("Task 2", "Description")));
+
+            Subtask second = created.get(1);
+            second.setStatus(Status.DONE);
+            manager.updateSubtasks(List.of(second));
+            manager.deleteSubtasks(List.of(created.get(0).getId()));
+        }
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertEquals(2, manager.getAllTasks().size());
+            assertEquals(1, manager.getAllSubtasks().size());
+            Epic restored = manager.getEpic(epic.getId());
+            assertEquals(1, restored.getSubtaskIds().size());
+            assertEquals(Status.DONE, restored.getStatus());
+        }
+    }
+
+    @Test
+    void testScheduleIsRestored() {
+        Path dataDir = tempDir.resolve("data");
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0, 15, 500);
+        Task task;
+        Epic epic;
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            task = manager.createTask(new Task("Task", "Description", Status.NEW, start, Duration.ofMinutes(45)));
+            epic = manager.createEpic(new Epic("Epic", "Description"));
+            manager.createSubtask(new Subtask("Subtask", "Description", Status.NEW, epic.getId(),
+                    start.plusHours(1), Duration.ofMinutes(30)));
+            manager.takeSnapshot().join();
+            manager.createSubtask(new Subtask("Later", "Description", Status.NEW, epic.getId(),
+                    start.plusHours(3), Duration.ofSeconds(90)));
+        }
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertEquals(start, manager.getTask(task.getId()).getStartTime());
+            assertEquals(Duration.ofMinutes(45), manager.getTask(task.getId()).getDuration());
+
+            Epic restoredEpic = manager.getEpic(epic.getId());
+            assertEquals(start.plusHours(1), restoredEpic.getStartTime());
+            assertEquals(start.plusHours(3).plusSeconds(90), restoredEpic.getEndTime());
+            assertEquals(3, manager.getPrioritizedTasks().size());
+            assertThrows(exception.TaskOverlapException.class, () -> manager.createTask(
+                    new Task("Overlap", "Description", Status.NEW, start.plusMinutes(30), Duration.ofMinutes(30))),
+                    "Restored intervals should still be checked");
+        }
+    }
+
+    @Test
+    void testWritesAreRejectedAfterTheLogFailed() throws IOException {
+        // Every write to /dev/full fails, so the log segment becomes a disk that is full
+        Path full = Path.of("/dev/full");
+        if (!Files.exists(full)) {
+            return;
+        }
+        Path dataDir = tempDir.resolve("data");
+        Files.createDirectories(dataDir);
+        Files.createSymbolicLink(dataDir.resolve("wal-1.log"), full);
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            // Already applied when its fsync failed, this one can't be taken back
+            assertThrows(ManagerSaveException.class, () -> manager.createTask(new Task("First", "Description")));
+            List<Task> tasks = manager.getAllTasks();
+            Task first = tasks.get(0);
+
+            assertThrows(ManagerSaveException.class, () -> manager.createTask(new Task("Second", "Description")));
+            assertThrows(ManagerSaveException.class, () -> manager.createEpic(new Epic("Epic", "Description")));
+            assertThrows(ManagerSaveException.class, () -> manager.updateTask(first.withTitle("Changed")));
+            assertThrows(ManagerSaveException.class, manager::deleteAllTasks);
+
+            assertEquals(tasks, manager.getAllTasks(), "Rejected writes should leave the state unchanged");
+            assertEquals("First", manager.getTask(first.getId()).getTitle());
+            assertTrue(manager.getAllEpics().isEmpty());
+            assertTrue(manager.search("second", 0, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void testFailedAutomaticSnapshotDoesNotFailTheWrite() {
+        Path dataDir = tempDir.resolve("data");
+        List<Throwable> reported = new ArrayList<>();
+        Thread current = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = current.getUncaughtExceptionHandler();
+        current.setUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        try {
+            try (WalTaskManager manager = new WalTaskManager(dataDir, SyncPolicy.everyWrite(), 3,
+                    new IdGeneratorImpl(), new TaskRepositoryImpl(), new SubtaskRepositoryImpl(),
+                    new EpicRepositoryImpl(), Managers.getDefaultHistory())) {
+                // The snapshot can't start the next segment
+                Files.createFile(dataDir.resolve("wal-2.log"));
+                for (int i = 0; i < 3; i++) {
+                    manager.createTask(new Task("Task " + i, "Description"));
+                }
+                assertEquals(3, manager.getAllTasks().size());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            current.setUncaughtExceptionHandler(handler);
+        }
+        assertEquals(1, reported.size(), "The failed snapshot should be reported");
+        assertTrue(reported.get(0) instanceof ManagerSaveException);
+
+        try (WalTaskManager manager = Managers.getDurable(dataDir)) {
+            assertEquals(3, manager.getAllTasks().size(), "The write that triggered the snapshot is logged");
+        }
+    }
+}
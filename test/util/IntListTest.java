@@ -0,0 +1,28 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntListTest {
+
+    @Test
+    void testAddRemoveKeepsOrder() {
+        IntList list = new IntList(1);
+        for (int i = 1; i <= 10; i++) {
+            list.add(i);
+        }
+
+        assertTrue(list.removeValue(5));
+        assertFalse(list.removeValue(42), "Removing a missing value should do nothing");
+        assertEquals(9, list.size());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 6, 7, 8, 9, 10}, list.toArray());
+
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        assertEquals(1, iterator.nextInt());
+        assertEquals(2, iterator.nextInt());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(9));
+    }
+}
@@ -0,0 +1,59 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+
+    @Test
+    void testBehavesLikeHashMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            // Small key range so probe chains collide and removals have to shift entries
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "remove(" + key + ")");
+            } else {
+                String value = "value " + i;
+                assertEquals(expected.put(key, value), map.put(key, value), "put(" + key + ")");
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key), map.get(key), "get(" + key + ")");
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+
+        Set<String> values = new HashSet<>();
+        for (String value : map.values()) {
+            values.add(value);
+        }
+        assertEquals(new HashSet<>(expected.values()), values);
+    }
+
+    @Test
+    void testClearAndNullValues() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "one");
+        map.put(0, "zero");
+        assertEquals("zero", map.get(0), "Zero should be a normal key");
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertFalse(map.values().iterator().hasNext());
+
+        assertThrows(NullPointerException.class, () -> map.put(2, null));
+    }
+}
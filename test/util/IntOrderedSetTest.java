@@ -0,0 +1,68 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntOrderedSetTest {
+
+    @Test
+    void testKeepsInsertionOrderAndIgnoresDuplicates() {
+        IntOrderedSet set = new IntOrderedSet(1);
+        for (int i = 1; i <= 20; i++) {
+            assertTrue(set.add(i));
+        }
+        assertFalse(set.add(7), "Adding a value twice should do nothing");
+
+        assertTrue(set.remove(5));
+        assertTrue(set.remove(20));
+        assertFalse(set.remove(42), "Removing a missing value should do nothing");
+        assertTrue(set.add(5));
+
+        assertEquals(19, set.size());
+        assertEquals(List.of(1, 2, 3, 4, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 5), set.asList());
+        assertEquals(6, set.get(4));
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(20));
+
+        IntOrderedSet copy = new IntOrderedSet(set);
+        copy.remove(1);
+        assertTrue(set.contains(1), "Copy should not share state with the original");
+        assertArrayEquals(new int[]{2, 3, 4, 6}, Arrays.copyOf(copy.toArray(), 4));
+        assertThrows(UnsupportedOperationException.class, () -> set.asList().add(3));
+    }
+
+    @Test
+    void testMatchesLinkedHashSet() {
+        Random random = new Random(21);
+        IntOrderedSet set = new IntOrderedSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(64);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        List<Integer> iterated = new ArrayList<>();
+        for (PrimitiveIterator.OfInt it = set.iterator(); it.hasNext(); ) {
+            iterated.add(it.nextInt());
+        }
+        assertEquals(new ArrayList<>(expected), iterated);
+        assertEquals(expected.toString(), set.toString());
+        for (int value = 0; value < 64; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}